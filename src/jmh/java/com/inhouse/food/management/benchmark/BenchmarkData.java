@@ -0,0 +1,103 @@
+package com.inhouse.food.management.benchmark;
+
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.Recipe;
+import com.inhouse.food.management.service.ExpiryClock;
+import com.inhouse.food.management.service.GroceryService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded generator of the groceries and recipes the benchmarks run on, so every run measures the
+ * same data. Expiry is evaluated against the fixed day {@link #TODAY}; expiry dates are spread over
+ * a year before and two years after it, so roughly a third of the lots are expired.
+ */
+final class BenchmarkData {
+  /** Seed of all generated data. */
+  static final long SEED = 20240501L;
+
+  /** The day expiry is evaluated against. */
+  static final LocalDate TODAY = LocalDate.of(2024, 5, 1);
+
+  private static final String[] UNITS = {"kg", "liters", "pieces"};
+  private static final int PRICE_VARIANTS = 20;
+
+  private BenchmarkData() {}
+
+  /**
+   * Returns a grocery service evaluating expiry against {@link #TODAY}.
+   *
+   * @return the grocery service
+   */
+  static GroceryService groceryService() {
+    return new GroceryService(ExpiryClock.fixed(TODAY));
+  }
+
+  /**
+   * Returns the name of a grocery category.
+   *
+   * @param category the index of the category
+   * @return the name of the category
+   */
+  static String categoryName(int category) {
+    return "Grocery" + category;
+  }
+
+  /**
+   * Generates grocery lots spread evenly over the given number of categories. Lots with the same
+   * name, unit, price and expiry date are clubbed by the fridge, so it holds at most as many lots.
+   *
+   * @param lots the number of lots to generate
+   * @param categories the number of distinct grocery names
+   * @return the generated lots
+   */
+  static List<Grocery> groceries(int lots, int categories) {
+    Random random = new Random(SEED);
+    List<Grocery> groceries = new ArrayList<>(lots);
+    for (int i = 0; i < lots; i++) {
+      int category = random.nextInt(categories);
+      groceries.add(
+          new Grocery(
+              categoryName(category),
+              1 + random.nextInt(10),
+              UNITS[category % UNITS.length],
+              1 + category % 50 + random.nextInt(PRICE_VARIANTS),
+              TODAY.plusDays(random.nextInt(3 * 365) - 365)));
+    }
+    return groceries;
+  }
+
+  /**
+   * Generates recipes over the given grocery categories. A fifth of the ingredients are drawn from
+   * names the fridge does not hold, so a part of the cookbook is never cookable.
+   *
+   * @param recipes the number of recipes to generate
+   * @param ingredientsPerRecipe the number of ingredients of every recipe
+   * @param categories the number of grocery categories in the fridge
+   * @return the generated recipes
+   */
+  static List<Recipe> recipes(int recipes, int ingredientsPerRecipe, int categories) {
+    Random random = new Random(SEED + 1);
+    int vocabulary = categories + Math.max(1, categories / 4);
+    List<Recipe> cookbook = new ArrayList<>(recipes);
+    for (int i = 0; i < recipes; i++) {
+      Map<String, Double> ingredients = new HashMap<>();
+      while (ingredients.size() < Math.min(ingredientsPerRecipe, vocabulary)) {
+        ingredients.put(categoryName(random.nextInt(vocabulary)), 1.0 + random.nextInt(5));
+      }
+      cookbook.add(
+          new Recipe(
+              i + 1,
+              "Recipe" + i,
+              "Description of recipe " + i,
+              "Procedure of recipe " + i + ": mix the ingredients and cook.",
+              ingredients,
+              1 + random.nextInt(6)));
+    }
+    return cookbook;
+  }
+}
@@ -0,0 +1,98 @@
+package com.inhouse.food.management.benchmark;
+
+import com.inhouse.food.management.model.ColumnarFoodStorage;
+import com.inhouse.food.management.model.FoodStorage;
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.GroceryStorage;
+import com.inhouse.food.management.service.FridgeService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the {@link FridgeService} operations that leave the inventory unchanged or only
+ * increase the quantity of existing lots: clubbing, value totals and expiry queries, on either
+ * storage the fridge can run on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FridgeServiceBenchmark {
+
+  @Param({"1000", "100000"})
+  int inventorySize;
+
+  @Param({"10", "1000"})
+  int categories;
+
+  @Param({"FoodStorage", "ColumnarFoodStorage"})
+  String storage;
+
+  private FridgeService fridgeService;
+  private Grocery clubbedLot;
+
+  @Setup
+  public void fillFridge() {
+    List<Grocery> groceries = BenchmarkData.groceries(inventorySize, categories);
+    GroceryStorage groceryStorage =
+        storage.equals("FoodStorage") ? new FoodStorage() : new ColumnarFoodStorage();
+    fridgeService = new FridgeService(groceryStorage, BenchmarkData.groceryService());
+    fridgeService.addGroceries(groceries);
+    // the latest lot of a category is clubbed into a lot near the end of its list
+    clubbedLot = groceries.get(groceries.size() - 1);
+  }
+
+  @Benchmark
+  public void addGroceryClubbing() {
+    fridgeService.addGrocery(
+        new Grocery(
+            clubbedLot.getName(),
+            1,
+            clubbedLot.getUnit(),
+            clubbedLot.getPricePerUnit(),
+            clubbedLot.getExpiryDate()));
+  }
+
+  @Benchmark
+  public double calculateTotalValue() {
+    return fridgeService.calculateTotalValue();
+  }
+
+  @Benchmark
+  public double calculateTotalValueOfCategory() {
+    return fridgeService.calculateTotalValue(clubbedLot.getName());
+  }
+
+  @Benchmark
+  public double calculateTotalValueOfExpiredGroceries() {
+    return fridgeService.calculateTotalValueOfExpiredGroceries();
+  }
+
+  @Benchmark
+  public List<Grocery> getExpiredGroceries() {
+    return fridgeService.getExpiredGroceries();
+  }
+
+  @Benchmark
+  public List<Grocery> getGroceriesExpiringWithinAWeek() {
+    return fridgeService.getGroceriesExpiringWithin(7);
+  }
+
+  @Benchmark
+  public List<Grocery> getAllGroceriesInExpiryOrder() {
+    return fridgeService.getAllGroceriesInExpiryOrder();
+  }
+}
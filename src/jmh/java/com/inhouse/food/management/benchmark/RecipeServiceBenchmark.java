@@ -0,0 +1,86 @@
+package com.inhouse.food.management.benchmark;
+
+import com.inhouse.food.management.model.FoodStorage;
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.Recipe;
+import com.inhouse.food.management.model.RecipeTableRenderer;
+import com.inhouse.food.management.service.FridgeService;
+import com.inhouse.food.management.service.RecipeService;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of the recipe queries of {@link RecipeService} and of rendering them as a table. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeServiceBenchmark {
+
+  @Param({"10000"})
+  int inventorySize;
+
+  @Param({"50", "500"})
+  int categories;
+
+  @Param({"100", "10000"})
+  int recipeCount;
+
+  @Param({"3", "10"})
+  int ingredientsPerRecipe;
+
+  private RecipeService recipeService;
+  private List<Grocery> fridgeItems;
+  private List<Recipe> recipes;
+
+  @Setup
+  public void fillCookbook() {
+    FridgeService fridgeService =
+        new FridgeService(new FoodStorage(), BenchmarkData.groceryService());
+    fridgeService.addGroceries(BenchmarkData.groceries(inventorySize, categories));
+    fridgeItems = fridgeService.getAllGroceries();
+    recipeService = new RecipeService(BenchmarkData.groceryService());
+    BenchmarkData.recipes(recipeCount, ingredientsPerRecipe, categories)
+        .forEach(recipeService::addRecipe);
+    recipes = recipeService.getRecipes();
+  }
+
+  @Benchmark
+  public List<Recipe> getPossibleRecipesIncludingExpired() {
+    return recipeService.getPossibleRecipes(fridgeItems, "y");
+  }
+
+  @Benchmark
+  public List<Recipe> getPossibleRecipesExcludingExpired() {
+    return recipeService.getPossibleRecipes(fridgeItems, "n");
+  }
+
+  @Benchmark
+  public List<Recipe> getPossibleRecipesInParallelIncludingExpired() {
+    return recipeService.getPossibleRecipesInParallel(fridgeItems, "y");
+  }
+
+  @Benchmark
+  public String renderTable() {
+    return Recipe.toTable(recipes);
+  }
+
+  @Benchmark
+  public void streamTable() throws IOException {
+    new RecipeTableRenderer().render(recipes, Writer.nullWriter());
+  }
+}
@@ -0,0 +1,69 @@
+package com.inhouse.food.management.benchmark;
+
+import com.inhouse.food.management.model.FoodStorage;
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.service.FridgeService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of {@link FridgeService#removeGrocery(String, double)} consuming most of the lots of
+ * one category. The category is refilled before every invocation, which is excluded from the
+ * measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemoveGroceryBenchmark {
+
+  @Param({"1000", "100000"})
+  int inventorySize;
+
+  @Param({"10", "1000"})
+  int categories;
+
+  private FridgeService fridgeService;
+  private String category;
+  private List<Grocery> categoryLots;
+  private double removedQuantity;
+
+  @Setup(Level.Trial)
+  public void fillFridge() {
+    List<Grocery> groceries = BenchmarkData.groceries(inventorySize, categories);
+    fridgeService = new FridgeService(new FoodStorage(), BenchmarkData.groceryService());
+    fridgeService.addGroceries(groceries);
+    category = BenchmarkData.categoryName(0);
+    categoryLots =
+        groceries.stream()
+            .filter(grocery -> grocery.getName().equals(category))
+            .collect(Collectors.toList());
+    removedQuantity = 0.9 * fridgeService.getAvailableQuantity(category, true);
+  }
+
+  @Setup(Level.Invocation)
+  public void refillCategory() {
+    fridgeService.removeGrocery(category, fridgeService.getAvailableQuantity(category, true));
+    fridgeService.addGroceries(categoryLots);
+  }
+
+  @Benchmark
+  public boolean removeGroceryAcrossLots() {
+    return fridgeService.removeGrocery(category, removedQuantity);
+  }
+}
@@ -3,10 +3,33 @@ package com.inhouse.food.management;
 import static com.inhouse.food.management.service.UserInterfaceService.init;
 import static com.inhouse.food.management.service.UserInterfaceService.start;
 
+import com.inhouse.food.management.api.FoodWasteServer;
+import com.inhouse.food.management.metrics.MeteredFridgeService;
+import com.inhouse.food.management.metrics.MeteredGroceryService;
+import com.inhouse.food.management.metrics.MeteredRecipeService;
+import com.inhouse.food.management.metrics.Metrics;
+import com.inhouse.food.management.model.FoodStorage;
+import com.inhouse.food.management.persistence.CookbookSnapshot;
+import com.inhouse.food.management.persistence.FridgeJournal;
+import com.inhouse.food.management.service.BatchCommandRunner;
+import com.inhouse.food.management.service.ExpiryClock;
 import com.inhouse.food.management.service.FridgeService;
 import com.inhouse.food.management.service.GroceryService;
 import com.inhouse.food.management.service.RecipeService;
-import com.inhouse.food.management.service.UserInterfaceService;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Application for managing food waste by tracking groceries and recipes.
@@ -15,21 +38,157 @@ import com.inhouse.food.management.service.UserInterfaceService;
  * recipes. It also provides an option to view possible recipes that can be made with the current
  * groceries.
  *
+ * <p>The fridge is kept in a journal in the directory given by the system property {@value
+ * #DATA_DIRECTORY_PROPERTY}, by default {@code .inhouse-food-management} in the home directory of
+ * the user, and restored from there on the next start. The cookbook is written to a {@link
+ * CookbookSnapshot} in the same directory on exit.
+ *
+ * <p>Calls, failures and latencies of the fridge and recipe services, the calls of the grocery
+ * service, and the number of lots, categories and recipes are kept in {@link #metrics} and exported
+ * over JMX under the domain {@value Metrics#JMX_DOMAIN}, e.g. to be watched in JConsole.
+ *
+ * <p>Without arguments the application starts the console menu. Instead it can run commands
+ * without any prompts, see {@link BatchCommandRunner} for the commands:
+ *
+ * <pre>
+ * --batch FILE     runs the commands of a file, or of standard input if FILE is -
+ * --query COMMAND  runs one command, may be given several times
+ * --json           writes one JSON object per command instead of text
+ * --serve PORT     serves the fridge and the cookbook over HTTP until the process is stopped,
+ *                  see {@link FoodWasteServer}
+ * </pre>
+ *
+ * <p>The results of commands are written to standard output through one buffer. The application
+ * exits with status 1 if any command failed.
+ *
  * <p>Example usage:
  *
  * <pre>{@code
  * FoodWasteApp.main(new String[]{});
+ * FoodWasteApp.main(new String[]{"--query", "quantity,Milk", "--json"});
  * }</pre>
  */
 public class FoodWasteApp {
 
-  public static final FridgeService fridgeService = new FridgeService();
-  public static final RecipeService recipeService = new RecipeService();
-  public static final GroceryService groceryService = new GroceryService();
+  /** System property naming the directory the fridge is persisted in. */
+  public static final String DATA_DIRECTORY_PROPERTY = "foodwaste.data.dir";
+
+  /** Latencies of the service operations and inventory gauges, exported over JMX. */
+  public static final Metrics metrics = new Metrics();
+
+  public static final GroceryService groceryService =
+      new MeteredGroceryService(metrics, ExpiryClock.system());
+  public static final FridgeService fridgeService =
+      new MeteredFridgeService(metrics, new FoodStorage(), groceryService);
+  public static final RecipeService recipeService =
+      new MeteredRecipeService(metrics, groceryService);
+
+  private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+  public static void main(String[] args) throws IOException {
+    String batchFile = null;
+    List<String> queries = new ArrayList<>();
+    BatchCommandRunner.OutputFormat format = BatchCommandRunner.OutputFormat.TEXT;
+    Integer port = null;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--batch" -> batchFile = argumentOf(args, i++);
+        case "--query" -> queries.add(argumentOf(args, i++));
+        case "--json" -> format = BatchCommandRunner.OutputFormat.JSON;
+        case "--serve" -> port = Integer.parseInt(argumentOf(args, i++));
+        default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+      }
+    }
+
+    metrics.registerMBeans();
+    Path fridgeDirectory = dataDirectory().resolve("fridge");
+    Path cookbookFile = dataDirectory().resolve("cookbook.bin");
+    if (Files.exists(cookbookFile)) {
+      CookbookSnapshot.read(cookbookFile).forEach(recipeService::addRecipe);
+    }
+    BatchCommandRunner.Result result = null;
+    try (FridgeJournal journal = FridgeJournal.open(fridgeDirectory, fridgeService)) {
+      if (port != null) {
+        serve(port);
+      } else if (batchFile == null && queries.isEmpty()) {
+        init(); // Initialize sample data
+        start(); // Start the console menu
+      } else {
+        result = runCommands(batchFile, queries, format);
+      }
+    }
+    CookbookSnapshot.write(cookbookFile, recipeService.getRecipes());
+    if (result != null && result.failedCommands() > 0) {
+      System.exit(1);
+    }
+  }
+
+  private static BatchCommandRunner.Result runCommands(
+      String batchFile, List<String> queries, BatchCommandRunner.OutputFormat format)
+      throws IOException {
+    BatchCommandRunner runner = new BatchCommandRunner(fridgeService, recipeService, format);
+    // not closed, that would close standard output
+    Writer out =
+        new BufferedWriter(
+            new OutputStreamWriter(System.out, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+    try {
+      if (batchFile == null) {
+        return runner.run(new StringReader(String.join("\n", queries)), out);
+      }
+      if (batchFile.equals("-")) {
+        return runner.run(new InputStreamReader(System.in, StandardCharsets.UTF_8), out);
+      }
+      try (Reader commands = Files.newBufferedReader(Path.of(batchFile), StandardCharsets.UTF_8)) {
+        return runner.run(commands, out);
+      }
+    } finally {
+      out.flush();
+    }
+  }
+
+  private static void serve(int port) throws IOException {
+    // read once by the JDK server, see FoodWasteServer
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+    FoodWasteServer server =
+        new FoodWasteServer(new InetSocketAddress(port), fridgeService, recipeService);
+    CountDownLatch stopped = new CountDownLatch(1);
+    Thread mainThread = Thread.currentThread();
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  stopped.countDown();
+                  try {
+                    // let the fridge journal and the cookbook be written before the JVM halts
+                    mainThread.join();
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                }));
+    server.start();
+    System.out.println("Serving on port " + server.getPort() + ", stop with Ctrl+C");
+    try {
+      stopped.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      server.stop(1);
+    }
+  }
+
+  private static String argumentOf(String[] args, int option) {
+    if (option + 1 >= args.length) {
+      throw new IllegalArgumentException("Missing value of " + args[option]);
+    }
+    return args[option + 1];
+  }
 
-  public static void main(String[] args) {
-    UserInterfaceService userInterfaceService = new UserInterfaceService();
-    init(); // Initialize sample data
-    start(); // Start the console menu
+  private static Path dataDirectory() {
+    String configured = System.getProperty(DATA_DIRECTORY_PROPERTY);
+    return configured != null
+        ? Path.of(configured)
+        : Path.of(System.getProperty("user.home"), ".inhouse-food-management");
   }
 }
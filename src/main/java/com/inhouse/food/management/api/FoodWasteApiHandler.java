@@ -0,0 +1,353 @@
+package com.inhouse.food.management.api;
+
+import com.inhouse.food.management.json.Json;
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.Recipe;
+import com.inhouse.food.management.service.FridgeService;
+import com.inhouse.food.management.service.RecipeService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves the JSON endpoints of {@link FoodWasteServer}. See the server for the endpoints and {@link
+ * Json} for the representation of groceries and recipes.
+ */
+final class FoodWasteApiHandler implements HttpHandler {
+  private static final int OK = 200;
+  private static final int CREATED = 201;
+  private static final int BAD_REQUEST = 400;
+  private static final int NOT_FOUND = 404;
+  private static final int METHOD_NOT_ALLOWED = 405;
+  private static final int CONFLICT = 409;
+  private static final int INTERNAL_SERVER_ERROR = 500;
+
+  private final FridgeService fridgeService;
+  private final RecipeService recipeService;
+  private final GroceryAddBatcher groceryAddBatcher;
+
+  FoodWasteApiHandler(FridgeService fridgeService, RecipeService recipeService, int maxBatchSize) {
+    this.fridgeService = fridgeService;
+    this.recipeService = recipeService;
+    this.groceryAddBatcher = new GroceryAddBatcher(fridgeService, maxBatchSize);
+  }
+
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    int status;
+    StringBuilder body = new StringBuilder();
+    try {
+      status = route(exchange, body);
+    } catch (ApiException e) {
+      status = e.status;
+      error(body, e.getMessage());
+    } catch (IllegalArgumentException | ClassCastException | DateTimeParseException e) {
+      // NumberFormatException is an IllegalArgumentException
+      status = BAD_REQUEST;
+      error(body, e.getMessage());
+    } catch (RuntimeException e) {
+      status = INTERNAL_SERVER_ERROR;
+      error(body, e.toString());
+    }
+    byte[] response = body.toString().getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(status, response.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(response);
+    }
+  }
+
+  private int route(HttpExchange exchange, StringBuilder body) throws IOException {
+    String method = exchange.getRequestMethod();
+    List<String> path = pathOf(exchange);
+    Map<String, String> query = queryOf(exchange);
+    if (path.isEmpty()) throw new ApiException(NOT_FOUND, "No such resource");
+    switch (path.get(0)) {
+      case "groceries":
+        if (path.size() == 1) {
+          if (method.equals("GET")) return groceries(query, body);
+          if (method.equals("POST")) return addGroceries(readBody(exchange), body);
+        } else if (path.size() == 2) {
+          if (method.equals("GET")) return grocery(path.get(1), body);
+          if (method.equals("DELETE")) return removeGrocery(path.get(1), query, body);
+        } else {
+          break;
+        }
+        throw new ApiException(METHOD_NOT_ALLOWED, "Method not allowed: " + method);
+      case "value":
+        if (path.size() != 1) break;
+        if (!method.equals("GET")) {
+          throw new ApiException(METHOD_NOT_ALLOWED, "Method not allowed: " + method);
+        }
+        body.append("{\"total\":").append(fridgeService.calculateTotalValue());
+        body.append(",\"expired\":").append(fridgeService.calculateTotalValueOfExpiredGroceries());
+        body.append('}');
+        return OK;
+      case "recipes":
+        if (path.size() == 1) {
+          if (method.equals("GET")) {
+            Json.appendRecipes(body, recipeService.getRecipes());
+            return OK;
+          }
+          if (method.equals("POST")) return addRecipe(readBody(exchange), body);
+        } else if (path.size() == 2 && path.get(1).equals("possible")) {
+          if (method.equals("GET")) return possibleRecipes(query, body);
+        } else if (path.size() == 2) {
+          int id = parseId(path.get(1));
+          if (method.equals("GET")) return recipe(id, body);
+          if (method.equals("PUT")) return updateRecipe(id, readBody(exchange), body);
+          if (method.equals("DELETE")) return removeRecipe(id, body);
+        } else {
+          break;
+        }
+        throw new ApiException(METHOD_NOT_ALLOWED, "Method not allowed: " + method);
+      default:
+        break;
+    }
+    throw new ApiException(NOT_FOUND, "No such resource");
+  }
+
+  private int groceries(Map<String, String> query, StringBuilder body) {
+    List<Grocery> groceries;
+    if (Boolean.parseBoolean(query.get("expired"))) {
+      groceries = fridgeService.getExpiredGroceries();
+    } else if (query.containsKey("expiringWithin")) {
+      groceries =
+          fridgeService.getGroceriesExpiringWithin(Integer.parseInt(query.get("expiringWithin")));
+    } else {
+      groceries = fridgeService.getAllGroceriesInExpiryOrder();
+    }
+    Json.appendGroceries(body, groceries, today());
+    return OK;
+  }
+
+  private int addGroceries(Object document, StringBuilder body) {
+    List<Grocery> groceries = new ArrayList<>();
+    if (document instanceof List<?> elements) {
+      for (Object element : elements) {
+        groceries.add(toGrocery(element));
+      }
+    } else {
+      groceries.add(toGrocery(document));
+    }
+    Map<Integer, RuntimeException> failures = groceryAddBatcher.add(groceries);
+    body.append("{\"added\":").append(groceries.size() - failures.size());
+    if (failures.isEmpty()) {
+      body.append('}');
+      return CREATED;
+    }
+    // the other groceries are stored, so only the failed ones may be retried
+    body.append(",\"failed\":[");
+    String separator = "";
+    for (int position = 0; position < groceries.size(); position++) {
+      RuntimeException failure = failures.get(position);
+      if (failure != null) {
+        body.append(separator).append("{\"index\":").append(position).append(",\"error\":");
+        Json.appendString(body, failure.toString());
+        body.append('}');
+        separator = ",";
+      }
+    }
+    body.append("]}");
+    return INTERNAL_SERVER_ERROR;
+  }
+
+  private int grocery(String name, StringBuilder body) {
+    body.append("{\"name\":");
+    Json.appendString(body, name);
+    body.append(",\"quantity\":").append(fridgeService.getAvailableQuantity(name, false));
+    body.append(",\"quantityIncludingExpired\":");
+    body.append(fridgeService.getAvailableQuantity(name, true));
+    body.append(",\"value\":").append(fridgeService.calculateTotalValue(name)).append('}');
+    return OK;
+  }
+
+  private int removeGrocery(String name, Map<String, String> query, StringBuilder body) {
+    String quantityParameter = query.get("quantity");
+    if (quantityParameter == null) {
+      throw new IllegalArgumentException("Missing query parameter quantity");
+    }
+    double quantity = toQuantity(Double.parseDouble(quantityParameter));
+    if (!fridgeService.removeGrocery(name, quantity)) {
+      throw new ApiException(CONFLICT, "Less than " + quantity + " of " + name + " is stored");
+    }
+    body.append("{\"removed\":").append(quantity).append('}');
+    return OK;
+  }
+
+  private int addRecipe(Object document, StringBuilder body) {
+    Map<?, ?> members = asObject(document);
+    int id =
+        members.get("id") != null
+            ? toInt(members.get("id"), "id")
+            : recipeService.nextRecipeId();
+    Recipe recipe = toRecipe(id, members);
+    try {
+      recipeService.addRecipe(recipe);
+    } catch (IllegalArgumentException e) {
+      // the id was taken, possibly by a concurrent request since it was allocated
+      throw new ApiException(CONFLICT, e.getMessage());
+    }
+    body.append("{\"id\":").append(id).append('}');
+    return CREATED;
+  }
+
+  private int recipe(int id, StringBuilder body) {
+    Recipe recipe = recipeService.findById(id);
+    if (recipe == null) throw new ApiException(NOT_FOUND, "No recipe with id " + id);
+    Json.appendRecipe(body, recipe);
+    return OK;
+  }
+
+  private int updateRecipe(int id, Object document, StringBuilder body) {
+    if (!recipeService.updateById(id, toRecipe(id, asObject(document)))) {
+      throw new ApiException(NOT_FOUND, "No recipe with id " + id);
+    }
+    return recipe(id, body);
+  }
+
+  private int removeRecipe(int id, StringBuilder body) {
+    Recipe removed = recipeService.removeById(id);
+    if (removed == null) throw new ApiException(NOT_FOUND, "No recipe with id " + id);
+    Json.appendRecipe(body, removed);
+    return OK;
+  }
+
+  private int possibleRecipes(Map<String, String> query, StringBuilder body) {
+    String includeExpired = Boolean.parseBoolean(query.get("includeExpired")) ? "y" : "n";
+    List<Grocery> groceries = fridgeService.getAllGroceries();
+    Json.appendRecipes(body, recipeService.getPossibleRecipes(groceries, includeExpired));
+    return OK;
+  }
+
+  private int today() {
+    return fridgeService.todayEpochDay();
+  }
+
+  private static Grocery toGrocery(Object document) {
+    Map<?, ?> members = asObject(document);
+    Object expiryDate = members.get("expiryDate");
+    if (!(expiryDate instanceof String)) {
+      throw new IllegalArgumentException("Missing expiryDate");
+    }
+    return new Grocery(
+        (String) members.get("name"),
+        toQuantity(toDouble(members.get("quantity"), "quantity")),
+        (String) members.get("unit"),
+        toDouble(members.get("pricePerUnit"), "pricePerUnit"),
+        LocalDate.parse((String) expiryDate));
+  }
+
+  private static Recipe toRecipe(int id, Map<?, ?> members) {
+    Map<String, Double> ingredients = null;
+    if (members.get("ingredients") != null) {
+      ingredients = new HashMap<>();
+      for (Map.Entry<?, ?> ingredient : asObject(members.get("ingredients")).entrySet()) {
+        String name = (String) ingredient.getKey();
+        ingredients.put(name, toDouble(ingredient.getValue(), name));
+      }
+    }
+    Object serves = members.get("serves");
+    return new Recipe(
+        id,
+        (String) members.get("name"),
+        (String) members.get("description"),
+        (String) members.get("procedure"),
+        ingredients,
+        serves != null ? toInt(serves, "serves") : 1);
+  }
+
+  private static Map<?, ?> asObject(Object document) {
+    if (!(document instanceof Map<?, ?> members)) {
+      throw new IllegalArgumentException("Expected a JSON object");
+    }
+    return members;
+  }
+
+  private static double toDouble(Object value, String name) {
+    if (!(value instanceof Double number)) {
+      throw new IllegalArgumentException("Expected a number for " + name);
+    }
+    return number;
+  }
+
+  private static double toQuantity(double quantity) {
+    // also rejects NaN, which fails every comparison
+    if (!(quantity > 0) || Double.isInfinite(quantity)) {
+      throw new IllegalArgumentException("Expected a positive quantity: " + quantity);
+    }
+    return quantity;
+  }
+
+  private static int toInt(Object value, String name) {
+    double number = toDouble(value, name);
+    if (number != Math.rint(number) || Math.abs(number) > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Expected an integer for " + name);
+    }
+    return (int) number;
+  }
+
+  private static int parseId(String segment) {
+    try {
+      return Integer.parseInt(segment);
+    } catch (NumberFormatException e) {
+      throw new ApiException(NOT_FOUND, "No such resource");
+    }
+  }
+
+  private static Object readBody(HttpExchange exchange) throws IOException {
+    return Json.parse(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+  }
+
+  private static List<String> pathOf(HttpExchange exchange) {
+    List<String> segments = new ArrayList<>();
+    for (String segment : exchange.getRequestURI().getRawPath().split("/")) {
+      if (!segment.isEmpty()) {
+        segments.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+      }
+    }
+    return segments;
+  }
+
+  private static Map<String, String> queryOf(HttpExchange exchange) {
+    Map<String, String> parameters = new LinkedHashMap<>();
+    String query = exchange.getRequestURI().getRawQuery();
+    if (query == null) return parameters;
+    for (String parameter : query.split("&")) {
+      int separator = parameter.indexOf('=');
+      String name = separator < 0 ? parameter : parameter.substring(0, separator);
+      String value = separator < 0 ? "" : parameter.substring(separator + 1);
+      parameters.put(
+          URLDecoder.decode(name, StandardCharsets.UTF_8),
+          URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return parameters;
+  }
+
+  private static void error(StringBuilder body, String message) {
+    body.setLength(0);
+    body.append("{\"error\":");
+    Json.appendString(body, message);
+    body.append('}');
+  }
+
+  /** Failure of a request with a specific status code. */
+  private static final class ApiException extends RuntimeException {
+    private final int status;
+
+    private ApiException(int status, String message) {
+      super(message);
+      this.status = status;
+    }
+  }
+}
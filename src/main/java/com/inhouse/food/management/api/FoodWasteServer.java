@@ -0,0 +1,154 @@
+package com.inhouse.food.management.api;
+
+import com.inhouse.food.management.service.FridgeService;
+import com.inhouse.food.management.service.RecipeService;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP server offering the fridge and the cookbook as JSON endpoints, built on the HTTP
+ * server of the JDK.
+ *
+ * <p>Every request runs on its own virtual thread where the runtime offers them (Java 21 and
+ * later), so blocking on the locks of the services or on the fridge journal costs no platform
+ * thread. On older runtimes requests run on a fixed pool of {@value #FALLBACK_THREADS_PER_CPU}
+ * threads per processor.
+ *
+ * <p>Endpoints, groceries and recipes represented as described in {@link
+ * com.inhouse.food.management.json.Json}:
+ *
+ * <pre>
+ * GET    /groceries                 all groceries, earliest expiry first;
+ *                                   ?expired=true only expired ones,
+ *                                   ?expiringWithin=DAYS those expiring within the days
+ * POST   /groceries                 store a grocery object or an array of them, 500 listing the
+ *                                   positions of those which failed, the others being stored
+ * GET    /groceries/NAME            quantity with and without expired lots, and value of a grocery
+ * DELETE /groceries/NAME?quantity=Q consume a grocery, 409 if less is stored
+ * GET    /value                     value of all and of the expired groceries
+ * GET    /recipes                   all recipes
+ * POST   /recipes                   save a recipe, an id is allocated if it has none, 409 if the
+ *                                   id is in use
+ * GET    /recipes/possible          recipes which can be made, ?includeExpired=true also with
+ *                                   expired groceries
+ * GET    /recipes/ID                a recipe
+ * PUT    /recipes/ID                replace the contents of a recipe
+ * DELETE /recipes/ID                remove a recipe
+ * </pre>
+ *
+ * <p>Groceries posted by concurrent requests are stored together, in batches of up to {@value
+ * #MAX_ADD_BATCH_SIZE} groceries per lock stripe of the fridge. Errors are answered with a status
+ * code and {@code {"error":"message"}}.
+ *
+ * <p>The JDK server writes headers and body separately, so unless the system property {@code
+ * sun.net.httpserver.nodelay} is {@code true} when the first server is created, Nagle's algorithm
+ * delays every response until the delayed acknowledgement of the client, about 40 ms. The property
+ * is global to the JVM and therefore left to the launcher, see {@code FoodWasteApp}.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * FoodWasteServer server =
+ *     new FoodWasteServer(new InetSocketAddress(8080), fridgeService, recipeService);
+ * server.start();
+ * }</pre>
+ */
+public class FoodWasteServer implements AutoCloseable {
+  /** Port the server listens on by default. */
+  public static final int DEFAULT_PORT = 8080;
+
+  /** Maximum number of groceries of concurrent requests stored at once. */
+  static final int MAX_ADD_BATCH_SIZE = 10_000;
+
+  private static final int FALLBACK_THREADS_PER_CPU = 4;
+  private static final int BACKLOG = 1024;
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  /**
+   * Creates a server bound to the given address. It does not accept requests before it is started.
+   *
+   * @param address the address to listen on, port 0 for any free port
+   * @param fridgeService the fridge to serve
+   * @param recipeService the cookbook to serve
+   * @throws IOException if the address cannot be bound
+   */
+  public FoodWasteServer(
+      InetSocketAddress address, FridgeService fridgeService, RecipeService recipeService)
+      throws IOException {
+    server = HttpServer.create(address, BACKLOG);
+    server.createContext(
+        "/", new FoodWasteApiHandler(fridgeService, recipeService, MAX_ADD_BATCH_SIZE));
+    executor =
+        newRequestExecutor(FALLBACK_THREADS_PER_CPU * Runtime.getRuntime().availableProcessors());
+    server.setExecutor(executor);
+  }
+
+  /** Starts accepting requests. */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stops accepting requests and waits up to the given time for running requests to finish.
+   *
+   * @param delaySeconds the maximum time to wait for running requests, in seconds
+   */
+  public void stop(int delaySeconds) {
+    server.stop(delaySeconds);
+    executor.shutdown();
+    try {
+      executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Stops the server without waiting for running requests. */
+  @Override
+  public void close() {
+    stop(0);
+  }
+
+  /**
+   * Creates the executor requests run on: one virtual thread per request if the runtime offers
+   * them, otherwise a fixed pool of daemon threads. The virtual thread executor is looked up
+   * reflectively because the application is compiled for Java 16.
+   *
+   * @param fallbackThreads the number of threads of the pool used without virtual threads
+   * @return a new executor
+   */
+  static ExecutorService newRequestExecutor(int fallbackThreads) {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      // no virtual threads before Java 21, or as preview feature only
+      AtomicInteger threadNumber = new AtomicInteger();
+      ThreadFactory threadFactory =
+          task -> {
+            Thread thread = new Thread(task, "food-waste-http-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          };
+      return Executors.newFixedThreadPool(fallbackThreads, threadFactory);
+    }
+  }
+}
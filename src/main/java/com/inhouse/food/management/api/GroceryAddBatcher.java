@@ -0,0 +1,139 @@
+package com.inhouse.food.management.api;
+
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.service.FridgeService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Combines the grocery additions of concurrent requests into few calls of {@link
+ * FridgeService#addGroceries(java.util.Collection)}.
+ *
+ * <p>Requests are batched per {@link FridgeService#getLockStripe(String) lock stripe} of the
+ * fridge, so requests for groceries of different stripes are stored in parallel, as the fridge
+ * allows. Every request queues its groceries with their stripes and then takes the store lock of
+ * each stripe in turn. Whoever holds the lock of a stripe stores everything queued there so far, up
+ * to a maximum batch size; requests whose groceries were stored by another thread return as soon as
+ * they get the lock. Under load the fridge therefore sees one call per grocery name and lock
+ * hand-over instead of one per request, while a lone request is stored right away. The locks are
+ * {@link ReentrantLock}s, so waiting does not pin virtual threads.
+ *
+ * <p>A batch stores the groceries of every name with a call of its own, so a failure is reported
+ * for exactly the groceries of the failed name, whichever requests they came from.
+ */
+final class GroceryAddBatcher {
+  private final FridgeService fridgeService;
+  private final int maxBatchSize;
+  private final Stripe[] stripes;
+
+  GroceryAddBatcher(FridgeService fridgeService, int maxBatchSize) {
+    if (maxBatchSize <= 0) throw new IllegalArgumentException("Batch size must be positive");
+    this.fridgeService = fridgeService;
+    this.maxBatchSize = maxBatchSize;
+    stripes = new Stripe[fridgeService.getLockStripeCount()];
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * Stores the given groceries, possibly together with those of other requests, and returns once
+   * every one of them was stored or failed to be stored.
+   *
+   * @param groceries the groceries to store
+   * @return the failure of every grocery which could not be stored, by its position in {@code
+   *     groceries}; empty if all were stored
+   */
+  Map<Integer, RuntimeException> add(List<Grocery> groceries) {
+    Map<Stripe, PendingAdd> parts = new LinkedHashMap<>();
+    for (int i = 0; i < groceries.size(); i++) {
+      Grocery grocery = groceries.get(i);
+      Stripe stripe = stripes[fridgeService.getLockStripe(grocery.getName())];
+      parts.computeIfAbsent(stripe, s -> new PendingAdd()).add(i, grocery);
+    }
+    parts.forEach((stripe, part) -> stripe.pending.add(part));
+
+    Map<Integer, RuntimeException> failures = new HashMap<>();
+    parts.forEach(
+        (stripe, part) -> {
+          stripe.storeLock.lock();
+          try {
+            while (!part.stored) {
+              stripe.storeBatch();
+            }
+          } finally {
+            stripe.storeLock.unlock();
+          }
+          for (int i = 0; part.failures != null && i < part.groceries.size(); i++) {
+            if (part.failures[i] != null) {
+              failures.put(part.positions.get(i), part.failures[i]);
+            }
+          }
+        });
+    return failures;
+  }
+
+  /** The queued groceries of one lock stripe. */
+  private final class Stripe {
+    private final Queue<PendingAdd> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock storeLock = new ReentrantLock();
+
+    /** Stores the queued groceries up to the batch size. Must be called holding the store lock. */
+    private void storeBatch() {
+      List<PendingAdd> batch = new ArrayList<>();
+      Map<String, List<Grocery>> groceriesPerName = new LinkedHashMap<>();
+      int batchSize = 0;
+      PendingAdd next;
+      while (batchSize < maxBatchSize && (next = pending.poll()) != null) {
+        batch.add(next);
+        batchSize += next.groceries.size();
+        for (Grocery grocery : next.groceries) {
+          groceriesPerName
+              .computeIfAbsent(grocery.getName(), name -> new ArrayList<>())
+              .add(grocery);
+        }
+      }
+      Map<String, RuntimeException> failurePerName = new HashMap<>();
+      groceriesPerName.forEach(
+          (name, groceries) -> {
+            try {
+              fridgeService.addGroceries(groceries);
+            } catch (RuntimeException e) {
+              failurePerName.put(name, e);
+            }
+          });
+      for (PendingAdd add : batch) {
+        if (!failurePerName.isEmpty()) {
+          add.failures = new RuntimeException[add.groceries.size()];
+          for (int i = 0; i < add.groceries.size(); i++) {
+            add.failures[i] = failurePerName.get(add.groceries.get(i).getName());
+          }
+        }
+        add.stored = true;
+      }
+    }
+  }
+
+  /**
+   * Groceries of one request falling into one stripe, the fields guarded by the store lock of the
+   * stripe once queued.
+   */
+  private static final class PendingAdd {
+    private final List<Integer> positions = new ArrayList<>();
+    private final List<Grocery> groceries = new ArrayList<>();
+    private boolean stored;
+    /** Failure of every grocery, {@code null} if all were stored. */
+    private RuntimeException[] failures;
+
+    private void add(int position, Grocery grocery) {
+      positions.add(position);
+      groceries.add(grocery);
+    }
+  }
+}
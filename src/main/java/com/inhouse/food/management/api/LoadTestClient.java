@@ -0,0 +1,214 @@
+package com.inhouse.food.management.api;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load generator for a running {@link FoodWasteServer}, reporting throughput and latency
+ * percentiles.
+ *
+ * <p>A number of clients send requests back to back for a fixed time, each waiting for its response
+ * before sending the next request. The requests are a mix of grocery additions, grocery removals,
+ * quantity lookups and possible recipe queries over a small set of grocery names; the share of
+ * writes is configurable. Latencies are recorded per request and reported as percentiles; only
+ * responses with a 2xx or 409 status count as successful, 409 being a removal of more than is
+ * stored.
+ *
+ * <p>Usage, all arguments optional:
+ *
+ * <pre>
+ * java -cp target/classes com.inhouse.food.management.api.LoadTestClient \
+ *     [--url http://localhost:8080] [--clients 64] [--seconds 10] [--writes 0.5]
+ * </pre>
+ */
+public class LoadTestClient {
+  private static final String[] NAMES = {"Milk", "Eggs", "Flour", "Butter", "Cheese", "Apples"};
+
+  private final URI baseUri;
+  private final HttpClient httpClient;
+
+  public LoadTestClient(URI baseUri) {
+    this.baseUri = baseUri;
+    this.httpClient =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+  }
+
+  public static void main(String[] args) throws Exception {
+    URI url = URI.create("http://localhost:" + FoodWasteServer.DEFAULT_PORT);
+    int clients = 64;
+    int seconds = 10;
+    double writes = 0.5;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "--url" -> url = URI.create(args[i + 1]);
+        case "--clients" -> clients = Integer.parseInt(args[i + 1]);
+        case "--seconds" -> seconds = Integer.parseInt(args[i + 1]);
+        case "--writes" -> writes = Double.parseDouble(args[i + 1]);
+        default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+      }
+    }
+    System.out.println(new LoadTestClient(url).run(clients, Duration.ofSeconds(seconds), writes));
+  }
+
+  /**
+   * Sends requests from the given number of concurrent clients for the given time.
+   *
+   * @param clients the number of concurrent clients
+   * @param duration how long to send requests
+   * @param writeShare the share of requests changing the fridge, between 0 and 1
+   * @return the measured throughput and latencies
+   * @throws Exception if a client fails other than by a failed request
+   */
+  public Report run(int clients, Duration duration, double writeShare) throws Exception {
+    long start = System.nanoTime();
+    long end = start + duration.toNanos();
+    ExecutorService executor = FoodWasteServer.newRequestExecutor(clients);
+    List<Future<Recorder>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < clients; i++) {
+        results.add(executor.submit(() -> runClient(end, writeShare)));
+      }
+      Recorder total = new Recorder();
+      for (Future<Recorder> result : results) {
+        total.addAll(result.get());
+      }
+      return total.report(System.nanoTime() - start);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Recorder runClient(long end, double writeShare) {
+    Recorder recorder = new Recorder();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    while (System.nanoTime() < end) {
+      HttpRequest request = nextRequest(random, writeShare);
+      long sent = System.nanoTime();
+      boolean ok;
+      try {
+        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        ok = status / 100 == 2 || status == 409;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (Exception e) {
+        ok = false;
+      }
+      recorder.record(System.nanoTime() - sent, ok);
+    }
+    return recorder;
+  }
+
+  private HttpRequest nextRequest(ThreadLocalRandom random, double writeShare) {
+    String name = NAMES[random.nextInt(NAMES.length)];
+    if (random.nextDouble() < writeShare) {
+      if (random.nextBoolean()) {
+        String grocery =
+            String.format(
+                "{\"name\":\"%s\",\"quantity\":%d,\"unit\":\"pieces\",\"pricePerUnit\":%d,"
+                    + "\"expiryDate\":\"%s\"}",
+                name,
+                1 + random.nextInt(5),
+                1 + random.nextInt(20),
+                LocalDate.now().plusDays(random.nextInt(-3, 30)));
+        return HttpRequest.newBuilder(baseUri.resolve("/groceries"))
+            .POST(HttpRequest.BodyPublishers.ofString(grocery))
+            .build();
+      }
+      return HttpRequest.newBuilder(
+              baseUri.resolve("/groceries/" + name + "?quantity=" + (1 + random.nextInt(3))))
+          .DELETE()
+          .build();
+    }
+    String path = random.nextBoolean() ? "/groceries/" + name : "/recipes/possible";
+    return HttpRequest.newBuilder(baseUri.resolve(path)).GET().build();
+  }
+
+  /** Latencies of the requests of one client. */
+  private static final class Recorder {
+    private long[] latencies = new long[1024];
+    private int count;
+    private long failures;
+
+    private void record(long latency, boolean ok) {
+      if (count == latencies.length) {
+        latencies = Arrays.copyOf(latencies, count * 2);
+      }
+      latencies[count++] = latency;
+      if (!ok) {
+        failures++;
+      }
+    }
+
+    private void addAll(Recorder other) {
+      for (int i = 0; i < other.count; i++) {
+        record(other.latencies[i], true);
+      }
+      failures += other.failures;
+    }
+
+    private Report report(long elapsedNanos) {
+      Arrays.sort(latencies, 0, count);
+      return new Report(
+          count,
+          failures,
+          count / (elapsedNanos / 1e9),
+          percentile(0.50),
+          percentile(0.90),
+          percentile(0.99),
+          percentile(0.999),
+          count == 0 ? 0 : latencies[count - 1] / 1e6);
+    }
+
+    /** Returns the latency in milliseconds no more than the given share of requests exceeded. */
+    private double percentile(double share) {
+      if (count == 0) return 0;
+      int index = (int) Math.ceil(share * count) - 1;
+      return latencies[Math.max(0, index)] / 1e6;
+    }
+  }
+
+  /**
+   * Outcome of a load test, latencies in milliseconds.
+   *
+   * @param requests the number of requests sent
+   * @param failures the number of requests which failed
+   * @param throughput the requests per second
+   * @param p50 the median latency
+   * @param p90 the 90th percentile latency
+   * @param p99 the 99th percentile latency
+   * @param p999 the 99.9th percentile latency
+   * @param max the maximum latency
+   */
+  public record Report(
+      long requests,
+      long failures,
+      double throughput,
+      double p50,
+      double p90,
+      double p99,
+      double p999,
+      double max) {
+
+    @Override
+    public String toString() {
+      return String.format(
+          "requests: %d, failures: %d, throughput: %.0f requests/s%n"
+              + "latency ms: p50 %.3f, p90 %.3f, p99 %.3f, p99.9 %.3f, max %.3f",
+          requests, failures, throughput, p50, p90, p99, p999, max);
+    }
+  }
+}
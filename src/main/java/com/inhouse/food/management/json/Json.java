@@ -0,0 +1,328 @@
+package com.inhouse.food.management.json;
+
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.Recipe;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for the machine-readable interfaces of the application: writing groceries,
+ * recipes and strings, and parsing request documents.
+ *
+ * <p>Parsed documents are represented by plain Java values: objects as {@code Map<String, Object>}
+ * keeping the order of their members, arrays as {@code List<Object>}, numbers as {@link Double},
+ * and strings, booleans and {@code null} as themselves. Documents nesting arrays and objects more
+ * than {@value #MAX_DEPTH} levels deep and numbers out of the range of {@code double} are rejected.
+ *
+ * <p>Groceries are written as {@code {"name":..,"quantity":..,"unit":..,"pricePerUnit":..,
+ * "expiryDate":"YYYY-MM-DD","expired":..}}, recipes as {@code {"id":..,"name":..,
+ * "description":..,"procedure":..,"serves":..,"ingredients":{"name":quantity,..}}}.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * StringBuilder out = new StringBuilder();
+ * Json.appendRecipes(out, recipeService.getRecipes());
+ * Map<?, ?> grocery = (Map<?, ?>) Json.parse("{\"name\":\"Milk\",\"quantity\":2}");
+ * }</pre>
+ */
+public final class Json {
+  /** Maximum number of arrays and objects a parsed value may be nested in. */
+  public static final int MAX_DEPTH = 256;
+
+  private Json() {}
+
+  /**
+   * Parses a JSON document.
+   *
+   * @param text the document
+   * @return the value of the document, see the class description for its representation
+   * @throws IllegalArgumentException if the text is not a single valid JSON value
+   */
+  public static Object parse(String text) {
+    Parser parser = new Parser(text);
+    Object value = parser.value();
+    parser.skipWhitespace();
+    if (parser.position < text.length()) {
+      throw parser.error("Unexpected content");
+    }
+    return value;
+  }
+
+  /**
+   * Returns a string as JSON string literal.
+   *
+   * @param value the string, may be {@code null}
+   * @return the quoted and escaped string, or {@code null}
+   */
+  public static String quote(String value) {
+    StringBuilder out = new StringBuilder();
+    appendString(out, value);
+    return out.toString();
+  }
+
+  /**
+   * Appends a string as JSON string literal.
+   *
+   * @param out the target
+   * @param value the string, may be {@code null}
+   */
+  public static void appendString(StringBuilder out, String value) {
+    if (value == null) {
+      out.append("null");
+      return;
+    }
+    out.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"' -> out.append("\\\"");
+        case '\\' -> out.append("\\\\");
+        case '\n' -> out.append("\\n");
+        case '\r' -> out.append("\\r");
+        case '\t' -> out.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            out.append(String.format("\\u%04x", (int) c));
+          } else {
+            out.append(c);
+          }
+        }
+      }
+    }
+    out.append('"');
+  }
+
+  /**
+   * Appends groceries as JSON array.
+   *
+   * @param out the target
+   * @param groceries the groceries
+   * @param today the day to evaluate expiry against, as epoch day
+   */
+  public static void appendGroceries(StringBuilder out, List<Grocery> groceries, int today) {
+    out.append('[');
+    for (int i = 0; i < groceries.size(); i++) {
+      if (i > 0) {
+        out.append(',');
+      }
+      appendGrocery(out, groceries.get(i), today);
+    }
+    out.append(']');
+  }
+
+  /**
+   * Appends a grocery as JSON object.
+   *
+   * @param out the target
+   * @param grocery the grocery
+   * @param today the day to evaluate expiry against, as epoch day
+   */
+  public static void appendGrocery(StringBuilder out, Grocery grocery, int today) {
+    out.append("{\"name\":");
+    appendString(out, grocery.getName());
+    out.append(",\"quantity\":").append(grocery.getQuantity());
+    out.append(",\"unit\":");
+    appendString(out, grocery.getUnit());
+    out.append(",\"pricePerUnit\":").append(grocery.getPricePerUnit());
+    out.append(",\"expiryDate\":\"").append(grocery.getExpiryDate()).append('"');
+    out.append(",\"expired\":").append(grocery.getExpiryDay() < today).append('}');
+  }
+
+  /**
+   * Appends recipes as JSON array.
+   *
+   * @param out the target
+   * @param recipes the recipes
+   */
+  public static void appendRecipes(StringBuilder out, List<Recipe> recipes) {
+    out.append('[');
+    for (int i = 0; i < recipes.size(); i++) {
+      if (i > 0) {
+        out.append(',');
+      }
+      appendRecipe(out, recipes.get(i));
+    }
+    out.append(']');
+  }
+
+  /**
+   * Appends a recipe as JSON object.
+   *
+   * @param out the target
+   * @param recipe the recipe
+   */
+  public static void appendRecipe(StringBuilder out, Recipe recipe) {
+    out.append("{\"id\":").append(recipe.getId());
+    out.append(",\"name\":");
+    appendString(out, recipe.getName());
+    out.append(",\"description\":");
+    appendString(out, recipe.getDescription());
+    out.append(",\"procedure\":");
+    appendString(out, recipe.getProcedure());
+    out.append(",\"serves\":").append(recipe.getServes());
+    out.append(",\"ingredients\":");
+    Map<String, Double> ingredients = recipe.getIngredients();
+    if (ingredients == null) {
+      out.append("null}");
+      return;
+    }
+    out.append('{');
+    boolean first = true;
+    for (Map.Entry<String, Double> ingredient : ingredients.entrySet()) {
+      if (!first) {
+        out.append(',');
+      }
+      appendString(out, ingredient.getKey());
+      out.append(':').append((double) ingredient.getValue());
+      first = false;
+    }
+    out.append("}}");
+  }
+
+  /** Recursive descent parser over the text of one document. */
+  private static final class Parser {
+    private final String text;
+    private int position;
+    private int depth;
+
+    private Parser(String text) {
+      this.text = text;
+    }
+
+    private Object value() {
+      skipWhitespace();
+      if (position == text.length()) throw error("Unexpected end");
+      char c = text.charAt(position);
+      return switch (c) {
+        case '{' -> object();
+        case '[' -> array();
+        case '"' -> string();
+        case 't' -> literal("true", Boolean.TRUE);
+        case 'f' -> literal("false", Boolean.FALSE);
+        case 'n' -> literal("null", null);
+        default -> number();
+      };
+    }
+
+    private Map<String, Object> object() {
+      Map<String, Object> members = new LinkedHashMap<>();
+      enter();
+      skipWhitespace();
+      if (consume('}')) return leave(members);
+      do {
+        skipWhitespace();
+        if (position == text.length() || text.charAt(position) != '"') {
+          throw error("Expected member name");
+        }
+        String name = string();
+        skipWhitespace();
+        if (!consume(':')) throw error("Expected ':'");
+        members.put(name, value());
+        skipWhitespace();
+      } while (consume(','));
+      if (!consume('}')) throw error("Expected ',' or '}'");
+      return leave(members);
+    }
+
+    private List<Object> array() {
+      List<Object> elements = new ArrayList<>();
+      enter();
+      skipWhitespace();
+      if (consume(']')) return leave(elements);
+      do {
+        elements.add(value());
+        skipWhitespace();
+      } while (consume(','));
+      if (!consume(']')) throw error("Expected ',' or ']'");
+      return leave(elements);
+    }
+
+    /** Steps over the opening bracket of an array or object, bounding the recursion. */
+    private void enter() {
+      if (++depth > MAX_DEPTH) throw error("Nested too deeply");
+      position++;
+    }
+
+    private <T> T leave(T value) {
+      depth--;
+      return value;
+    }
+
+    private String string() {
+      StringBuilder value = new StringBuilder();
+      position++;
+      while (position < text.length()) {
+        char c = text.charAt(position++);
+        if (c == '"') return value.toString();
+        if (c != '\\') {
+          value.append(c);
+          continue;
+        }
+        if (position == text.length()) break;
+        char escaped = text.charAt(position++);
+        switch (escaped) {
+          case '"', '\\', '/' -> value.append(escaped);
+          case 'b' -> value.append('\b');
+          case 'f' -> value.append('\f');
+          case 'n' -> value.append('\n');
+          case 'r' -> value.append('\r');
+          case 't' -> value.append('\t');
+          case 'u' -> {
+            if (position + 4 > text.length()) throw error("Invalid escape");
+            try {
+              value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+            } catch (NumberFormatException e) {
+              throw error("Invalid escape");
+            }
+            position += 4;
+          }
+          default -> throw error("Invalid escape");
+        }
+      }
+      throw error("Unterminated string");
+    }
+
+    private Double number() {
+      int start = position;
+      while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+        position++;
+      }
+      if (start == position) throw error("Unexpected character");
+      Double value;
+      try {
+        value = Double.valueOf(text.substring(start, position));
+      } catch (NumberFormatException e) {
+        throw error("Invalid number");
+      }
+      if (value.isInfinite()) throw error("Number out of range");
+      return value;
+    }
+
+    private Object literal(String literal, Object value) {
+      if (!text.startsWith(literal, position)) throw error("Unexpected character");
+      position += literal.length();
+      return value;
+    }
+
+    private boolean consume(char c) {
+      if (position < text.length() && text.charAt(position) == c) {
+        position++;
+        return true;
+      }
+      return false;
+    }
+
+    private void skipWhitespace() {
+      while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+        position++;
+      }
+    }
+
+    private IllegalArgumentException error(String message) {
+      return new IllegalArgumentException(message + " at position " + position + " of JSON");
+    }
+  }
+}
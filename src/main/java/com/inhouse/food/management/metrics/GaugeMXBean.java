@@ -0,0 +1,12 @@
+package com.inhouse.food.management.metrics;
+
+/** Management interface of a gauge, as exported over JMX. */
+public interface GaugeMXBean {
+
+  /**
+   * Returns the current value of the gauge.
+   *
+   * @return the value
+   */
+  long getValue();
+}
@@ -0,0 +1,160 @@
+package com.inhouse.food.management.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with log-linear buckets: every power of two is split into
+ * {@value #SUB_BUCKETS} buckets of equal width, so a recorded latency is known to within 1/{@value
+ * #SUB_BUCKETS} of its value, from nanoseconds to centuries, in a fixed array of counters.
+ *
+ * <p>Recording increments one counter and never blocks; it is safe from any number of threads.
+ * Percentiles are read from a {@link Snapshot}, which reports the upper bound of the bucket the
+ * percentile falls into, capped at the maximum recorded latency.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * LatencyHistogram histogram = new LatencyHistogram();
+ * long start = System.nanoTime();
+ * doWork();
+ * histogram.record(System.nanoTime() - start);
+ * double p99Millis = histogram.snapshot().percentile(0.99) / 1e6;
+ * }</pre>
+ */
+public class LatencyHistogram {
+  /** Number of buckets every power of two is split into, a power of two. */
+  static final int SUB_BUCKETS = 16;
+
+  private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+  /** Values below {@link #SUB_BUCKETS} have a bucket each, above it every power of two has. */
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos the latency in nanoseconds, negative values count as 0
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucketOf(value));
+    count.increment();
+    sum.add(value);
+    long currentMax = max.get();
+    while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+      currentMax = max.get();
+    }
+  }
+
+  /**
+   * Returns the number of recorded latencies.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Takes a snapshot of the recorded latencies. Latencies recorded while the snapshot is taken may
+   * be missing from some of its figures.
+   *
+   * @return the snapshot
+   */
+  public Snapshot snapshot() {
+    long[] bucketCounts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      bucketCounts[i] = counts.get(i);
+    }
+    return new Snapshot(bucketCounts, count.sum(), sum.sum(), max.get());
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) return (int) value;
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /** Returns the largest value counted in the given bucket. */
+  static long upperBoundOf(int bucket) {
+    if (bucket < SUB_BUCKETS) return bucket;
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    long width = 1L << (exponent - SUB_BUCKET_BITS);
+    // the last bucket ends at Long.MAX_VALUE, lowerBound + width - 1 does not overflow
+    return lowerBound + (width - 1);
+  }
+
+  /** Recorded latencies at one point in time. */
+  public static final class Snapshot {
+    private final long[] bucketCounts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    private Snapshot(long[] bucketCounts, long count, long sum, long max) {
+      this.bucketCounts = bucketCounts;
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the count
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Returns the mean of the recorded latencies.
+     *
+     * @return the mean in nanoseconds, 0 if nothing was recorded
+     */
+    public double getMean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the largest recorded latency.
+     *
+     * @return the maximum in nanoseconds, 0 if nothing was recorded
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Returns the latency the given share of recorded latencies did not exceed.
+     *
+     * @param share the share, between 0 and 1
+     * @return the percentile in nanoseconds, 0 if nothing was recorded
+     */
+    public long percentile(double share) {
+      long total = 0;
+      for (long bucketCount : bucketCounts) {
+        total += bucketCount;
+      }
+      if (total == 0) return 0;
+      long rank = Math.max(1, (long) Math.ceil(share * total));
+      long seen = 0;
+      for (int bucket = 0; bucket < bucketCounts.length; bucket++) {
+        seen += bucketCounts[bucket];
+        if (seen >= rank) {
+          return Math.min(upperBoundOf(bucket), max);
+        }
+      }
+      return max;
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package com.inhouse.food.management.metrics;
+
+import com.inhouse.food.management.model.GroceryStorage;
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.service.FridgeService;
+import com.inhouse.food.management.service.GroceryService;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Fridge recording calls, failures and latencies of its operations in {@link Metrics}, under the
+ * name of the method prefixed with {@code fridge.}, and registering gauges {@code fridge.lots} and
+ * {@code fridge.categories}.
+ *
+ * <p>Both {@code addGroceries} methods are recorded as {@code fridge.addGroceries}, and {@link
+ * #calculateTotalValue(String)} as {@code fridge.calculateTotalValueOfCategory}.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * FridgeService fridgeService =
+ *     new MeteredFridgeService(metrics, new FoodStorage(), new GroceryService());
+ * }</pre>
+ */
+public class MeteredFridgeService extends FridgeService {
+  private final OperationMetrics addGrocery;
+  private final OperationMetrics addGroceries;
+  private final OperationMetrics removeGrocery;
+  private final OperationMetrics getAvailableQuantity;
+  private final OperationMetrics getAllGroceries;
+  private final OperationMetrics snapshotGroceries;
+  private final OperationMetrics getAllGroceriesInExpiryOrder;
+  private final OperationMetrics getExpiredGroceries;
+  private final OperationMetrics getGroceriesExpiringWithin;
+  private final OperationMetrics getGroceriesExpiringBetween;
+  private final OperationMetrics calculateTotalValue;
+  private final OperationMetrics calculateTotalValueOfCategory;
+  private final OperationMetrics calculateTotalValueOfExpiredGroceries;
+
+  /**
+   * Creates a fridge over the given storage.
+   *
+   * @param metrics the metrics to record in
+   * @param foodStorage the storage of the fridge
+   * @param groceryService the grocery service expiry is evaluated with
+   */
+  public MeteredFridgeService(
+      Metrics metrics, GroceryStorage foodStorage, GroceryService groceryService) {
+    super(foodStorage, groceryService);
+    addGrocery = metrics.operation("fridge.addGrocery");
+    addGroceries = metrics.operation("fridge.addGroceries");
+    removeGrocery = metrics.operation("fridge.removeGrocery");
+    getAvailableQuantity = metrics.operation("fridge.getAvailableQuantity");
+    getAllGroceries = metrics.operation("fridge.getAllGroceries");
+    snapshotGroceries = metrics.operation("fridge.snapshotGroceries");
+    getAllGroceriesInExpiryOrder = metrics.operation("fridge.getAllGroceriesInExpiryOrder");
+    getExpiredGroceries = metrics.operation("fridge.getExpiredGroceries");
+    getGroceriesExpiringWithin = metrics.operation("fridge.getGroceriesExpiringWithin");
+    getGroceriesExpiringBetween = metrics.operation("fridge.getGroceriesExpiringBetween");
+    calculateTotalValue = metrics.operation("fridge.calculateTotalValue");
+    calculateTotalValueOfCategory = metrics.operation("fridge.calculateTotalValueOfCategory");
+    calculateTotalValueOfExpiredGroceries =
+        metrics.operation("fridge.calculateTotalValueOfExpiredGroceries");
+    metrics.gauge("fridge.lots", this::getLotCount);
+    metrics.gauge("fridge.categories", this::getCategoryCount);
+  }
+
+  @Override
+  public void addGrocery(Grocery grocery) {
+    addGrocery.time(() -> super.addGrocery(grocery));
+  }
+
+  // addGroceries(Collection) delegates to this method
+  @Override
+  public void addGroceries(Stream<Grocery> groceries) {
+    addGroceries.time(() -> super.addGroceries(groceries));
+  }
+
+  @Override
+  public boolean removeGrocery(String name, double quantity) {
+    return removeGrocery.timeBoolean(() -> super.removeGrocery(name, quantity));
+  }
+
+  @Override
+  public double getAvailableQuantity(String name, boolean includeExpired) {
+    return getAvailableQuantity.timeDouble(() -> super.getAvailableQuantity(name, includeExpired));
+  }
+
+  @Override
+  public List<Grocery> getAllGroceries() {
+    return getAllGroceries.time(super::getAllGroceries);
+  }
+
+  @Override
+  public List<Grocery> snapshotGroceries(Runnable atSnapshot) {
+    return snapshotGroceries.time(() -> super.snapshotGroceries(atSnapshot));
+  }
+
+  @Override
+  public List<Grocery> getAllGroceriesInExpiryOrder() {
+    return getAllGroceriesInExpiryOrder.time(super::getAllGroceriesInExpiryOrder);
+  }
+
+  @Override
+  public List<Grocery> getExpiredGroceries() {
+    return getExpiredGroceries.time(super::getExpiredGroceries);
+  }
+
+  @Override
+  public List<Grocery> getGroceriesExpiringWithin(int days) {
+    return getGroceriesExpiringWithin.time(() -> super.getGroceriesExpiringWithin(days));
+  }
+
+  @Override
+  public List<Grocery> getGroceriesExpiringBetween(LocalDate from, LocalDate to) {
+    return getGroceriesExpiringBetween.time(() -> super.getGroceriesExpiringBetween(from, to));
+  }
+
+  @Override
+  public double calculateTotalValue() {
+    return calculateTotalValue.timeDouble(super::calculateTotalValue);
+  }
+
+  @Override
+  public double calculateTotalValue(String name) {
+    return calculateTotalValueOfCategory.timeDouble(() -> super.calculateTotalValue(name));
+  }
+
+  @Override
+  public double calculateTotalValueOfExpiredGroceries() {
+    return calculateTotalValueOfExpiredGroceries.timeDouble(
+        super::calculateTotalValueOfExpiredGroceries);
+  }
+}
@@ -0,0 +1,67 @@
+package com.inhouse.food.management.metrics;
+
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.service.ExpiryClock;
+import com.inhouse.food.management.service.GroceryService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grocery service counting the calls of its operations, exported by {@link Metrics} as gauges
+ * named after the method, prefixed with {@code grocery.} and suffixed with {@code .calls}. Both
+ * {@code isExpired} methods are counted as {@code grocery.isExpired.calls}.
+ *
+ * <p>The operations take a nanosecond or two and the fridge and the recipe service call them once
+ * per lot they scan, so they are only counted: timing them would cost far more than the calls
+ * themselves. The count of {@code isExpired} shows how many lots the scans visited.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * GroceryService groceryService = new MeteredGroceryService(metrics, ExpiryClock.system());
+ * }</pre>
+ */
+public class MeteredGroceryService extends GroceryService {
+  private final LongAdder today = new LongAdder();
+  private final LongAdder isExpired = new LongAdder();
+  private final LongAdder calculateValue = new LongAdder();
+  private final LongAdder areGroceriesClubbable = new LongAdder();
+
+  /**
+   * Creates a grocery service evaluating expiry against the given clock.
+   *
+   * @param metrics the metrics to register the call counts in
+   * @param expiryClock the clock providing the current day
+   */
+  public MeteredGroceryService(Metrics metrics, ExpiryClock expiryClock) {
+    super(expiryClock);
+    metrics.gauge("grocery.today.calls", today::sum);
+    metrics.gauge("grocery.isExpired.calls", isExpired::sum);
+    metrics.gauge("grocery.calculateValue.calls", calculateValue::sum);
+    metrics.gauge("grocery.areGroceriesClubbable.calls", areGroceriesClubbable::sum);
+  }
+
+  @Override
+  public int today() {
+    today.increment();
+    return super.today();
+  }
+
+  // isExpired(Grocery) delegates to isExpired(Grocery, int), which counts the call
+  @Override
+  public boolean isExpired(Grocery grocery, int today) {
+    isExpired.increment();
+    return super.isExpired(grocery, today);
+  }
+
+  @Override
+  public double calculateValue(Grocery grocery) {
+    calculateValue.increment();
+    return super.calculateValue(grocery);
+  }
+
+  @Override
+  public boolean areGroceriesClubbable(Grocery existingGrocery, Grocery newlyAddedGrocery) {
+    areGroceriesClubbable.increment();
+    return super.areGroceriesClubbable(existingGrocery, newlyAddedGrocery);
+  }
+}
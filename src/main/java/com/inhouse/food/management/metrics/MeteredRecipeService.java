@@ -0,0 +1,124 @@
+package com.inhouse.food.management.metrics;
+
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.Recipe;
+import com.inhouse.food.management.service.GroceryService;
+import com.inhouse.food.management.service.RecipeService;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recipe service recording calls, failures and latencies of its operations in {@link Metrics},
+ * under the name of the method prefixed with {@code recipe.}, and registering the gauge {@code
+ * cookbook.recipes}.
+ *
+ * <p>Allocating ids, counting recipes and starting to track a fridge are not recorded.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * RecipeService recipeService = new MeteredRecipeService(metrics, new GroceryService());
+ * }</pre>
+ */
+public class MeteredRecipeService extends RecipeService {
+  private final OperationMetrics addRecipe;
+  private final OperationMetrics findById;
+  private final OperationMetrics updateById;
+  private final OperationMetrics removeById;
+  private final OperationMetrics updateIngredients;
+  private final OperationMetrics getCookableRecipes;
+  private final OperationMetrics getRecipes;
+  private final OperationMetrics getPossibleRecipes;
+  private final OperationMetrics getPossibleRecipesInParallel;
+  private final OperationMetrics getRecipesByExpiryPressure;
+  private final OperationMetrics getAlmostPossibleRecipes;
+
+  /**
+   * Creates a recipe service with an empty cookbook.
+   *
+   * @param metrics the metrics to record in
+   * @param groceryService the grocery service expiry is evaluated with
+   */
+  public MeteredRecipeService(Metrics metrics, GroceryService groceryService) {
+    super(groceryService);
+    addRecipe = metrics.operation("recipe.addRecipe");
+    findById = metrics.operation("recipe.findById");
+    updateById = metrics.operation("recipe.updateById");
+    removeById = metrics.operation("recipe.removeById");
+    updateIngredients = metrics.operation("recipe.updateIngredients");
+    getCookableRecipes = metrics.operation("recipe.getCookableRecipes");
+    getRecipes = metrics.operation("recipe.getRecipes");
+    getPossibleRecipes = metrics.operation("recipe.getPossibleRecipes");
+    getPossibleRecipesInParallel = metrics.operation("recipe.getPossibleRecipesInParallel");
+    getRecipesByExpiryPressure = metrics.operation("recipe.getRecipesByExpiryPressure");
+    getAlmostPossibleRecipes = metrics.operation("recipe.getAlmostPossibleRecipes");
+    metrics.gauge("cookbook.recipes", this::getRecipeCount);
+  }
+
+  @Override
+  public void addRecipe(Recipe recipe) {
+    addRecipe.time(() -> super.addRecipe(recipe));
+  }
+
+  @Override
+  public Recipe findById(int id) {
+    return findById.time(() -> super.findById(id));
+  }
+
+  @Override
+  public boolean updateById(int id, Recipe recipe) {
+    return updateById.timeBoolean(() -> super.updateById(id, recipe));
+  }
+
+  @Override
+  public Recipe removeById(int id) {
+    return removeById.time(() -> super.removeById(id));
+  }
+
+  @Override
+  public void updateIngredients(Recipe recipe, Map<String, Double> ingredients) {
+    updateIngredients.time(() -> super.updateIngredients(recipe, ingredients));
+  }
+
+  @Override
+  public List<Recipe> getCookableRecipes(String includeExpiredGrocery) {
+    return getCookableRecipes.time(() -> super.getCookableRecipes(includeExpiredGrocery));
+  }
+
+  @Override
+  public List<Recipe> getRecipes() {
+    return getRecipes.time(super::getRecipes);
+  }
+
+  @Override
+  public List<Recipe> getPossibleRecipes(List<Grocery> fridgeItems, String includeExpiredGrocery) {
+    return getPossibleRecipes.time(
+        () -> super.getPossibleRecipes(fridgeItems, includeExpiredGrocery));
+  }
+
+  @Override
+  public List<Recipe> getPossibleRecipesInParallel(
+      List<Grocery> fridgeItems, String includeExpiredGrocery) {
+    return getPossibleRecipesInParallel.time(
+        () -> super.getPossibleRecipesInParallel(fridgeItems, includeExpiredGrocery));
+  }
+
+  @Override
+  public List<RankedRecipe> getRecipesByExpiryPressure(
+      List<Grocery> fridgeItems, int days, int limit) {
+    return getRecipesByExpiryPressure.time(
+        () -> super.getRecipesByExpiryPressure(fridgeItems, days, limit));
+  }
+
+  @Override
+  public List<NearMatch> getAlmostPossibleRecipes(
+      List<Grocery> fridgeItems,
+      String includeExpiredGrocery,
+      int maxMissingIngredients,
+      double maxShortfall) {
+    return getAlmostPossibleRecipes.time(
+        () ->
+            super.getAlmostPossibleRecipes(
+                fridgeItems, includeExpiredGrocery, maxMissingIngredients, maxShortfall));
+  }
+}
@@ -0,0 +1,153 @@
+package com.inhouse.food.management.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the operation metrics and gauges of the application.
+ *
+ * <p>Operations are created on first use by name, gauges are registered with a function reading
+ * their current value. Everything registered can be exported to the platform MBean server, under
+ * the domain {@value #JMX_DOMAIN} with type {@code Operation} or {@code Gauge} and the name it was
+ * registered with, and printed as a text snapshot.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * Metrics metrics = new Metrics();
+ * metrics.gauge("fridge.lots", fridgeService::getLotCount);
+ * metrics.registerMBeans();
+ * metrics.appendSnapshot(System.out);
+ * }</pre>
+ */
+public class Metrics {
+  /** JMX domain the metrics are exported under. */
+  public static final String JMX_DOMAIN = "com.inhouse.food.management";
+
+  private final Map<String, OperationMetrics> operations = new ConcurrentSkipListMap<>();
+  private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+  private final Set<ObjectName> registeredNames = new LinkedHashSet<>();
+  private boolean exported;
+
+  /**
+   * Returns the metrics of the operation with the given name, created on first use.
+   *
+   * @param name the name of the operation
+   * @return the metrics of the operation
+   */
+  public OperationMetrics operation(String name) {
+    OperationMetrics operation = operations.get(name);
+    if (operation != null) return operation;
+    operation = operations.computeIfAbsent(name, OperationMetrics::new);
+    synchronized (this) {
+      if (exported) {
+        registerMBeans();
+      }
+    }
+    return operation;
+  }
+
+  /**
+   * Registers a gauge, replacing any gauge of the same name.
+   *
+   * @param name the name of the gauge
+   * @param value reads the current value of the gauge
+   */
+  public void gauge(String name, LongSupplier value) {
+    gauges.put(name, value);
+    synchronized (this) {
+      if (exported) {
+        registerMBeans();
+      }
+    }
+  }
+
+  /** Reads the current value of the gauge with the given name. */
+  long gaugeValue(String name) {
+    return gauges.get(name).getAsLong();
+  }
+
+  /**
+   * Exports all operations and gauges to the platform MBean server, those registered later as
+   * well.
+   *
+   * @throws IllegalStateException if an MBean cannot be registered, e.g. as its name is taken
+   */
+  public synchronized void registerMBeans() {
+    exported = true;
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      for (OperationMetrics operation : operations.values()) {
+        register(server, "Operation", operation.getName(), operation);
+      }
+      for (String gauge : gauges.keySet()) {
+        // read through the registry, so a replaced gauge is exported with its new function
+        register(server, "Gauge", gauge, (GaugeMXBean) () -> gauges.get(gauge).getAsLong());
+      }
+    } catch (JMException e) {
+      throw new IllegalStateException("Cannot export metrics over JMX", e);
+    }
+  }
+
+  /** Removes all MBeans exported by {@link #registerMBeans()}. */
+  public synchronized void unregisterMBeans() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (ObjectName name : registeredNames) {
+      try {
+        server.unregisterMBean(name);
+      } catch (JMException e) {
+        // already gone
+      }
+    }
+    registeredNames.clear();
+    exported = false;
+  }
+
+  /**
+   * Appends a snapshot of all operations which were called and all gauges as a text table.
+   *
+   * @param out where to append the snapshot
+   * @throws IOException if appending fails
+   */
+  public void appendSnapshot(Appendable out) throws IOException {
+    out.append(
+        String.format(
+            "%-44s %10s %8s %10s %10s %10s %10s%n",
+            "Operation", "Calls", "Failed", "Mean ms", "p50 ms", "p99 ms", "Max ms"));
+    for (OperationMetrics operation : operations.values()) {
+      LatencyHistogram.Snapshot latencies = operation.snapshot();
+      if (latencies.getCount() == 0) continue;
+      out.append(
+          String.format(
+              "%-44s %10d %8d %10.3f %10.3f %10.3f %10.3f%n",
+              operation.getName(),
+              latencies.getCount(),
+              operation.getFailures(),
+              latencies.getMean() / 1e6,
+              latencies.percentile(0.50) / 1e6,
+              latencies.percentile(0.99) / 1e6,
+              latencies.getMax() / 1e6));
+    }
+    out.append(String.format("%n%-44s %10s%n", "Gauge", "Value"));
+    for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+      out.append(String.format("%-44s %10d%n", gauge.getKey(), gauge.getValue().getAsLong()));
+    }
+  }
+
+  private void register(MBeanServer server, String type, String name, Object mbean)
+      throws JMException {
+    ObjectName objectName =
+        new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+    if (registeredNames.contains(objectName)) return;
+    server.registerMBean(mbean, objectName);
+    registeredNames.add(objectName);
+  }
+}
@@ -0,0 +1,171 @@
+package com.inhouse.food.management.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Calls, failures and latencies of one operation. Calls are timed by passing them to one of the
+ * {@code time} methods, which record the latency also if the call throws.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * OperationMetrics addGrocery = metrics.operation("fridge.addGrocery");
+ * addGrocery.time(() -> fridgeService.addGrocery(grocery));
+ * }</pre>
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+  private final String name;
+  private final LatencyHistogram latencies = new LatencyHistogram();
+  private final LongAdder failures = new LongAdder();
+
+  OperationMetrics(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Returns the name of the operation.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Times a call without result.
+   *
+   * @param call the call
+   */
+  public void time(Runnable call) {
+    long start = System.nanoTime();
+    try {
+      call.run();
+    } catch (RuntimeException | Error e) {
+      failures.increment();
+      throw e;
+    } finally {
+      latencies.record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Times a call with a result.
+   *
+   * @param call the call
+   * @param <T> the type of the result
+   * @return the result of the call
+   */
+  public <T> T time(Supplier<T> call) {
+    long start = System.nanoTime();
+    try {
+      return call.get();
+    } catch (RuntimeException | Error e) {
+      failures.increment();
+      throw e;
+    } finally {
+      latencies.record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Times a call with a {@code double} result, without boxing it.
+   *
+   * @param call the call
+   * @return the result of the call
+   */
+  public double timeDouble(DoubleSupplier call) {
+    long start = System.nanoTime();
+    try {
+      return call.getAsDouble();
+    } catch (RuntimeException | Error e) {
+      failures.increment();
+      throw e;
+    } finally {
+      latencies.record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Times a call with an {@code int} result, without boxing it.
+   *
+   * @param call the call
+   * @return the result of the call
+   */
+  public int timeInt(IntSupplier call) {
+    long start = System.nanoTime();
+    try {
+      return call.getAsInt();
+    } catch (RuntimeException | Error e) {
+      failures.increment();
+      throw e;
+    } finally {
+      latencies.record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Times a call with a {@code boolean} result, without boxing it.
+   *
+   * @param call the call
+   * @return the result of the call
+   */
+  public boolean timeBoolean(BooleanSupplier call) {
+    long start = System.nanoTime();
+    try {
+      return call.getAsBoolean();
+    } catch (RuntimeException | Error e) {
+      failures.increment();
+      throw e;
+    } finally {
+      latencies.record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Takes a snapshot of the latencies of the calls.
+   *
+   * @return the snapshot
+   */
+  public LatencyHistogram.Snapshot snapshot() {
+    return latencies.snapshot();
+  }
+
+  @Override
+  public long getCount() {
+    return latencies.getCount();
+  }
+
+  @Override
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  @Override
+  public double getMeanMillis() {
+    return latencies.snapshot().getMean() / 1e6;
+  }
+
+  @Override
+  public double getP50Millis() {
+    return latencies.snapshot().percentile(0.50) / 1e6;
+  }
+
+  @Override
+  public double getP99Millis() {
+    return latencies.snapshot().percentile(0.99) / 1e6;
+  }
+
+  @Override
+  public double getP999Millis() {
+    return latencies.snapshot().percentile(0.999) / 1e6;
+  }
+
+  @Override
+  public double getMaxMillis() {
+    return latencies.snapshot().getMax() / 1e6;
+  }
+}
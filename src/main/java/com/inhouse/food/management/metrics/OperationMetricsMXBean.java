@@ -0,0 +1,54 @@
+package com.inhouse.food.management.metrics;
+
+/** Management interface of the metrics of one operation, as exported over JMX. */
+public interface OperationMetricsMXBean {
+
+  /**
+   * Returns the number of calls, failed ones included.
+   *
+   * @return the number of calls
+   */
+  long getCount();
+
+  /**
+   * Returns the number of calls which threw an exception.
+   *
+   * @return the number of failed calls
+   */
+  long getFailures();
+
+  /**
+   * Returns the mean latency of the calls.
+   *
+   * @return the mean latency in milliseconds
+   */
+  double getMeanMillis();
+
+  /**
+   * Returns the median latency of the calls.
+   *
+   * @return the median latency in milliseconds
+   */
+  double getP50Millis();
+
+  /**
+   * Returns the 99th percentile latency of the calls.
+   *
+   * @return the 99th percentile latency in milliseconds
+   */
+  double getP99Millis();
+
+  /**
+   * Returns the 99.9th percentile latency of the calls.
+   *
+   * @return the 99.9th percentile latency in milliseconds
+   */
+  double getP999Millis();
+
+  /**
+   * Returns the highest latency of the calls.
+   *
+   * @return the maximum latency in milliseconds
+   */
+  double getMaxMillis();
+}
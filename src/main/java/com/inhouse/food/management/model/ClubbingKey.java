@@ -0,0 +1,24 @@
+package com.inhouse.food.management.model;
+
+/**
+ * Identifies the lot a grocery is clubbed into: groceries with equal name, unit, price per unit and
+ * expiry date are stored as one lot with their quantities combined.
+ *
+ * @param name the name of the grocery
+ * @param unit the unit of measurement of the quantity
+ * @param pricePerUnit the price per unit
+ * @param expiryDay the expiry date as epoch day
+ */
+public record ClubbingKey(String name, String unit, double pricePerUnit, int expiryDay) {
+
+  /**
+   * Returns the clubbing key of the given grocery.
+   *
+   * @param grocery the grocery
+   * @return the key of the lot the grocery belongs to
+   */
+  public static ClubbingKey of(Grocery grocery) {
+    return new ClubbingKey(
+        grocery.getName(), grocery.getUnit(), grocery.getPricePerUnit(), grocery.getExpiryDay());
+  }
+}
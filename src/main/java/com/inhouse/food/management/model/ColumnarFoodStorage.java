@@ -0,0 +1,311 @@
+package com.inhouse.food.management.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage of grocery lots in primitive columns, an alternative to {@link FoodStorage} for large
+ * inventories whose value and expiry reports matter more than parallel writers.
+ *
+ * <p>Every lot occupies one slot across parallel arrays: its quantity, its price per unit and its
+ * expiry date as epoch day, next to the lot instance itself, which is handed to the caller and kept
+ * up to date. Value totals and expiry filters run as loops over the primitive columns instead of
+ * maintaining running totals and expiry indexes, so changes only touch the changed slots. Freed
+ * slots keep a quantity of zero and an expiry day no day lies after, so the value loops need no
+ * check for them.
+ *
+ * <p>Lots are clubbed through an index by {@link ClubbingKey}, and the lots of a category are kept
+ * in first-expiry-first-out order in a queue of slots. All methods are synchronized, so a fridge on
+ * this storage applies changes of different categories one after the other.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * FridgeService fridgeService = new FridgeService(new ColumnarFoodStorage(), new GroceryService());
+ * fridgeService.addGrocery(new Grocery("Milk", 2, "liters", 15, LocalDate.now().plusDays(5)));
+ * double expiredValue = fridgeService.calculateTotalValueOfExpiredGroceries();
+ * }</pre>
+ */
+public class ColumnarFoodStorage implements GroceryStorage {
+  private static final int INITIAL_CAPACITY = 64;
+  /** Expiry day of freed slots, never before any day. */
+  private static final int NEVER_EXPIRES = Integer.MAX_VALUE;
+
+  /** Lots of every name in first-expiry-first-out order. */
+  private final Map<String, Category> categories = new HashMap<>();
+
+  /** Slot of every lot by the key groceries are clubbed into it by. */
+  private final Map<ClubbingKey, Integer> slotPerKey = new HashMap<>();
+
+  private double[] quantityColumn = new double[INITIAL_CAPACITY];
+  private double[] priceColumn = new double[INITIAL_CAPACITY];
+  private int[] expiryDayColumn = new int[INITIAL_CAPACITY];
+  private Grocery[] lotColumn = new Grocery[INITIAL_CAPACITY];
+
+  /** Number of slots ever used; slots below it are either occupied or on the free list. */
+  private int usedSlots;
+
+  private int[] freeSlots = new int[INITIAL_CAPACITY];
+  private int freeSlotCount;
+
+  @Override
+  public synchronized StoredLot store(Grocery grocery) {
+    Integer slot = slotPerKey.get(ClubbingKey.of(grocery));
+    if (slot != null) {
+      addToLot(slot, grocery.getQuantity());
+      return new StoredLot(null, 0);
+    }
+    Grocery lot = new Grocery(grocery);
+    return new StoredLot(lot, storeNewLot(lot));
+  }
+
+  @Override
+  public synchronized List<Grocery> storeAll(String name, Collection<Grocery> groceries) {
+    List<Grocery> newLots = new ArrayList<>();
+    for (Grocery grocery : groceries) {
+      Integer slot = slotPerKey.get(ClubbingKey.of(grocery));
+      if (slot != null) {
+        addToLot(slot, grocery.getQuantity());
+      } else {
+        storeNewLot(grocery);
+        newLots.add(grocery);
+      }
+    }
+    return newLots;
+  }
+
+  private void addToLot(int slot, double quantity) {
+    quantityColumn[slot] += quantity;
+    lotColumn[slot].setQuantity(quantityColumn[slot]);
+    categories.get(lotColumn[slot].getName()).quantity += quantity;
+  }
+
+  /**
+   * Stores a lot in a free slot and moves it behind the last lot of its category expiring on or
+   * before it.
+   *
+   * @return the number of lots stepped over, from the end, to find the place of the lot
+   */
+  private int storeNewLot(Grocery lot) {
+    Category category = categories.computeIfAbsent(lot.getName(), name -> new Category());
+    category.quantity += lot.getQuantity();
+    int slot = allocateSlot();
+    slotPerKey.put(ClubbingKey.of(lot), slot);
+    quantityColumn[slot] = lot.getQuantity();
+    priceColumn[slot] = lot.getPricePerUnit();
+    expiryDayColumn[slot] = lot.getExpiryDay();
+    lotColumn[slot] = lot;
+    category.append(slot);
+    int position = category.tail - 1;
+    while (position > category.head
+        && expiryDayColumn[category.slots[position - 1]] > lot.getExpiryDay()) {
+      category.slots[position] = category.slots[position - 1];
+      position--;
+    }
+    category.slots[position] = slot;
+    return category.tail - 1 - position;
+  }
+
+  @Override
+  public synchronized Removal remove(String name, double quantity) {
+    Category category = categories.get(name);
+    if (category == null || category.quantity < quantity) return null;
+
+    double remainingQuantity = quantity;
+    List<Grocery> removedLots = List.of();
+    int lotsVisited = 0;
+    while (category.head < category.tail && remainingQuantity > 0) {
+      int slot = category.slots[category.head];
+      lotsVisited++;
+      if (quantityColumn[slot] <= remainingQuantity) {
+        remainingQuantity -= quantityColumn[slot];
+        category.head++;
+        if (removedLots.isEmpty()) {
+          removedLots = new ArrayList<>();
+        }
+        removedLots.add(lotColumn[slot]);
+        freeSlot(slot);
+      } else {
+        quantityColumn[slot] -= remainingQuantity;
+        lotColumn[slot].setQuantity(quantityColumn[slot]);
+        remainingQuantity = 0;
+      }
+    }
+    if (category.head == category.tail) {
+      categories.remove(name);
+    } else {
+      category.quantity -= quantity;
+    }
+    return new Removal(removedLots, lotsVisited);
+  }
+
+  @Override
+  public synchronized double getQuantityOfCategory(String name) {
+    Category category = categories.get(name);
+    return category == null ? 0 : category.quantity;
+  }
+
+  @Override
+  public synchronized double getFreshQuantityOfCategory(String name, int today) {
+    Category category = categories.get(name);
+    if (category == null) return 0;
+    double quantity = 0;
+    for (int i = category.head; i < category.tail; i++) {
+      int slot = category.slots[i];
+      if (expiryDayColumn[slot] >= today) {
+        quantity += quantityColumn[slot];
+      }
+    }
+    return quantity;
+  }
+
+  @Override
+  public synchronized double getValueOfCategory(String name) {
+    Category category = categories.get(name);
+    if (category == null) return 0;
+    double value = 0;
+    for (int i = category.head; i < category.tail; i++) {
+      int slot = category.slots[i];
+      value += quantityColumn[slot] * priceColumn[slot];
+    }
+    return value;
+  }
+
+  @Override
+  public synchronized double getTotalValue() {
+    double value = 0;
+    for (int slot = 0; slot < usedSlots; slot++) {
+      value += quantityColumn[slot] * priceColumn[slot];
+    }
+    return value;
+  }
+
+  @Override
+  public synchronized double getExpiredValueAsOf(int today) {
+    double value = 0;
+    for (int slot = 0; slot < usedSlots; slot++) {
+      if (expiryDayColumn[slot] < today) {
+        value += quantityColumn[slot] * priceColumn[slot];
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public synchronized int getLotCount() {
+    return usedSlots - freeSlotCount;
+  }
+
+  @Override
+  public synchronized int getLotCountOfCategory(String name) {
+    Category category = categories.get(name);
+    return category == null ? 0 : category.tail - category.head;
+  }
+
+  @Override
+  public synchronized int getCategoryCount() {
+    return categories.size();
+  }
+
+  @Override
+  public synchronized List<Grocery> getLots() {
+    List<Grocery> lots = new ArrayList<>(getLotCount());
+    for (Category category : categories.values()) {
+      for (int i = category.head; i < category.tail; i++) {
+        lots.add(lotColumn[category.slots[i]]);
+      }
+    }
+    return lots;
+  }
+
+  @Override
+  public synchronized List<Grocery> getGroceriesInExpiryOrder() {
+    return lotsExpiringBetween(Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  @Override
+  public synchronized List<Grocery> getGroceriesExpiredAsOf(int today) {
+    return lotsExpiringBetween(Long.MIN_VALUE, today);
+  }
+
+  @Override
+  public synchronized List<Grocery> getGroceriesExpiringWithin(int today, int days) {
+    return lotsExpiringBetween(today, (long) today + days + 1);
+  }
+
+  @Override
+  public synchronized List<Grocery> getGroceriesExpiringBetween(int from, int to) {
+    return lotsExpiringBetween(from, to);
+  }
+
+  /** Returns the lots expiring from {@code from} inclusive to {@code to} exclusive. */
+  private List<Grocery> lotsExpiringBetween(long from, long to) {
+    // sort expiry day and slot packed into one primitive key, slot order breaks ties
+    long[] keys = new long[getLotCount()];
+    int count = 0;
+    for (int slot = 0; slot < usedSlots; slot++) {
+      int expiryDay = expiryDayColumn[slot];
+      if (expiryDay >= from && expiryDay < to && lotColumn[slot] != null) {
+        keys[count++] = ((long) expiryDay << 32) | slot;
+      }
+    }
+    Arrays.sort(keys, 0, count);
+    List<Grocery> lots = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      lots.add(lotColumn[(int) keys[i]]);
+    }
+    return lots;
+  }
+
+  private int allocateSlot() {
+    if (freeSlotCount > 0) {
+      return freeSlots[--freeSlotCount];
+    }
+    if (usedSlots == lotColumn.length) {
+      int capacity = usedSlots * 2;
+      quantityColumn = Arrays.copyOf(quantityColumn, capacity);
+      priceColumn = Arrays.copyOf(priceColumn, capacity);
+      expiryDayColumn = Arrays.copyOf(expiryDayColumn, capacity);
+      lotColumn = Arrays.copyOf(lotColumn, capacity);
+    }
+    return usedSlots++;
+  }
+
+  private void freeSlot(int slot) {
+    slotPerKey.remove(ClubbingKey.of(lotColumn[slot]));
+    quantityColumn[slot] = 0;
+    priceColumn[slot] = 0;
+    expiryDayColumn[slot] = NEVER_EXPIRES;
+    lotColumn[slot] = null;
+    if (freeSlotCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+    }
+    freeSlots[freeSlotCount++] = slot;
+  }
+
+  /** The slots of the lots of one name in consumption order, a queue over an int array. */
+  private static final class Category {
+    private int[] slots = new int[4];
+    private int head;
+    private int tail;
+    private double quantity;
+
+    private void append(int slot) {
+      if (tail == slots.length) {
+        if (head > slots.length / 2) {
+          // most of the array was consumed, move the queue to its start
+          System.arraycopy(slots, head, slots, 0, tail - head);
+          tail -= head;
+          head = 0;
+        } else {
+          slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+      }
+      slots[tail++] = slot;
+    }
+  }
+}
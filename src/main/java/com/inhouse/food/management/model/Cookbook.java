@@ -1,23 +1,231 @@
 package com.inhouse.food.management.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import lombok.Data;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The {@code Cookbook} class represents a collection of recipes. It provides methods to manage the
  * list of recipes.
  *
+ * <p>Besides the recipes the cookbook keeps an inverted index from ingredient name to the recipes
+ * using it, so recipe lookups by ingredient do not have to visit the whole cookbook. Recipes have
+ * to be added through {@link #addRecipe(Recipe)}, removed through {@link #removeRecipe(Recipe)}
+ * and their ingredients changed through {@link #updateIngredients(Recipe, Map)} for the index to
+ * stay consistent.
+ *
+ * <p>Recipes with an id are also indexed by it. Ids are unique within a cookbook and must not be
+ * changed while the recipe is saved.
+ *
+ * <p>Recipes are kept in a map by their position in insertion order, and the index holds sets of
+ * recipes by identity, so adding, removing and re-indexing a recipe takes time proportional to the
+ * number of its ingredients, however many recipes the cookbook holds.
+ *
+ * <p>The recipes and indexes are only handed out as read-only views. A cookbook has no value
+ * equality; cookbooks are compared by identity.
+ *
  * <p>Example usage:
  *
  * <pre>
  * Cookbook cookbook = new Cookbook();
- * cookbook.getRecipes().add(new Recipe("Spaghetti Bolognese"));
+ * cookbook.addRecipe(new Recipe(1, "Pancakes", "Breakfast", "Mix", Map.of("Milk", 1.5), 4));
  * </pre>
  */
-@Data
 public class Cookbook {
 
-  /** A list of recipes contained in the cookbook. */
-  private List<Recipe> recipes = new ArrayList<>();
+  /** The recipes contained in the cookbook by their position, in insertion order. */
+  private final Map<Long, Recipe> recipes = new LinkedHashMap<>();
+
+  /** Inverted index: ingredient name to the recipes requiring it, compared by identity. */
+  private final Map<String, Set<Recipe>> recipesPerIngredient = new HashMap<>();
+
+  /** Recipes by their id. */
+  private final Map<Integer, Recipe> recipesPerId = new HashMap<>();
+
+  /** Recipes without any ingredient, which can always be made, compared by identity. */
+  private final Set<Recipe> recipesWithoutIngredients = newRecipeSet();
+
+  /** Recipes with ingredients by their number of ingredients, compared by identity. */
+  private final Map<Integer, Set<Recipe>> recipesPerIngredientCount = new HashMap<>();
+
+  /** Position of every recipe in insertion order, used to report recipes in cookbook order. */
+  private final Map<Recipe, Long> insertionOrder = new IdentityHashMap<>();
+
+  private long nextInsertion;
+
+  /**
+   * Adds a recipe to the cookbook and indexes it by its id and its ingredients.
+   *
+   * @param recipe the recipe to be added
+   * @throws IllegalArgumentException if the cookbook already has a recipe with the same id
+   */
+  public void addRecipe(Recipe recipe) {
+    if (recipe.getId() != null && recipesPerId.putIfAbsent(recipe.getId(), recipe) != null) {
+      throw new IllegalArgumentException("Recipe id already in use: " + recipe.getId());
+    }
+    long position = nextInsertion++;
+    recipes.put(position, recipe);
+    insertionOrder.put(recipe, position);
+    index(recipe);
+  }
+
+  /**
+   * Returns the recipes of the cookbook.
+   *
+   * @return a read-only view of the recipes in the order they were added
+   */
+  public Collection<Recipe> getRecipes() {
+    return Collections.unmodifiableCollection(recipes.values());
+  }
+
+  /**
+   * Returns the inverted index from ingredient name to the recipes requiring it.
+   *
+   * @return a read-only view of the index; the recipe sets must not be modified either
+   */
+  public Map<String, Set<Recipe>> getRecipesPerIngredient() {
+    return Collections.unmodifiableMap(recipesPerIngredient);
+  }
+
+  /**
+   * Returns the recipes without any ingredient, which can always be made.
+   *
+   * @return a read-only view of the recipes in no particular order
+   */
+  public Set<Recipe> getRecipesWithoutIngredients() {
+    return Collections.unmodifiableSet(recipesWithoutIngredients);
+  }
+
+  /**
+   * Returns the recipe with the given id.
+   *
+   * @param id the id of the recipe
+   * @return the recipe, or {@code null} if the cookbook has no recipe with this id
+   */
+  public Recipe getRecipeById(int id) {
+    return recipesPerId.get(id);
+  }
+
+  /**
+   * Removes a recipe of this cookbook and all its index entries.
+   *
+   * @param recipe the recipe to be removed
+   * @return {@code true} if the recipe was removed, {@code false} if it is not in this cookbook
+   */
+  public boolean removeRecipe(Recipe recipe) {
+    Long position = insertionOrder.remove(recipe);
+    if (position == null) return false;
+    recipes.remove(position);
+    if (recipe.getId() != null) {
+      recipesPerId.remove(recipe.getId(), recipe);
+    }
+    unindex(recipe);
+    return true;
+  }
+
+  /**
+   * Replaces the ingredients of a recipe of this cookbook and re-indexes it.
+   *
+   * @param recipe the recipe to be modified
+   * @param ingredients the new ingredients, ingredient name to required quantity
+   */
+  public void updateIngredients(Recipe recipe, Map<String, Double> ingredients) {
+    unindex(recipe);
+    recipe.setIngredients(ingredients);
+    index(recipe);
+  }
+
+  /**
+   * Returns the recipes requiring the given ingredient.
+   *
+   * @param ingredient the name of the ingredient
+   * @return the recipes using the ingredient in no particular order, never {@code null}
+   */
+  public Collection<Recipe> getRecipesUsing(String ingredient) {
+    Set<Recipe> users = recipesPerIngredient.get(ingredient);
+    return users == null ? Collections.emptySet() : Collections.unmodifiableSet(users);
+  }
+
+  /**
+   * Returns the recipes requiring at least one and at most the given number of ingredients.
+   *
+   * @param maxIngredients the maximum number of ingredients
+   * @return the recipes in no particular order
+   */
+  public List<Recipe> getRecipesWithAtMostIngredients(int maxIngredients) {
+    List<Recipe> found = new ArrayList<>();
+    recipesPerIngredientCount.forEach(
+        (count, countRecipes) -> {
+          if (count <= maxIngredients) {
+            found.addAll(countRecipes);
+          }
+        });
+    return found;
+  }
+
+  /**
+   * Sorts the given recipes of this cookbook in the order they were added.
+   *
+   * @param cookbookRecipes recipes of this cookbook
+   */
+  public void sortInCookbookOrder(List<Recipe> cookbookRecipes) {
+    cookbookRecipes.sort(inCookbookOrder());
+  }
+
+  /**
+   * Returns a comparator ordering recipes of this cookbook in the order they were added.
+   *
+   * @return the comparator
+   */
+  public Comparator<Recipe> inCookbookOrder() {
+    return (first, second) -> Long.compare(positionOf(first), positionOf(second));
+  }
+
+  private long positionOf(Recipe recipe) {
+    return insertionOrder.getOrDefault(recipe, Long.MAX_VALUE);
+  }
+
+  private void index(Recipe recipe) {
+    Map<String, Double> ingredients = recipe.getIngredients();
+    if (ingredients == null || ingredients.isEmpty()) {
+      recipesWithoutIngredients.add(recipe);
+      return;
+    }
+    recipesPerIngredientCount.computeIfAbsent(ingredients.size(), k -> newRecipeSet()).add(recipe);
+    for (String ingredient : ingredients.keySet()) {
+      recipesPerIngredient.computeIfAbsent(ingredient, k -> newRecipeSet()).add(recipe);
+    }
+  }
+
+  private void unindex(Recipe recipe) {
+    Map<String, Double> ingredients = recipe.getIngredients();
+    if (ingredients == null || ingredients.isEmpty()) {
+      recipesWithoutIngredients.remove(recipe);
+      return;
+    }
+    Set<Recipe> sameCount = recipesPerIngredientCount.get(ingredients.size());
+    if (sameCount != null && sameCount.remove(recipe) && sameCount.isEmpty()) {
+      recipesPerIngredientCount.remove(ingredients.size());
+    }
+    for (String ingredient : ingredients.keySet()) {
+      Set<Recipe> users = recipesPerIngredient.get(ingredient);
+      if (users == null) continue;
+      users.remove(recipe);
+      if (users.isEmpty()) {
+        recipesPerIngredient.remove(ingredient);
+      }
+    }
+  }
+
+  /** Recipes are mutable and compare by value, so the index holds them by identity. */
+  private static Set<Recipe> newRecipeSet() {
+    return Collections.newSetFromMap(new IdentityHashMap<>());
+  }
 }
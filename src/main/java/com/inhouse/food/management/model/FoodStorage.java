@@ -1,20 +1,581 @@
 package com.inhouse.food.management.model;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.StampedLock;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 /**
  * Represents a storage/inventory such as refrigerator for various food items. The food items are
  * organized in a map where the key is the name of grocery, and the value is the available items
  * corresponding the grocery name grouped using expiry date.
+ *
+ * <p>Alongside the per-category map the storage keeps a secondary index of every lot keyed by its
+ * expiry date as epoch day, so expiry driven queries only touch the lots they return, and an index
+ * of every lot keyed by its {@link ClubbingKey}, so a grocery finds the lot it is clubbed into in
+ * constant time. It also keeps running value totals (quantity times price per unit) per category,
+ * globally and for expired lots, so that value reports do not need to visit the lots at all.
+ *
+ * <p>The storage may be used by concurrent writers as long as the lots of one category are only
+ * modified by one thread at a time, which {@code FridgeService} guarantees by locking per grocery
+ * name. The index and the value totals are safe for concurrent updates of different categories.
  */
 @Getter
-public class FoodStorage {
+public class FoodStorage implements GroceryStorage {
+  /** Before every day, so no lot counts as expired before the expired value is requested. */
+  private static final int NOT_SETTLED = Integer.MIN_VALUE;
+
   /**
    * A map that holds the groceries. The key is a string representing the type of grocery, and the
-   * value is a list of Grocery objects.
+   * value is a list of Grocery objects, kept in first-expiry-first-out order by {@code
+   * FridgeService}.
+   */
+  private final Map<String, List<Grocery>> groceriesPerCategory = new ConcurrentHashMap<>();
+
+  /**
+   * Secondary index of all stored lots ordered by expiry date, keyed by {@link
+   * Grocery#getExpiryDay()}. Every lot present in {@link #groceriesPerCategory} is present in
+   * exactly one bucket of this map. Buckets are removed together with their running value once
+   * their last lot is removed.
+   */
+  private final NavigableMap<Integer, Set<Grocery>> groceriesPerExpiryDay =
+      new ConcurrentSkipListMap<>();
+
+  /** Index of all stored lots by the key groceries are clubbed into them by. */
+  @Getter(AccessLevel.NONE)
+  private final Map<ClubbingKey, Grocery> lotsPerClubbingKey = new ConcurrentHashMap<>();
+
+  /** Running value of the stored lots per category. */
+  private final Map<String, Double> valuePerCategory = new ConcurrentHashMap<>();
+
+  /** Running quantity of the stored lots per category. */
+  @Getter(AccessLevel.NONE)
+  private final Map<String, Double> quantityPerCategory = new ConcurrentHashMap<>();
+
+  /** Running value of the stored lots per expiry date as epoch day. */
+  @Getter(AccessLevel.NONE)
+  private final NavigableMap<Integer, DoubleAdder> valuePerExpiryDay =
+      new ConcurrentSkipListMap<>();
+
+  /** Running value of all stored lots. */
+  @Getter(AccessLevel.NONE)
+  private final DoubleAdder totalValue = new DoubleAdder();
+
+  /** Running value of the lots expiring before {@link #expiredValueSettledOn}. */
+  @Getter(AccessLevel.NONE)
+  private final DoubleAdder expiredValue = new DoubleAdder();
+
+  /**
+   * Guards {@link #expiredValueSettledOn} and the expiry date buckets: index and value changes
+   * share it, settling the expired value for a new day and removing empty buckets take it
+   * exclusively.
+   */
+  @Getter(AccessLevel.NONE)
+  private final StampedLock expiredValueLock = new StampedLock();
+
+  /**
+   * The epoch day the expired value was last settled for, {@link #NOT_SETTLED} if it was never
+   * requested.
+   */
+  @Getter(AccessLevel.NONE)
+  private int expiredValueSettledOn = NOT_SETTLED;
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>A new lot is inserted behind the lots expiring on or before it, searched from the end of
+   * its category since deliveries mostly expire after the stored lots.
+   */
+  @Override
+  public StoredLot store(Grocery grocery) {
+    // read before clubbing, the caller keeps its instance and may store it again
+    double quantity = grocery.getQuantity();
+    Grocery lot = lotsPerClubbingKey.get(ClubbingKey.of(grocery));
+    Grocery newLot = null;
+    int lotsScanned = 0;
+    if (lot != null) {
+      lot.setQuantity(lot.getQuantity() + quantity);
+    } else {
+      newLot = new Grocery(grocery);
+      lotsScanned =
+          insertInExpiryOrder(
+              groceriesPerCategory.computeIfAbsent(grocery.getName(), name -> new LinkedList<>()),
+              newLot);
+      indexGrocery(newLot);
+    }
+    // clubbed lots share price and expiry date, so the stored grocery values the change
+    recordQuantityChange(grocery, quantity);
+    return new StoredLot(newLot, lotsScanned);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The running totals are updated once for all groceries.
    */
-  private final Map<String, List<Grocery>> groceriesPerCategory = new HashMap<>();
+  @Override
+  public List<Grocery> storeAll(String name, Collection<Grocery> groceries) {
+    List<Grocery> lots = groceriesPerCategory.computeIfAbsent(name, k -> new LinkedList<>());
+    List<Grocery> newLots = new ArrayList<>();
+    LotChanges changes = new LotChanges(name);
+    for (Grocery grocery : groceries) {
+      Grocery lot = lotsPerClubbingKey.get(ClubbingKey.of(grocery));
+      if (lot != null) {
+        lot.setQuantity(lot.getQuantity() + grocery.getQuantity());
+      } else {
+        insertInExpiryOrder(lots, grocery);
+        indexGrocery(grocery);
+        newLots.add(grocery);
+      }
+      changes.changeQuantity(grocery, grocery.getQuantity());
+    }
+    apply(changes);
+    return newLots;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Whether enough is stored is checked against the running quantity of the category before any
+   * lot is touched, and only the consumed lots are visited. The running totals are updated once
+   * for the whole removal.
+   */
+  @Override
+  public Removal remove(String name, double quantity) {
+    List<Grocery> lots = groceriesPerCategory.get(name);
+    if (lots == null || getQuantityOfCategory(name) < quantity) return null;
+
+    double remainingQuantity = quantity;
+    LotChanges changes = new LotChanges(name);
+    List<Grocery> removedLots = List.of();
+    int lotsVisited = 0;
+    Iterator<Grocery> iterator = lots.iterator();
+    while (iterator.hasNext() && remainingQuantity > 0) {
+      Grocery lot = iterator.next();
+      lotsVisited++;
+      double lotQuantity = lot.getQuantity();
+      if (lotQuantity <= remainingQuantity) {
+        remainingQuantity -= lotQuantity;
+        iterator.remove();
+        changes.removeLot(lot);
+        if (removedLots.isEmpty()) {
+          removedLots = new ArrayList<>();
+        }
+        removedLots.add(lot);
+      } else {
+        lot.setQuantity(lotQuantity - remainingQuantity);
+        changes.changeQuantity(lot, -remainingQuantity);
+        remainingQuantity = 0;
+      }
+    }
+    apply(changes);
+
+    if (lots.isEmpty()) {
+      groceriesPerCategory.remove(name);
+      discardCategoryValue(name);
+    }
+    return new Removal(removedLots, lotsVisited);
+  }
+
+  /**
+   * Inserts a new lot behind all lots expiring on or before its expiry date.
+   *
+   * @return the number of lots stepped over, from the end, to find the place of the lot
+   */
+  private static int insertInExpiryOrder(List<Grocery> lots, Grocery lot) {
+    ListIterator<Grocery> iterator = lots.listIterator(lots.size());
+    while (iterator.hasPrevious()) {
+      if (iterator.previous().getExpiryDay() <= lot.getExpiryDay()) {
+        iterator.next();
+        break;
+      }
+    }
+    iterator.add(lot);
+    return lots.size() - 1 - iterator.previousIndex();
+  }
+
+  /**
+   * Registers a newly stored lot in the expiry and clubbing indexes. Must be called whenever a new
+   * lot is added to {@link #groceriesPerCategory}; lots whose quantity is merely increased stay
+   * where they are.
+   *
+   * @param grocery the lot that was added
+   */
+  public void indexGrocery(Grocery grocery) {
+    long stamp = expiredValueLock.readLock();
+    try {
+      groceriesPerExpiryDay
+          .computeIfAbsent(grocery.getExpiryDay(), day -> ConcurrentHashMap.newKeySet())
+          .add(grocery);
+    } finally {
+      expiredValueLock.unlockRead(stamp);
+    }
+    lotsPerClubbingKey.put(ClubbingKey.of(grocery), grocery);
+  }
+
+  /**
+   * Drops a lot from the expiry and clubbing indexes. Must be called whenever a lot is removed from
+   * {@link #groceriesPerCategory} without its value being recorded by {@link #apply(LotChanges)}.
+   *
+   * @param grocery the lot that was removed
+   */
+  public void unindexGrocery(Grocery grocery) {
+    long stamp = expiredValueLock.readLock();
+    try {
+      unindexUnderLock(grocery);
+    } finally {
+      expiredValueLock.unlockRead(stamp);
+    }
+    pruneExpiryDay(grocery.getExpiryDay());
+  }
+
+  private void unindexUnderLock(Grocery grocery) {
+    Set<Grocery> lots = groceriesPerExpiryDay.get(grocery.getExpiryDay());
+    if (lots != null) {
+      lots.remove(grocery);
+    }
+    lotsPerClubbingKey.remove(ClubbingKey.of(grocery), grocery);
+  }
+
+  /**
+   * Removes the bucket of the given expiry day and its running value if no lot is left in it. The
+   * value left behind is rounding residue of the incremental updates, which is discarded from the
+   * expired value as well.
+   */
+  private void pruneExpiryDay(int day) {
+    Set<Grocery> lots = groceriesPerExpiryDay.get(day);
+    if (lots == null || !lots.isEmpty()) return;
+    long stamp = expiredValueLock.writeLock();
+    try {
+      lots = groceriesPerExpiryDay.get(day);
+      if (lots == null || !lots.isEmpty()) return;
+      groceriesPerExpiryDay.remove(day);
+      DoubleAdder residue = valuePerExpiryDay.remove(day);
+      if (residue != null && day < expiredValueSettledOn) {
+        expiredValue.add(-residue.sum());
+      }
+    } finally {
+      expiredValueLock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Returns the stored lot groceries with the given key are clubbed into.
+   *
+   * @param key the clubbing key of a grocery
+   * @return the lot with equal name, unit, price per unit and expiry date, {@code null} if there is
+   *     none
+   */
+  public Grocery getLotClubbedBy(ClubbingKey key) {
+    return lotsPerClubbingKey.get(key);
+  }
+
+  /**
+   * Returns the number of stored lots, read from the clubbing index without visiting the lots.
+   *
+   * @return the number of lots
+   */
+  @Override
+  public int getLotCount() {
+    return lotsPerClubbingKey.size();
+  }
+
+  @Override
+  public int getLotCountOfCategory(String name) {
+    List<Grocery> lots = groceriesPerCategory.get(name);
+    return lots == null ? 0 : lots.size();
+  }
+
+  @Override
+  public int getCategoryCount() {
+    return groceriesPerCategory.size();
+  }
+
+  @Override
+  public List<Grocery> getLots() {
+    List<Grocery> lots = new ArrayList<>();
+    groceriesPerCategory.values().forEach(lots::addAll);
+    return lots;
+  }
+
+  /**
+   * Returns the lots that are expired as of the given day, i.e. whose expiry date lies strictly
+   * before it, earliest expiry first.
+   *
+   * @param today the day to evaluate expiry against, as epoch day
+   * @return the expired lots
+   */
+  @Override
+  public List<Grocery> getGroceriesExpiredAsOf(int today) {
+    return flatten(groceriesPerExpiryDay.headMap(today, false).values());
+  }
+
+  /**
+   * Returns the lots that are not yet expired on the given day but will expire within the given
+   * number of days, earliest expiry first.
+   *
+   * @param today the current day, as epoch day
+   * @param days the number of days to look ahead
+   * @return the lots expiring between {@code today} and {@code today + days}, both inclusive
+   */
+  @Override
+  public List<Grocery> getGroceriesExpiringWithin(int today, int days) {
+    int lastDay = (int) Math.min(Integer.MAX_VALUE, (long) today + days);
+    return flatten(groceriesPerExpiryDay.subMap(today, true, lastDay, true).values());
+  }
+
+  /**
+   * Returns the lots whose expiry date lies in the given range, earliest expiry first.
+   *
+   * @param from the first expiry date, inclusive, as epoch day
+   * @param to the last expiry date, exclusive, as epoch day
+   * @return the lots expiring in the range
+   */
+  @Override
+  public List<Grocery> getGroceriesExpiringBetween(int from, int to) {
+    return flatten(groceriesPerExpiryDay.subMap(from, true, to, false).values());
+  }
+
+  /**
+   * Returns all stored lots ordered by expiry date, earliest first.
+   *
+   * @return all lots in expiry order
+   */
+  @Override
+  public List<Grocery> getGroceriesInExpiryOrder() {
+    return flatten(groceriesPerExpiryDay.values());
+  }
+
+  /**
+   * Updates the running value totals after the quantity of a single lot changed. Must be called for
+   * every quantity change that is not applied through {@link #apply(LotChanges)}, whether a lot was
+   * added, clubbed into or partially consumed.
+   *
+   * @param grocery the lot whose quantity changed
+   * @param quantityDelta the change in quantity, negative for removals
+   */
+  public void recordQuantityChange(Grocery grocery, double quantityDelta) {
+    double valueDelta = quantityDelta * grocery.getPricePerUnit();
+    totalValue.add(valueDelta);
+    valuePerCategory.merge(grocery.getName(), valueDelta, Double::sum);
+    quantityPerCategory.merge(grocery.getName(), quantityDelta, Double::sum);
+    long stamp = expiredValueLock.readLock();
+    try {
+      valuePerExpiryDay
+          .computeIfAbsent(grocery.getExpiryDay(), day -> new DoubleAdder())
+          .add(valueDelta);
+      if (grocery.getExpiryDay() < expiredValueSettledOn) {
+        expiredValue.add(valueDelta);
+      }
+    } finally {
+      expiredValueLock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Applies the changes one operation made to the lots of a category: removed lots are dropped from
+   * the indexes, and every running total is updated once, so readers of the totals see either none
+   * or all of the operation.
+   *
+   * @param changes the changes to apply
+   */
+  public void apply(LotChanges changes) {
+    long stamp = expiredValueLock.readLock();
+    try {
+      for (Grocery lot : changes.removedLots) {
+        unindexUnderLock(lot);
+      }
+      totalValue.add(changes.valueDelta);
+      valuePerCategory.merge(changes.name, changes.valueDelta, Double::sum);
+      quantityPerCategory.merge(changes.name, changes.quantityDelta, Double::sum);
+      double expiredValueDelta = 0;
+      for (Map.Entry<Integer, Double> dayValue : changes.valueDeltaPerExpiryDay.entrySet()) {
+        valuePerExpiryDay
+            .computeIfAbsent(dayValue.getKey(), day -> new DoubleAdder())
+            .add(dayValue.getValue());
+        if (dayValue.getKey() < expiredValueSettledOn) {
+          expiredValueDelta += dayValue.getValue();
+        }
+      }
+      if (expiredValueDelta != 0) {
+        expiredValue.add(expiredValueDelta);
+      }
+    } finally {
+      expiredValueLock.unlockRead(stamp);
+    }
+    for (Grocery lot : changes.removedLots) {
+      pruneExpiryDay(lot.getExpiryDay());
+    }
+  }
+
+  /**
+   * Drops the running value and quantity of a category once its last lot was removed, discarding
+   * rounding residue accumulated by the incremental updates.
+   *
+   * @param name the name of the emptied category
+   */
+  public void discardCategoryValue(String name) {
+    quantityPerCategory.remove(name);
+    Double residue = valuePerCategory.remove(name);
+    if (residue != null) {
+      totalValue.add(-residue);
+    }
+  }
+
+  /**
+   * Returns the running value of all stored lots.
+   *
+   * @return the value of all lots
+   */
+  @Override
+  public double getTotalValue() {
+    return totalValue.sum();
+  }
+
+  /**
+   * Returns the running quantity of the given category.
+   *
+   * @param name the name of the category
+   * @return the quantity of all lots of the category, {@code 0} if there are none
+   */
+  @Override
+  public double getQuantityOfCategory(String name) {
+    return quantityPerCategory.getOrDefault(name, 0.0);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Expired lots lead the first-expiry-first-out order of the category, so only they and the
+   * first fresh lot are visited.
+   */
+  @Override
+  public double getFreshQuantityOfCategory(String name, int today) {
+    List<Grocery> lots = groceriesPerCategory.get(name);
+    if (lots == null) return 0;
+    double expiredQuantity = 0;
+    for (Grocery lot : lots) {
+      if (lot.getExpiryDay() >= today) {
+        return getQuantityOfCategory(name) - expiredQuantity;
+      }
+      expiredQuantity += lot.getQuantity();
+    }
+    return 0;
+  }
+
+  /**
+   * Returns the running value of the given category.
+   *
+   * @param name the name of the category
+   * @return the value of all lots of the category, {@code 0} if there are none
+   */
+  @Override
+  public double getValueOfCategory(String name) {
+    return valuePerCategory.getOrDefault(name, 0.0);
+  }
+
+  /**
+   * Returns the value of the lots expired as of the given day. The expired total is settled
+   * incrementally: when the day rolls forward only the values of the newly expired days are added.
+   *
+   * @param today the day to evaluate expiry against, as epoch day
+   * @return the value of all expired lots
+   */
+  @Override
+  public double getExpiredValueAsOf(int today) {
+    long stamp = expiredValueLock.readLock();
+    try {
+      if (today == expiredValueSettledOn) {
+        return expiredValue.sum();
+      }
+    } finally {
+      expiredValueLock.unlockRead(stamp);
+    }
+    stamp = expiredValueLock.writeLock();
+    try {
+      if (expiredValueSettledOn == NOT_SETTLED || today < expiredValueSettledOn) {
+        expiredValue.reset();
+        expiredValue.add(valueOf(valuePerExpiryDay.headMap(today, false).values()));
+      } else if (today > expiredValueSettledOn) {
+        expiredValue.add(
+            valueOf(valuePerExpiryDay.subMap(expiredValueSettledOn, true, today, false).values()));
+      }
+      expiredValueSettledOn = today;
+      return expiredValue.sum();
+    } finally {
+      expiredValueLock.unlockWrite(stamp);
+    }
+  }
+
+  private static double valueOf(Collection<DoubleAdder> values) {
+    double value = 0;
+    for (DoubleAdder dayValue : values) {
+      value += dayValue.sum();
+    }
+    return value;
+  }
+
+  private static List<Grocery> flatten(Collection<Set<Grocery>> buckets) {
+    List<Grocery> groceries = new ArrayList<>();
+    buckets.forEach(groceries::addAll);
+    return groceries;
+  }
+
+  /**
+   * The quantity changes one operation makes to the lots of a category, collected while the lots
+   * are modified and then applied to the storage at once by {@link #apply(LotChanges)}.
+   */
+  public static final class LotChanges {
+    private final String name;
+    private final List<Grocery> removedLots = new ArrayList<>();
+    private final Map<Integer, Double> valueDeltaPerExpiryDay = new HashMap<>();
+    private double quantityDelta;
+    private double valueDelta;
+
+    /**
+     * Creates an empty set of changes.
+     *
+     * @param name the name of the category the changed lots belong to
+     */
+    public LotChanges(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Records a change in quantity of a lot that stays stored, whether it was added, clubbed into
+     * or partially consumed.
+     *
+     * @param lot the lot whose quantity changed
+     * @param quantityDelta the change in quantity, negative for removals
+     */
+    public void changeQuantity(Grocery lot, double quantityDelta) {
+      double lotValueDelta = quantityDelta * lot.getPricePerUnit();
+      this.quantityDelta += quantityDelta;
+      this.valueDelta += lotValueDelta;
+      valueDeltaPerExpiryDay.merge(lot.getExpiryDay(), lotValueDelta, Double::sum);
+    }
+
+    /**
+     * Records the removal of a lot with its whole quantity. The lot must already be removed from
+     * its category list; it is dropped from the indexes when the changes are applied.
+     *
+     * @param lot the lot that was removed
+     */
+    public void removeLot(Grocery lot) {
+      removedLots.add(lot);
+      changeQuantity(lot, -lot.getQuantity());
+    }
+  }
 }
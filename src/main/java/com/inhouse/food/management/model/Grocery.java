@@ -14,8 +14,8 @@ public class Grocery {
   private String unit; // e.g., "liters", "kg", "pieces"
   /** Price per unit of the grocery item (in NOK). */
   private double pricePerUnit; // in NOK
-  /** Expiry date of the grocery item. */
-  private LocalDate expiryDate;
+  /** Expiry date of the grocery item as epoch day, see {@link LocalDate#toEpochDay()}. */
+  private int expiryDay;
 
   // Constructor
   /**
@@ -26,28 +26,58 @@ public class Grocery {
    * @param unit the unit of measurement for the quantity
    * @param pricePerUnit the price per unit of the grocery item
    * @param expiryDate the expiry date of the grocery item
+   * @throws IllegalArgumentException if the name is empty, the quantity or the price per unit is
+   *     not positive and finite, or the expiry date is missing
    */
   public Grocery(
       String name, double quantity, String unit, double pricePerUnit, LocalDate expiryDate) {
     if (name == null || name.isEmpty())
       throw new IllegalArgumentException("Name cannot be null or empty");
-    if (quantity < 0) throw new IllegalArgumentException("Quantity cannot be negative");
-    if (pricePerUnit < 0) throw new IllegalArgumentException("Price per unit cannot be negative");
+    // NaN fails the comparisons as well
+    if (!(quantity > 0) || Double.isInfinite(quantity))
+      throw new IllegalArgumentException("Quantity must be positive and finite: " + quantity);
+    if (!(pricePerUnit > 0) || Double.isInfinite(pricePerUnit))
+      throw new IllegalArgumentException(
+          "Price per unit must be positive and finite: " + pricePerUnit);
+    if (expiryDate == null) throw new IllegalArgumentException("Expiry date cannot be null");
     this.name = name;
     this.quantity = quantity;
     this.unit = unit;
     this.pricePerUnit = pricePerUnit;
-    this.expiryDate = expiryDate;
+    this.expiryDay = Math.toIntExact(expiryDate.toEpochDay());
+  }
+
+  /**
+   * Constructs a copy of a grocery item.
+   *
+   * @param grocery the grocery item to copy
+   */
+  public Grocery(Grocery grocery) {
+    this.name = grocery.name;
+    this.quantity = grocery.quantity;
+    this.unit = grocery.unit;
+    this.pricePerUnit = grocery.pricePerUnit;
+    this.expiryDay = grocery.expiryDay;
+  }
+
+  /**
+   * Returns the expiry date of the grocery item.
+   *
+   * @return the expiry date
+   */
+  public LocalDate getExpiryDate() {
+    return LocalDate.ofEpochDay(expiryDay);
   }
 
   /**
    * Sets the quantity of the grocery item.
    *
    * @param quantity the quantity to set
-   * @throws IllegalArgumentException if the quantity is negative
+   * @throws IllegalArgumentException if the quantity is negative, infinite or NaN
    */
   public void setQuantity(double quantity) {
-    if (quantity < 0) throw new IllegalArgumentException("Quantity cannot be negative");
+    if (!(quantity >= 0) || Double.isInfinite(quantity))
+      throw new IllegalArgumentException("Quantity cannot be negative or infinite: " + quantity);
     this.quantity = quantity;
   }
 
@@ -59,6 +89,11 @@ public class Grocery {
   @Override
   public String toString() {
     return String.format(
-        "%s: %.2f %s, NOK %.2f/unit, Expiry: %s", name, quantity, unit, pricePerUnit, expiryDate);
+        "%s: %.2f %s, NOK %.2f/unit, Expiry: %s",
+        name,
+        quantity,
+        unit,
+        pricePerUnit,
+        getExpiryDate());
   }
 }
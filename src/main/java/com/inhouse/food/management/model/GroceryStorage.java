@@ -0,0 +1,170 @@
+package com.inhouse.food.management.model;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage of the grocery lots of a fridge, which {@code FridgeService} runs on.
+ *
+ * <p>Groceries with equal name, unit, price per unit and expiry date, i.e. equal {@link
+ * ClubbingKey}, are stored as one lot, and the lots of a category are consumed
+ * first-expiry-first-out. A stored lot is the same instance from the moment it is stored until it
+ * is used up, and its quantity is kept up to date.
+ *
+ * <p>Implementations may rely on the caller for the following: changes of one category are never
+ * made concurrently, the lots of a category are not read while it changes, and the lots of all
+ * categories are not read while any category changes. Totals and counts may be read at any time.
+ */
+public interface GroceryStorage {
+
+  /**
+   * Stores a grocery, clubbing it into the lot with the same clubbing key if there is one. A new
+   * lot is a copy of the grocery, which the caller keeps.
+   *
+   * @param grocery the grocery to store
+   * @return the new lot, or the clubbing outcome
+   */
+  StoredLot store(Grocery grocery);
+
+  /**
+   * Stores groceries of one category, each with a different clubbing key, clubbing every grocery
+   * into the lot with the same clubbing key if there is one. Groceries which start a new lot become
+   * that lot; the caller must not change them afterwards.
+   *
+   * @param name the name of the groceries
+   * @param groceries the groceries to store
+   * @return the groceries which were stored as new lots, in the order given
+   */
+  List<Grocery> storeAll(String name, Collection<Grocery> groceries);
+
+  /**
+   * Removes a quantity of a grocery, consuming its earliest expiring lots first. Nothing is removed
+   * if less than the quantity is stored.
+   *
+   * @param name the name of the grocery
+   * @param quantity the quantity to remove
+   * @return the lots used up by the removal, {@code null} if nothing was removed
+   */
+  Removal remove(String name, double quantity);
+
+  /**
+   * Returns the stored quantity of a category.
+   *
+   * @param name the name of the category
+   * @return the quantity of all lots of the category, {@code 0} if there are none
+   */
+  double getQuantityOfCategory(String name);
+
+  /**
+   * Returns the stored quantity of a category which is not expired on the given day.
+   *
+   * @param name the name of the category
+   * @param today the day to evaluate expiry against, as epoch day
+   * @return the quantity of the lots of the category expiring on or after {@code today}
+   */
+  double getFreshQuantityOfCategory(String name, int today);
+
+  /**
+   * Returns the value of a category.
+   *
+   * @param name the name of the category
+   * @return the value of all lots of the category, {@code 0} if there are none
+   */
+  double getValueOfCategory(String name);
+
+  /**
+   * Returns the value of all stored lots.
+   *
+   * @return the sum of quantity times price per unit over all lots
+   */
+  double getTotalValue();
+
+  /**
+   * Returns the value of the lots expired as of the given day.
+   *
+   * @param today the day to evaluate expiry against, as epoch day
+   * @return the value of the lots expiring before {@code today}
+   */
+  double getExpiredValueAsOf(int today);
+
+  /**
+   * Returns the number of stored lots.
+   *
+   * @return the number of lots
+   */
+  int getLotCount();
+
+  /**
+   * Returns the number of lots of a category.
+   *
+   * @param name the name of the category
+   * @return the number of lots of the category, {@code 0} if there are none
+   */
+  int getLotCountOfCategory(String name);
+
+  /**
+   * Returns the number of categories of which lots are stored.
+   *
+   * @return the number of categories
+   */
+  int getCategoryCount();
+
+  /**
+   * Returns all stored lots, the lots of a category together in first-expiry-first-out order.
+   *
+   * @return the stored lots
+   */
+  List<Grocery> getLots();
+
+  /**
+   * Returns all stored lots ordered by expiry date, earliest first.
+   *
+   * @return the stored lots in expiry order
+   */
+  List<Grocery> getGroceriesInExpiryOrder();
+
+  /**
+   * Returns the lots that are expired as of the given day, i.e. whose expiry date lies strictly
+   * before it, earliest expiry first.
+   *
+   * @param today the day to evaluate expiry against, as epoch day
+   * @return the expired lots
+   */
+  List<Grocery> getGroceriesExpiredAsOf(int today);
+
+  /**
+   * Returns the lots that are not yet expired on the given day but will expire within the given
+   * number of days, earliest expiry first.
+   *
+   * @param today the current day, as epoch day
+   * @param days the number of days to look ahead
+   * @return the lots expiring between {@code today} and {@code today + days}, both inclusive
+   */
+  List<Grocery> getGroceriesExpiringWithin(int today, int days);
+
+  /**
+   * Returns the lots whose expiry date lies in the given range, earliest expiry first.
+   *
+   * @param from the first expiry date, inclusive, as epoch day
+   * @param to the last expiry date, exclusive, as epoch day
+   * @return the lots expiring in the range
+   */
+  List<Grocery> getGroceriesExpiringBetween(int from, int to);
+
+  /**
+   * Outcome of storing a grocery.
+   *
+   * @param newLot the lot stored for the grocery, {@code null} if it was clubbed into a lot
+   * @param lotsScanned the lots stepped over to insert the new lot in expiry order, {@code 0} if
+   *     the grocery was clubbed
+   */
+  record StoredLot(Grocery newLot, int lotsScanned) {}
+
+  /**
+   * Outcome of removing a quantity of a grocery.
+   *
+   * @param removedLots the lots used up and removed, earliest expiry first
+   * @param lotsVisited the lots consumed in whole or in part
+   */
+  record Removal(List<Grocery> removedLots, int lotsVisited) {}
+}
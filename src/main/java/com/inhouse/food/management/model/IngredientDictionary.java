@@ -0,0 +1,108 @@
+package com.inhouse.food.management.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps ingredient names to dense int ids, so recipes can keep their ingredients in primitive arrays
+ * and availability can be looked up in an array indexed by id. Ids are assigned in the order names
+ * are first seen and never reused; all recipes share {@link #shared() one dictionary}, so equal
+ * names always have equal ids.
+ *
+ * <p>Looking up names is lock free; only assigning a new id takes the monitor of the dictionary.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * int milk = IngredientDictionary.shared().idOf("Milk");
+ * double[] available = IngredientDictionary.shared().newQuantityVector();
+ * available[milk] = 1.5;
+ * }</pre>
+ */
+public final class IngredientDictionary {
+  /** Id returned by {@link #find(String)} for names without an id. */
+  public static final int NO_ID = -1;
+
+  private static final IngredientDictionary SHARED = new IngredientDictionary();
+
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+  /** Names indexed by id, replaced when it grows; an id is only published after its name. */
+  private volatile String[] names = new String[64];
+
+  private int size;
+
+  /**
+   * Returns the dictionary shared by all recipes.
+   *
+   * @return the shared dictionary
+   */
+  public static IngredientDictionary shared() {
+    return SHARED;
+  }
+
+  /**
+   * Returns the id of an ingredient, assigning the next free id if the name is new.
+   *
+   * @param name the name of the ingredient
+   * @return the id of the ingredient
+   */
+  public int idOf(String name) {
+    Integer id = ids.get(name);
+    if (id != null) return id;
+    synchronized (this) {
+      id = ids.get(name);
+      if (id != null) return id;
+      if (size == names.length) {
+        names = Arrays.copyOf(names, size * 2);
+      }
+      names[size] = name;
+      ids.put(name, size);
+      return size++;
+    }
+  }
+
+  /**
+   * Returns the id of an ingredient without assigning one.
+   *
+   * @param name the name of the ingredient
+   * @return the id of the ingredient, {@link #NO_ID} if the name has none
+   */
+  public int find(String name) {
+    Integer id = ids.get(name);
+    return id == null ? NO_ID : id;
+  }
+
+  /**
+   * Returns the name of an ingredient.
+   *
+   * @param id the id of the ingredient
+   * @return the name of the ingredient
+   */
+  public String nameOf(int id) {
+    return names[id];
+  }
+
+  /**
+   * Returns the number of assigned ids.
+   *
+   * @return the number of known ingredient names
+   */
+  public int size() {
+    return ids.size();
+  }
+
+  /**
+   * Returns a vector of available quantities indexed by ingredient id, covering all ids assigned so
+   * far. Every ingredient starts out absent, marked by {@code NaN}, which no required quantity is
+   * satisfied by; see {@link Recipe#canBeMadeWith(double[])}.
+   *
+   * @return a new quantity vector
+   */
+  public double[] newQuantityVector() {
+    double[] quantities = new double[size()];
+    Arrays.fill(quantities, Double.NaN);
+    return quantities;
+  }
+}
@@ -1,12 +1,37 @@
 package com.inhouse.food.management.model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 
 /**
  * Represents a recipe with its details like name, description, procedure, ingredients, and the
  * number it serves.
+ *
+ * <p>A recipe may be created without its description and procedure but with a {@link RecipeText}
+ * to read them from, as done when loading a cookbook snapshot. The text is then materialized on the
+ * first call of {@link #getDescription()} or {@link #getProcedure()}.
+ *
+ * <p>The ingredients are kept as ids of the {@link IngredientDictionary#shared() shared ingredient
+ * dictionary}, sorted ascending, and the required quantities in a parallel array. {@link
+ * #getIngredients()} offers them as a read-only map, {@link #canBeMadeWith(double[])} matches them
+ * against available quantities without hashing or boxing. Both arrays are held by one immutable
+ * {@link IngredientArrays} which {@link #setIngredients(Map)} replaces as a whole, so a recipe may
+ * be matched while its ingredients are updated without locking, seeing either the old or the new
+ * ingredients.
  */
 @Data
 public class Recipe {
@@ -21,12 +46,20 @@ public class Recipe {
   /** Detailed procedure to prepare the recipe. */
   private String procedure;
 
-  /** Ingredients required for the recipe. Maps ingredient name to the required quantity. */
-  private Map<String, Double> ingredients; // Ingredient name -> Required quantity
+  /** Ingredients required for the recipe; {@code null} if not given. */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private volatile IngredientArrays ingredientArrays;
 
   /** The number of people the recipe serves. */
   private int serves;
 
+  /** Source of the description and procedure while they are not materialized. */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  private transient RecipeText text;
+
   /**
    * Returns a string representation of the recipe.
    *
@@ -39,69 +72,376 @@ public class Recipe {
       this.name = name;
       this.description = description;
       this.procedure = procedure;
-      this.ingredients = ingredients;
+      setIngredients(ingredients);
       this.serves = serves;
   }
 
-    // Method to calculate the maximum column widths dynamically
-    private static int[] calculateColumnWidths(List<Recipe> recipes) {
-        int idWidth = "ID".length();
-        int nameWidth = "Name".length();
-        int descriptionWidth = "Description".length();
-        int procedureWidth = "Procedure".length();
-        int ingredientsWidth = "Ingredients".length();
-        int servesWidth = "Serves".length();
-
-        for (Recipe recipe : recipes) {
-            idWidth = Math.max(idWidth, String.valueOf(recipe.id).length());
-            nameWidth = Math.max(nameWidth, recipe.name.length());
-            descriptionWidth = Math.max(descriptionWidth, recipe.description.length());
-            procedureWidth = Math.max(procedureWidth, recipe.procedure.length());
-            ingredientsWidth = Math.max(ingredientsWidth, recipe.ingredients.toString().length());
-            servesWidth = Math.max(servesWidth, String.valueOf(recipe.serves).length());
-        }
+  /**
+   * Creates a recipe whose description and procedure are read from the given text on demand, with
+   * ingredients given as ids of the shared dictionary, as done when loading a cookbook snapshot.
+   *
+   * @param id unique id
+   * @param name name of the recipe
+   * @param ingredients the ingredient ids and required quantities, {@code null} if not given
+   * @param serves the number of people the recipe serves
+   * @param text source of the description and procedure
+   */
+  public Recipe(Integer id, String name, IngredientArrays ingredients, int serves,
+                RecipeText text) {
+      this(id, name, null, null, null, serves);
+      this.ingredientArrays = ingredients;
+      this.text = text;
+  }
+
+  /**
+   * Returns the ingredients required for the recipe, a read-only map in the order of their ids. It
+   * keeps showing the ingredients of the call if they are replaced later.
+   *
+   * @return ingredient name to required quantity, {@code null} if no ingredients were given
+   */
+  public Map<String, Double> getIngredients() {
+    IngredientArrays ingredients = ingredientArrays;
+    return ingredients == null ? null : new IngredientsView(ingredients);
+  }
 
-        return new int[]{idWidth, nameWidth, descriptionWidth, procedureWidth, ingredientsWidth, servesWidth};
+  /**
+   * Sets the ingredients required for the recipe. The map is copied.
+   *
+   * @param ingredients ingredient name to required quantity, may be {@code null}
+   */
+  public void setIngredients(Map<String, Double> ingredients) {
+    if (ingredients == null) {
+      ingredientArrays = null;
+      return;
     }
+    IngredientDictionary dictionary = IngredientDictionary.shared();
+    int[] ids = new int[ingredients.size()];
+    double[] quantities = new double[ingredients.size()];
+    int position = 0;
+    for (Map.Entry<String, Double> ingredient : ingredients.entrySet()) {
+      ids[position] = dictionary.idOf(ingredient.getKey());
+      quantities[position++] = ingredient.getValue();
+    }
+    ingredientArrays = IngredientArrays.of(ids, quantities);
+  }
 
-    // Static method to print a list of Recipe objects in a tabular format
-    public static String toTable(List<Recipe> recipes) {
-        if (recipes.isEmpty()) {
-            return "No data available!";
-        }
+  /**
+   * Checks whether the recipe can be made with the given quantities. Recipes without ingredients
+   * can always be made.
+   *
+   * @param availableQuantities available quantity per ingredient id, {@code NaN} for absent
+   *     ingredients; ids beyond its length count as absent
+   * @return {@code true} if every ingredient is available in the required quantity
+   */
+  public boolean canBeMadeWith(double[] availableQuantities) {
+    return firstMissingIngredient(availableQuantities) < 0;
+  }
 
-        // Calculate column widths
-        int[] columnWidths = calculateColumnWidths(recipes);
-        int idWidth = columnWidths[0];
-        int nameWidth = columnWidths[1];
-        int descriptionWidth = columnWidths[2];
-        int procedureWidth = columnWidths[3];
-        int servesWidth = columnWidths[4];
-        int ingredientsWidth = columnWidths[5];
-
-        // Format strings for headers and rows
-        String headerFormat =
-            String.format("%%-%ds | %%-%ds | %%-%ds | %%-%ds | %%-%ds | %%-%ds", idWidth, nameWidth,
-                descriptionWidth, procedureWidth, servesWidth, ingredientsWidth);
-        String rowFormat =
-            String.format("%%-%ds | %%-%ds | %%-%ds | %%-%ds | %%-%ds | %%-%ds", idWidth, nameWidth,
-                descriptionWidth, procedureWidth, servesWidth, ingredientsWidth);
-
-        // Header Row
-        String header = String.format(headerFormat, "ID", "Name", "Description", "Procedure", "Serves", "Ingredients");
-        String separator = "-".repeat(header.length());
-
-        // Data Rows
-        StringBuilder table = new StringBuilder();
-        table.append(header).append("\n").append(separator).append("\n");
-        for (Recipe recipe : recipes) {
-            table.append(String.format(rowFormat, recipe.id, recipe.name, recipe.description, recipe.procedure, recipe.serves, recipe.getIngredients())).append("\n");
-        }
-        return table.toString();
+  /**
+   * Returns the position of the first ingredient, in the order of ascending ids, which is not
+   * available in the required quantity. {@link #canBeMadeWith(double[])} checks the ingredients up
+   * to this one.
+   *
+   * @param availableQuantities available quantity per ingredient id, see {@link
+   *     #canBeMadeWith(double[])}
+   * @return the position of the first missing ingredient, {@code -1} if none is missing
+   */
+  public int firstMissingIngredient(double[] availableQuantities) {
+    IngredientArrays ingredients = ingredientArrays;
+    if (ingredients == null) return -1;
+    for (int i = 0; i < ingredients.ids().length; i++) {
+      if (!ingredients.isAvailable(i, availableQuantities)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Counts the ingredients which are not available in the required quantity. Counting stops once
+   * more than the given number of ingredients are missing.
+   *
+   * @param availableQuantities available quantity per ingredient id, see {@link
+   *     #canBeMadeWith(double[])}
+   * @param limit the number of missing ingredients after which counting may stop
+   * @return the number of missing ingredients, {@code limit + 1} if more than {@code limit} are
+   *     missing
+   */
+  public int countMissingIngredients(double[] availableQuantities, int limit) {
+    IngredientArrays ingredients = ingredientArrays;
+    if (ingredients == null) return 0;
+    int missing = 0;
+    for (int i = 0; i < ingredients.ids().length && missing <= limit; i++) {
+      if (!ingredients.isAvailable(i, availableQuantities)) {
+        missing++;
+      }
+    }
+    return missing;
+  }
+
+  /**
+   * Returns the quantity the recipe is short of for every ingredient which is not available in the
+   * required quantity.
+   *
+   * @param availableQuantities available quantity per ingredient id, see {@link
+   *     #canBeMadeWith(double[])}
+   * @return ingredient name to missing quantity, in the order of ascending ids
+   */
+  public Map<String, Double> getShortfall(double[] availableQuantities) {
+    Map<String, Double> shortfall = new LinkedHashMap<>();
+    IngredientArrays ingredients = ingredientArrays;
+    if (ingredients == null) return shortfall;
+    IngredientDictionary dictionary = IngredientDictionary.shared();
+    for (int i = 0; i < ingredients.ids().length; i++) {
+      if (!ingredients.isAvailable(i, availableQuantities)) {
+        shortfall.put(
+            dictionary.nameOf(ingredients.ids()[i]),
+            ingredients.missingQuantity(i, availableQuantities));
+      }
+    }
+    return shortfall;
+  }
+
+  /**
+   * Returns the share of its required quantity every ingredient is short of, summed over the
+   * ingredients. An ingredient which is not in stock at all adds {@code 1}, even if the recipe
+   * requires none of it.
+   *
+   * @param availableQuantities available quantity per ingredient id, see {@link
+   *     #canBeMadeWith(double[])}
+   * @return the summed share of the missing quantities, {@code 0} if nothing is missing
+   */
+  public double getShortfallShare(double[] availableQuantities) {
+    IngredientArrays ingredients = ingredientArrays;
+    if (ingredients == null) return 0;
+    double share = 0;
+    for (int i = 0; i < ingredients.ids().length; i++) {
+      if (!ingredients.isAvailable(i, availableQuantities)) {
+        double required = ingredients.quantities()[i];
+        // only absent ingredients are missing if none is required, avoid 0 / 0
+        share += required > 0 ? ingredients.missingQuantity(i, availableQuantities) / required : 1;
+      }
     }
+    return share;
+  }
+
+  /**
+   * Returns the number of ingredients of the recipe.
+   *
+   * @return the number of ingredients, {@code 0} if not given
+   */
+  public int getIngredientCount() {
+    IngredientArrays ingredients = ingredientArrays;
+    return ingredients == null ? 0 : ingredients.ids().length;
+  }
+
+  /** Returns the ingredient arrays, or {@code null}; shared, must not be modified. */
+  IngredientArrays ingredientArrays() {
+    return ingredientArrays;
+  }
+
+  /**
+   * Returns the brief description, materializing it if it was not loaded yet.
+   *
+   * @return the description
+   */
+  public String getDescription() {
+    if (description == null && text != null) {
+      description = text.description();
+    }
+    return description;
+  }
+
+  /**
+   * Returns the detailed procedure, materializing it if it was not loaded yet.
+   *
+   * @return the procedure
+   */
+  public String getProcedure() {
+    if (procedure == null && text != null) {
+      procedure = text.procedure();
+    }
+    return procedure;
+  }
+
+  /** Materializes the description and procedure, so they may be read from the fields directly. */
+  public void loadText() {
+    getDescription();
+    getProcedure();
+  }
+
+  /**
+   * Returns the given recipes as a text table, see {@link RecipeTableRenderer}. To stream large
+   * cookbooks or render them in pages, use the renderer directly.
+   *
+   * @param recipes the recipes to render
+   * @return the table, or {@code "No data available!"} if there are no recipes
+   */
+  public static String toTable(List<Recipe> recipes) {
+    if (recipes.isEmpty()) {
+      return "No data available!";
+    }
+    StringBuilder table = new StringBuilder();
+    try {
+      new RecipeTableRenderer().render(recipes, table);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // a StringBuilder does not throw
+    }
+    return table.toString();
+  }
 
   @Override
   public String toString() {
-    return name + ": " + description;
+    return name + ": " + getDescription();
+  }
+
+  /**
+   * Ids of the ingredients of a recipe in the {@link IngredientDictionary#shared() shared
+   * dictionary}, ascending, and the required quantity of every ingredient in a parallel array.
+   * The arrays are adopted, not copied, and must not be modified once passed in.
+   *
+   * @param ids the ingredient ids, ascending
+   * @param quantities the required quantities, parallel to the ids
+   */
+  public record IngredientArrays(int[] ids, double[] quantities) {
+
+    /**
+     * Creates the ingredient arrays of a recipe.
+     *
+     * @throws IllegalArgumentException if the arrays differ in length or the ids are not ascending
+     */
+    public IngredientArrays {
+      if (ids.length != quantities.length || !isAscending(ids)) {
+        throw new IllegalArgumentException("Expected ascending ids with a quantity each");
+      }
+    }
+
+    /**
+     * Creates ingredient arrays from ids in any order, which are only sorted if they are not
+     * ascending already.
+     *
+     * @param ids the ingredient ids, distinct
+     * @param quantities the required quantities, parallel to the ids
+     * @return the ingredient arrays, adopting the given arrays if the ids are ascending
+     * @throws IllegalArgumentException if the arrays differ in length or an id occurs twice
+     */
+    public static IngredientArrays of(int[] ids, double[] quantities) {
+      if (ids.length != quantities.length || isAscending(ids)) {
+        return new IngredientArrays(ids, quantities);
+      }
+      // sort id and position packed into one primitive key
+      long[] keys = new long[ids.length];
+      for (int i = 0; i < ids.length; i++) {
+        keys[i] = (long) ids[i] << 32 | i;
+      }
+      Arrays.sort(keys);
+      int[] sortedIds = new int[keys.length];
+      double[] sortedQuantities = new double[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        sortedIds[i] = (int) (keys[i] >>> 32);
+        sortedQuantities[i] = quantities[(int) keys[i]];
+      }
+      return new IngredientArrays(sortedIds, sortedQuantities);
+    }
+
+    private static boolean isAscending(int[] ids) {
+      for (int i = 1; i < ids.length; i++) {
+        if (ids[i - 1] >= ids[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean isAvailable(int position, double[] availableQuantities) {
+      int id = ids[position];
+      // NaN fails the comparison, so absent ingredients are rejected
+      return id < availableQuantities.length && availableQuantities[id] >= quantities[position];
+    }
+
+    private double missingQuantity(int position, double[] availableQuantities) {
+      int id = ids[position];
+      double available = id < availableQuantities.length ? availableQuantities[id] : Double.NaN;
+      return Double.isNaN(available) ? quantities[position] : quantities[position] - available;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof IngredientArrays other
+          && Arrays.equals(ids, other.ids)
+          && Arrays.equals(quantities, other.quantities);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Arrays.hashCode(ids) + Arrays.hashCode(quantities);
+    }
+
+    @Override
+    public String toString() {
+      return Arrays.toString(ids) + "=" + Arrays.toString(quantities);
+    }
+  }
+
+  /** Read-only map view of one set of ingredient arrays. */
+  private static final class IngredientsView extends AbstractMap<String, Double> {
+    private final int[] ingredientIds;
+    private final double[] ingredientQuantities;
+
+    private IngredientsView(IngredientArrays ingredients) {
+      ingredientIds = ingredients.ids();
+      ingredientQuantities = ingredients.quantities();
+    }
+
+    @Override
+    public Double get(Object name) {
+      if (!(name instanceof String)) return null;
+      int id = IngredientDictionary.shared().find((String) name);
+      int position = id == IngredientDictionary.NO_ID ? -1 : Arrays.binarySearch(ingredientIds, id);
+      return position < 0 ? null : ingredientQuantities[position];
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+      return get(name) != null;
+    }
+
+    @Override
+    public int size() {
+      return ingredientIds.length;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Double>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Map.Entry<String, Double>> iterator() {
+          return new Iterator<>() {
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+              return position < ingredientIds.length;
+            }
+
+            @Override
+            public Map.Entry<String, Double> next() {
+              if (!hasNext()) throw new NoSuchElementException();
+              Map.Entry<String, Double> ingredient =
+                  new SimpleImmutableEntry<>(
+                      IngredientDictionary.shared().nameOf(ingredientIds[position]),
+                      ingredientQuantities[position]);
+              position++;
+              return ingredient;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return ingredientIds.length;
+        }
+      };
+    }
   }
 }
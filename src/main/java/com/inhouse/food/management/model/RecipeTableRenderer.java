@@ -0,0 +1,188 @@
+package com.inhouse.food.management.model;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders recipes as a text table directly to an {@link Appendable}, such as a {@code Writer} or
+ * {@code System.out}, so large cookbooks are streamed instead of built up as one string.
+ *
+ * <p>The table has the columns ID, Name, Description, Procedure, Serves and Ingredients, separated
+ * by {@code " | "} and padded to the widest cell of the rendered rows, which are measured in one
+ * pass before any row is written. Cells longer than the maximum column width are cut off with
+ * {@code "..."}. With a page size the recipes are rendered in pages, each with its own header and
+ * column widths; a single page can be rendered on its own, touching only its recipes.
+ *
+ * <p>Cells are formatted into one reused buffer, so rendering allocates little beyond what the
+ * target keeps.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * RecipeTableRenderer renderer = new RecipeTableRenderer(40, 20);
+ * renderer.renderPage(recipeService.getRecipes(), 0, System.out);
+ * }</pre>
+ */
+public class RecipeTableRenderer {
+  /** Maximum column width and page size which do not limit the table. */
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+
+  private static final String[] HEADERS = {
+    "ID", "Name", "Description", "Procedure", "Serves", "Ingredients"
+  };
+  private static final String COLUMN_SEPARATOR = " | ";
+  private static final String ELLIPSIS = "...";
+
+  private final int maxColumnWidth;
+  private final int pageSize;
+  private final StringBuilder cell = new StringBuilder();
+
+  /** Creates a renderer for one page with unlimited column widths. */
+  public RecipeTableRenderer() {
+    this(UNLIMITED, UNLIMITED);
+  }
+
+  /**
+   * Creates a renderer.
+   *
+   * @param maxColumnWidth the maximum width of a column, at least 4, or {@link #UNLIMITED}
+   * @param pageSize the number of recipes per page, at least 1, or {@link #UNLIMITED}
+   * @throws IllegalArgumentException if the maximum column width or the page size is too small
+   */
+  public RecipeTableRenderer(int maxColumnWidth, int pageSize) {
+    if (maxColumnWidth <= ELLIPSIS.length()) {
+      throw new IllegalArgumentException("Maximum column width must be at least 4");
+    }
+    if (pageSize < 1) throw new IllegalArgumentException("Page size must be at least 1");
+    this.maxColumnWidth = maxColumnWidth;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Returns the number of pages the given recipes are rendered in.
+   *
+   * @param recipes the recipes to render
+   * @return the number of pages, at least 1
+   */
+  public int getPageCount(List<Recipe> recipes) {
+    return Math.max(1, (int) ((recipes.size() + (long) pageSize - 1) / pageSize));
+  }
+
+  /**
+   * Renders all pages of the given recipes, separated by an empty line.
+   *
+   * @param recipes the recipes to render
+   * @param out the target to write the table to
+   * @throws IOException if writing to the target fails
+   */
+  public void render(List<Recipe> recipes, Appendable out) throws IOException {
+    int pages = getPageCount(recipes);
+    for (int page = 0; page < pages; page++) {
+      if (page > 0) {
+        out.append('\n');
+      }
+      renderPage(recipes, page, out);
+    }
+  }
+
+  /**
+   * Renders one page of the given recipes: a header, a separator line and one line per recipe.
+   *
+   * @param recipes the recipes to render
+   * @param page the index of the page, starting at 0
+   * @param out the target to write the table to
+   * @throws IOException if writing to the target fails
+   * @throws IndexOutOfBoundsException if there is no such page
+   */
+  public void renderPage(List<Recipe> recipes, int page, Appendable out) throws IOException {
+    if (page < 0 || page >= getPageCount(recipes)) {
+      throw new IndexOutOfBoundsException("No page " + page + " of " + getPageCount(recipes));
+    }
+    int from = (int) Math.min(recipes.size(), (long) page * pageSize);
+    int to = (int) Math.min(recipes.size(), (long) from + pageSize);
+    List<Recipe> rows = recipes.subList(from, to);
+
+    int[] widths = new int[HEADERS.length];
+    for (int column = 0; column < HEADERS.length; column++) {
+      widths[column] = Math.min(HEADERS[column].length(), maxColumnWidth);
+    }
+    for (Recipe recipe : rows) {
+      for (int column = 0; column < HEADERS.length; column++) {
+        formatCell(recipe, column);
+        widths[column] = Math.max(widths[column], Math.min(cell.length(), maxColumnWidth));
+      }
+    }
+
+    int lineWidth = 0;
+    for (int column = 0; column < HEADERS.length; column++) {
+      if (column > 0) {
+        out.append(COLUMN_SEPARATOR);
+        lineWidth += COLUMN_SEPARATOR.length();
+      }
+      cell.setLength(0);
+      cell.append(HEADERS[column]);
+      writeCell(widths[column], out);
+      lineWidth += widths[column];
+    }
+    out.append('\n');
+    for (int i = 0; i < lineWidth; i++) {
+      out.append('-');
+    }
+    out.append('\n');
+
+    for (Recipe recipe : rows) {
+      for (int column = 0; column < HEADERS.length; column++) {
+        if (column > 0) {
+          out.append(COLUMN_SEPARATOR);
+        }
+        formatCell(recipe, column);
+        writeCell(widths[column], out);
+      }
+      out.append('\n');
+    }
+  }
+
+  /** Formats the text of a cell into {@link #cell}. */
+  private void formatCell(Recipe recipe, int column) {
+    cell.setLength(0);
+    switch (column) {
+      case 0 -> cell.append(recipe.getId());
+      case 1 -> cell.append(recipe.getName());
+      case 2 -> cell.append(recipe.getDescription());
+      case 3 -> cell.append(recipe.getProcedure());
+      case 4 -> cell.append(recipe.getServes());
+      default -> formatIngredients(recipe.getIngredients());
+    }
+  }
+
+  /** Formats ingredients like {@link java.util.AbstractMap#toString()}. */
+  private void formatIngredients(Map<String, Double> ingredients) {
+    if (ingredients == null) {
+      cell.append("null");
+      return;
+    }
+    cell.append('{');
+    boolean first = true;
+    for (Map.Entry<String, Double> ingredient : ingredients.entrySet()) {
+      if (!first) {
+        cell.append(", ");
+      }
+      cell.append(ingredient.getKey()).append('=').append((double) ingredient.getValue());
+      first = false;
+    }
+    cell.append('}');
+  }
+
+  /** Writes {@link #cell} left-aligned in the given width, cut off if it is too long. */
+  private void writeCell(int width, Appendable out) throws IOException {
+    if (cell.length() > width) {
+      out.append(cell, 0, width - ELLIPSIS.length()).append(ELLIPSIS);
+      return;
+    }
+    out.append(cell);
+    for (int i = cell.length(); i < width; i++) {
+      out.append(' ');
+    }
+  }
+}
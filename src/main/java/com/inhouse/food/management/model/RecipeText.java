@@ -0,0 +1,22 @@
+package com.inhouse.food.management.model;
+
+/**
+ * Source of the description and procedure of a {@link Recipe} that were not loaded together with
+ * the rest of the recipe. Implementations have to return the same text on every call.
+ */
+public interface RecipeText {
+
+  /**
+   * Reads the brief description of the recipe.
+   *
+   * @return the description
+   */
+  String description();
+
+  /**
+   * Reads the detailed procedure of the recipe.
+   *
+   * @return the procedure
+   */
+  String procedure();
+}
@@ -0,0 +1,280 @@
+package com.inhouse.food.management.persistence;
+
+import com.inhouse.food.management.model.IngredientDictionary;
+import com.inhouse.food.management.model.Recipe;
+import com.inhouse.food.management.model.RecipeText;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot of a cookbook.
+ *
+ * <p>The file starts with a dense section holding everything recipe matching needs: a dictionary
+ * of all ingredient names followed by the id, name, serves and ingredients of every recipe, the
+ * ingredients given as dictionary index and quantity. It is protected by a checksum and read
+ * eagerly, every dictionary name being looked up in the {@link IngredientDictionary#shared()
+ * shared dictionary} once and the ingredients of a recipe going straight into its ingredient
+ * arrays. The dictionary is written in the order of the shared ids, so a process starting with a
+ * fresh dictionary gets the ingredients of every recipe already sorted. Descriptions and
+ * procedures follow in a separate text section, which is memory-mapped and decoded only when a
+ * recipe's text is first requested, so loading a cookbook touches little more than the dense
+ * section and keeps recipe text off the heap until it is displayed.
+ *
+ * <p>Layout, all numbers big-endian:
+ *
+ * <pre>
+ * header     int magic, int version, int recipe count, int ingredient count,
+ *            long offset of the text section
+ * dictionary per ingredient: string name
+ * recipes    per recipe: int id, int serves, string name, int ingredient count (-1 if none),
+ *            per ingredient: int dictionary index, double quantity;
+ *            int offset in the text section, int description length, int procedure length
+ * checksum   int CRC32 of all preceding bytes
+ * text       UTF-8 descriptions and procedures
+ * </pre>
+ *
+ * <p>Strings are written as an int byte length followed by their UTF-8 bytes, a length of {@code
+ * -1} denotes {@code null}.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * CookbookSnapshot.write(Path.of("cookbook.bin"), recipeService.getRecipes());
+ * CookbookSnapshot.read(Path.of("cookbook.bin")).forEach(recipeService::addRecipe);
+ * }</pre>
+ */
+public final class CookbookSnapshot {
+  private static final int MAGIC = 0x4342534e; // "CBSN"
+  private static final int VERSION = 1;
+  private static final int HEADER = 4 * Integer.BYTES + Long.BYTES;
+  private static final int NO_ID = Integer.MIN_VALUE;
+  private static final int NULL = -1;
+
+  private CookbookSnapshot() {}
+
+  /**
+   * Writes the given recipes to a snapshot file, replacing it atomically if it exists. Recipes
+   * whose text was not loaded yet have it materialized.
+   *
+   * @param file the snapshot file
+   * @param recipes the recipes in cookbook order
+   * @throws IOException if the snapshot cannot be written
+   */
+  public static void write(Path file, List<Recipe> recipes) throws IOException {
+    IngredientDictionary shared = IngredientDictionary.shared();
+    Map<Integer, String> namePerSharedId = new TreeMap<>();
+    for (Recipe recipe : recipes) {
+      if (recipe.getIngredients() != null) {
+        for (String name : recipe.getIngredients().keySet()) {
+          namePerSharedId.putIfAbsent(shared.find(name), name);
+        }
+      }
+    }
+    Map<String, Integer> dictionary = new HashMap<>();
+    for (String name : namePerSharedId.values()) {
+      dictionary.put(name, dictionary.size());
+    }
+
+    ByteArrayOutputStream denseBytes = new ByteArrayOutputStream();
+    ByteArrayOutputStream textBytes = new ByteArrayOutputStream();
+    DataOutputStream dense = new DataOutputStream(denseBytes);
+    for (String name : namePerSharedId.values()) {
+      writeString(dense, name);
+    }
+    for (Recipe recipe : recipes) {
+      dense.writeInt(recipe.getId() != null ? recipe.getId() : NO_ID);
+      dense.writeInt(recipe.getServes());
+      writeString(dense, recipe.getName());
+      Map<String, Double> ingredients = recipe.getIngredients();
+      dense.writeInt(ingredients != null ? ingredients.size() : NULL);
+      if (ingredients != null) {
+        for (Map.Entry<String, Double> ingredient : ingredients.entrySet()) {
+          dense.writeInt(dictionary.get(ingredient.getKey()));
+          dense.writeDouble(ingredient.getValue());
+        }
+      }
+      dense.writeInt(textBytes.size());
+      dense.writeInt(appendText(textBytes, recipe.getDescription()));
+      dense.writeInt(appendText(textBytes, recipe.getProcedure()));
+    }
+
+    ByteBuffer header =
+        ByteBuffer.allocate(HEADER)
+            .putInt(MAGIC)
+            .putInt(VERSION)
+            .putInt(recipes.size())
+            .putInt(dictionary.size())
+            .putLong(HEADER + denseBytes.size() + Integer.BYTES);
+    CRC32 checksum = new CRC32();
+    checksum.update(header.array());
+    byte[] denseSection = denseBytes.toByteArray();
+    checksum.update(denseSection);
+
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel =
+            FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+      out.write(header.array());
+      out.write(denseSection);
+      out.writeInt((int) checksum.getValue());
+      textBytes.writeTo(out);
+      out.flush();
+      channel.force(true);
+    }
+    Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Reads the recipes of a snapshot file. The dense section is read right away, the text of every
+   * recipe is read from the mapped file when it is first requested.
+   *
+   * @param file the snapshot file
+   * @return the recipes in cookbook order
+   * @throws IOException if the snapshot cannot be read or is corrupt
+   */
+  public static List<Recipe> read(Path file) throws IOException {
+    ByteBuffer dense;
+    ByteBuffer text;
+    long textOffset;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER) {
+        throw new IOException("Not a cookbook snapshot: " + file);
+      }
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+      if (header.getInt(0) != MAGIC) {
+        throw new IOException("Not a cookbook snapshot: " + file);
+      }
+      int version = header.getInt(Integer.BYTES);
+      if (version != VERSION) {
+        throw new IOException("Unsupported cookbook snapshot version: " + version);
+      }
+      textOffset = header.getLong(4 * Integer.BYTES);
+      if (textOffset < HEADER + Integer.BYTES || textOffset > size) {
+        throw new IOException("Corrupt cookbook snapshot: " + file);
+      }
+      dense = channel.map(FileChannel.MapMode.READ_ONLY, 0, textOffset);
+      text = channel.map(FileChannel.MapMode.READ_ONLY, textOffset, size - textOffset);
+    }
+
+    int checksumPosition = (int) textOffset - Integer.BYTES;
+    CRC32 checksum = new CRC32();
+    checksum.update(dense.duplicate().limit(checksumPosition));
+    if ((int) checksum.getValue() != dense.getInt(checksumPosition)) {
+      throw new IOException("Corrupt cookbook snapshot: " + file);
+    }
+
+    try {
+      dense.position(2 * Integer.BYTES);
+      int recipeCount = dense.getInt();
+      IngredientDictionary shared = IngredientDictionary.shared();
+      int[] sharedIds = new int[dense.getInt()];
+      dense.position(HEADER);
+      for (int i = 0; i < sharedIds.length; i++) {
+        sharedIds[i] = shared.idOf(readString(dense));
+      }
+      List<Recipe> recipes = new ArrayList<>(recipeCount);
+      for (int i = 0; i < recipeCount; i++) {
+        int id = dense.getInt();
+        int serves = dense.getInt();
+        String name = readString(dense);
+        int ingredientCount = dense.getInt();
+        Recipe.IngredientArrays ingredients = null;
+        if (ingredientCount != NULL) {
+          int[] ids = new int[ingredientCount];
+          double[] quantities = new double[ingredientCount];
+          for (int j = 0; j < ingredientCount; j++) {
+            ids[j] = sharedIds[dense.getInt()];
+            quantities[j] = dense.getDouble();
+          }
+          ingredients = Recipe.IngredientArrays.of(ids, quantities);
+        }
+        MappedText recipeText =
+            new MappedText(text, dense.getInt(), dense.getInt(), dense.getInt());
+        recipes.add(new Recipe(id != NO_ID ? id : null, name, ingredients, serves, recipeText));
+      }
+      return recipes;
+    } catch (BufferUnderflowException
+        | IndexOutOfBoundsException
+        | NegativeArraySizeException
+        | IllegalArgumentException e) {
+      throw new IOException("Corrupt cookbook snapshot: " + file, e);
+    }
+  }
+
+  private static int appendText(ByteArrayOutputStream text, String value) {
+    if (value == null) {
+      return NULL;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    text.writeBytes(bytes);
+    return bytes.length;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(NULL);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length == NULL) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** Text of one recipe in the mapped text section, decoded on every call. */
+  private record MappedText(
+      ByteBuffer text, int offset, int descriptionLength, int procedureLength)
+      implements RecipeText {
+
+    @Override
+    public String description() {
+      return decode(offset, descriptionLength);
+    }
+
+    @Override
+    public String procedure() {
+      return decode(offset + Math.max(descriptionLength, 0), procedureLength);
+    }
+
+    private String decode(int position, int length) {
+      if (length == NULL) {
+        return null;
+      }
+      byte[] bytes = new byte[length];
+      text.get(position, bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+}
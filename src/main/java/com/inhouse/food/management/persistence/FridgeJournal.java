@@ -0,0 +1,570 @@
+package com.inhouse.food.management.persistence;
+
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.service.FridgeService;
+import com.inhouse.food.management.service.InventoryListener;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Durable state of a fridge: an append-only journal of every {@code addGrocery} and {@code
+ * removeGrocery}, periodically compacted into a snapshot.
+ *
+ * <p>The journal is a memory-mapped file segment, so recording a change is a copy into memory
+ * performed on the mutating thread. The mapped pages are flushed to disk by a background thread
+ * at a fixed interval (group commit): changes made within one interval share one {@code fsync}, and
+ * at most one interval of changes is lost on a power failure. {@link #sync()} flushes immediately.
+ * A flush that fails is retried at the next interval and reported to the uncaught exception handler
+ * of the flushing thread. Segments are never flushed while the fridge is locked.
+ *
+ * <p>The directory holds {@code snapshot-<generation>.bin} and {@code journal-<generation>.log}
+ * files. A snapshot of generation {@code g} holds the state at the start of journal {@code g}; on
+ * startup the latest snapshot is loaded and all journals of the same or later generation are
+ * replayed in order. Once a journal grows past half of its segment size a new generation is
+ * started and the state at that point is written to a snapshot in the background, after which
+ * older files are deleted.
+ *
+ * <p>Changes are recorded after the fridge applied them, so recording never throws. A change that
+ * cannot be journaled, because a new generation cannot be started, the record does not fit a
+ * segment or a name is too long for a record, requests a compaction instead: the snapshot it writes
+ * holds the change.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * try (FridgeJournal journal = FridgeJournal.open(Path.of("data"), fridgeService)) {
+ *   fridgeService.addGrocery(grocery); // recorded in the journal
+ * }
+ * }</pre>
+ */
+public class FridgeJournal implements InventoryListener, Closeable {
+  /** Size of a journal segment by default. */
+  public static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+
+  /** Interval between two flushes of the journal to disk by default. */
+  public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 10;
+
+  private static final Pattern FILE_NAME = Pattern.compile("(journal|snapshot)-(\\d+)\\.(log|bin)");
+  private static final int SNAPSHOT_MAGIC = 0x464a534e; // "FJSN"
+  private static final int SNAPSHOT_VERSION = 1;
+  private static final int RECORD_HEADER = 2 * Integer.BYTES; // payload length and checksum
+  private static final byte ADD = 1;
+  private static final byte REMOVE = 2;
+
+  private final Path directory;
+  private final FridgeService fridgeService;
+  private final long segmentSize;
+  private final ScheduledExecutorService syncer;
+  private final ExecutorService compactor;
+
+  private MappedByteBuffer segment;
+  private long generation;
+  private boolean dirty;
+  private boolean compactionRequested;
+  private boolean unrecordedChanges;
+  private boolean closed;
+  private long changesAfterClose;
+  private final LongAdder syncFailures = new LongAdder();
+
+  private FridgeJournal(Path directory, FridgeService fridgeService, long segmentSize) {
+    this.directory = directory;
+    this.fridgeService = fridgeService;
+    this.segmentSize = segmentSize;
+    syncer =
+        Executors.newSingleThreadScheduledExecutor(daemon("fridge-journal-sync", fridgeService));
+    compactor =
+        Executors.newSingleThreadExecutor(daemon("fridge-journal-compaction", fridgeService));
+  }
+
+  /**
+   * Restores the state of the fridge from the given directory and starts recording its changes
+   * there, with the default segment size and sync interval.
+   *
+   * @param directory the directory holding the journal, created if missing
+   * @param fridgeService an empty fridge to restore the state into
+   * @return the open journal
+   * @throws IOException if the journal cannot be read or created
+   */
+  public static FridgeJournal open(Path directory, FridgeService fridgeService) throws IOException {
+    return open(directory, fridgeService, DEFAULT_SEGMENT_SIZE, DEFAULT_SYNC_INTERVAL_MILLIS);
+  }
+
+  /**
+   * Restores the state of the fridge from the given directory and starts recording its changes
+   * there.
+   *
+   * @param directory the directory holding the journal, created if missing
+   * @param fridgeService an empty fridge to restore the state into
+   * @param segmentSize the size of a journal segment in bytes
+   * @param syncIntervalMillis the interval between two flushes of the journal to disk
+   * @return the open journal
+   * @throws IOException if the journal cannot be read or created
+   */
+  public static FridgeJournal open(
+      Path directory, FridgeService fridgeService, long segmentSize, long syncIntervalMillis)
+      throws IOException {
+    if (segmentSize < 1024 || segmentSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Segment size must be between 1 KiB and 2 GiB");
+    }
+    Files.createDirectories(directory);
+    TreeMap<Long, Path> snapshots = new TreeMap<>();
+    TreeMap<Long, Path> journals = new TreeMap<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      files.forEach(
+          file -> {
+            Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+            if (matcher.matches()) {
+              long fileGeneration = Long.parseLong(matcher.group(2));
+              (matcher.group(1).equals("journal") ? journals : snapshots).put(fileGeneration, file);
+            }
+          });
+    }
+
+    long snapshotGeneration = snapshots.isEmpty() ? 0 : snapshots.lastKey();
+    if (!snapshots.isEmpty()) {
+      fridgeService.addGroceries(readSnapshot(snapshots.lastEntry().getValue()));
+    }
+    for (Path journal : journals.tailMap(snapshotGeneration, true).values()) {
+      replay(journal, fridgeService);
+    }
+
+    FridgeJournal fridgeJournal = new FridgeJournal(directory, fridgeService, segmentSize);
+    long lastGeneration = Math.max(snapshotGeneration, journals.isEmpty() ? 0 : journals.lastKey());
+    synchronized (fridgeJournal) {
+      fridgeJournal.generation = lastGeneration;
+      fridgeJournal.startGeneration();
+      if (!journals.isEmpty()) {
+        // fold the replayed journals into a snapshot
+        fridgeJournal.requestCompaction();
+      }
+    }
+    fridgeService.addInventoryListener(fridgeJournal);
+    fridgeJournal.syncer.scheduleWithFixedDelay(
+        fridgeJournal::syncReportingFailures,
+        syncIntervalMillis,
+        syncIntervalMillis,
+        TimeUnit.MILLISECONDS);
+    return fridgeJournal;
+  }
+
+  @Override
+  public void groceryAdded(Grocery grocery) {
+    byte[] name = utf8(grocery.getName());
+    byte[] unit = grocery.getUnit() == null ? null : utf8(grocery.getUnit());
+    if (name == null || (grocery.getUnit() != null && unit == null)) {
+      skip();
+      return;
+    }
+    ByteBuffer record =
+        ByteBuffer.allocate(
+            1 + 2 * Short.BYTES + name.length + (unit == null ? 0 : unit.length) + 3 * Long.BYTES);
+    record.put(ADD);
+    putString(record, name);
+    record.putDouble(grocery.getQuantity());
+    putString(record, unit);
+    record.putDouble(grocery.getPricePerUnit());
+    record.putLong(grocery.getExpiryDay());
+    append(record.flip());
+  }
+
+  @Override
+  public void groceryRemoved(String name, double quantity) {
+    byte[] encodedName = utf8(name);
+    if (encodedName == null) {
+      skip();
+      return;
+    }
+    ByteBuffer record = ByteBuffer.allocate(1 + Short.BYTES + encodedName.length + Double.BYTES);
+    record.put(REMOVE);
+    putString(record, encodedName);
+    record.putDouble(quantity);
+    append(record.flip());
+  }
+
+  /**
+   * Flushes all recorded changes to disk.
+   *
+   * @throws UncheckedIOException if the journal cannot be flushed
+   */
+  public void sync() {
+    MappedByteBuffer toFlush;
+    synchronized (this) {
+      if (!dirty) return;
+      dirty = false;
+      toFlush = segment;
+    }
+    try {
+      toFlush.force();
+    } catch (UncheckedIOException e) {
+      synchronized (this) {
+        dirty |= toFlush == segment;
+      }
+      throw e;
+    }
+  }
+
+  /** Flushes like {@link #sync()} on behalf of the group commit, which must keep running. */
+  private void syncReportingFailures() {
+    try {
+      sync();
+    } catch (UncheckedIOException e) {
+      syncFailures.increment();
+      report(e);
+    }
+  }
+
+  /** Flushes a segment no longer written to, after a new generation was started. */
+  private void forceRetired(MappedByteBuffer retired) {
+    try {
+      retired.force();
+    } catch (UncheckedIOException e) {
+      syncFailures.increment();
+      report(e);
+    }
+  }
+
+  /**
+   * Stops recording, waits for a running compaction and flushes the journal to disk. Changes which
+   * could not be journaled and are not in a snapshot yet are compacted into one first. The journal
+   * stops listening to the fridge; changes which still reach it are ignored and counted by {@link
+   * #getChangesAfterClose()}.
+   *
+   * @throws UncheckedIOException if the journal cannot be flushed or compacted
+   */
+  @Override
+  public void close() {
+    fridgeService.removeInventoryListener(this);
+    compactor.shutdown();
+    try {
+      compactor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    boolean unrecorded;
+    synchronized (this) {
+      closed = true;
+      unrecorded = unrecordedChanges;
+    }
+    if (unrecorded) {
+      // left behind by the last compaction, which could no longer request another
+      compact();
+    }
+    // flushes of retired segments already handed to the syncer still run
+    syncer.shutdown();
+    try {
+      syncer.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    sync();
+  }
+
+  /**
+   * Returns the number of changes which reached the journal after it was closed and were not
+   * recorded.
+   *
+   * @return the number of ignored changes
+   */
+  public synchronized long getChangesAfterClose() {
+    return changesAfterClose;
+  }
+
+  /**
+   * Returns the number of background flushes which failed. A failed flush of the current segment is
+   * retried at the next interval.
+   *
+   * @return the number of failed flushes
+   */
+  public long getSyncFailureCount() {
+    return syncFailures.sum();
+  }
+
+  /** Leaves a change which cannot be journaled to the snapshot of a compaction. */
+  private synchronized void skip() {
+    if (closed) {
+      changesAfterClose++;
+      return;
+    }
+    unrecordedChanges = true;
+    requestCompaction();
+  }
+
+  private synchronized void append(ByteBuffer payload) {
+    if (closed) {
+      changesAfterClose++;
+      return;
+    }
+    int recordSize = RECORD_HEADER + payload.remaining();
+    if (segment.remaining() < recordSize + Integer.BYTES
+        && (!rollOver() || segment.remaining() < recordSize + Integer.BYTES)) {
+      // the change is applied already, the snapshot of the compaction keeps it instead
+      unrecordedChanges = true;
+      requestCompaction();
+      return;
+    }
+    CRC32 checksum = new CRC32();
+    checksum.update(payload.duplicate());
+    int start = segment.position();
+    segment.putInt(start + Integer.BYTES, (int) checksum.getValue());
+    segment.put(start + RECORD_HEADER, payload, payload.position(), payload.remaining());
+    // the length is written last, an incomplete record reads as the end of the journal
+    segment.putInt(start, payload.remaining());
+    segment.position(start + recordSize);
+    dirty = true;
+    if (segment.position() > segmentSize / 2) {
+      requestCompaction();
+    }
+  }
+
+  /**
+   * Starts a new generation because the journal is full before a compaction could start one. Must
+   * be called while holding the monitor. The full segment is flushed by the syncer, since the
+   * changing grocery is still locked.
+   *
+   * @return whether the new generation was started
+   */
+  private boolean rollOver() {
+    MappedByteBuffer retired = segment;
+    try {
+      startGeneration();
+    } catch (IOException | UncheckedIOException e) {
+      return false;
+    }
+    syncer.execute(() -> forceRetired(retired));
+    return true;
+  }
+
+  /** Must be called while holding the monitor. */
+  private void startGeneration() throws IOException {
+    generation++;
+    Path file = directory.resolve(String.format("journal-%019d.log", generation));
+    try (FileChannel channel =
+        FileChannel.open(
+            file,
+            StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+    compactionRequested = false;
+  }
+
+  /** Must be called while holding the monitor. */
+  private void requestCompaction() {
+    if (compactionRequested || compactor.isShutdown()) return;
+    compactionRequested = true;
+    compactor.execute(this::compact);
+  }
+
+  private void compact() {
+    long[] snapshotGeneration = new long[1];
+    boolean[] unrecordedBeforeSnapshot = new boolean[1];
+    MappedByteBuffer[] retired = new MappedByteBuffer[1];
+    boolean compacted = false;
+    try {
+      List<Grocery> lots =
+          fridgeService.snapshotGroceries(
+              () -> {
+                synchronized (this) {
+                  retired[0] = segment;
+                  try {
+                    startGeneration();
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                  snapshotGeneration[0] = generation;
+                  unrecordedBeforeSnapshot[0] = unrecordedChanges;
+                  unrecordedChanges = false;
+                }
+              });
+      // the fridge is unlocked again; the old journal stays needed until the snapshot is written
+      retired[0].force();
+      writeSnapshot(snapshotGeneration[0], lots);
+      deleteBefore(snapshotGeneration[0]);
+      compacted = true;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      // on failure the journals are kept and the next compaction retries
+      synchronized (this) {
+        compactionRequested = false;
+        if (!compacted) {
+          unrecordedChanges |= unrecordedBeforeSnapshot[0];
+        } else if (unrecordedChanges) {
+          // changes that could not be journaled while the snapshot was written
+          requestCompaction();
+        }
+      }
+    }
+  }
+
+  private void writeSnapshot(long snapshotGeneration, List<Grocery> lots) throws IOException {
+    Path file = directory.resolve(String.format("snapshot-%019d.bin", snapshotGeneration));
+    Path temporary = directory.resolve(file.getFileName() + ".tmp");
+    CRC32 checksum = new CRC32();
+    try (FileChannel channel =
+            FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        DataOutputStream out =
+            new DataOutputStream(
+                new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel)),
+                    checksum))) {
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeInt(SNAPSHOT_VERSION);
+      out.writeInt(lots.size());
+      for (Grocery lot : lots) {
+        out.writeUTF(lot.getName());
+        out.writeDouble(lot.getQuantity());
+        out.writeBoolean(lot.getUnit() != null);
+        if (lot.getUnit() != null) {
+          out.writeUTF(lot.getUnit());
+        }
+        out.writeDouble(lot.getPricePerUnit());
+        out.writeLong(lot.getExpiryDay());
+      }
+      out.flush();
+      long value = checksum.getValue();
+      channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, value));
+      channel.force(true);
+    }
+    Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static List<Grocery> readSnapshot(Path file) throws IOException {
+    CRC32 checksum = new CRC32();
+    List<Grocery> lots = new ArrayList<>();
+    try (DataInputStream in =
+        new DataInputStream(
+            new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file)), checksum))) {
+      if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+        throw new IOException("Not a fridge snapshot: " + file);
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String name = in.readUTF();
+        double quantity = in.readDouble();
+        String unit = in.readBoolean() ? in.readUTF() : null;
+        double pricePerUnit = in.readDouble();
+        LocalDate expiryDate = LocalDate.ofEpochDay(in.readLong());
+        lots.add(new Grocery(name, quantity, unit, pricePerUnit, expiryDate));
+      }
+      long expected = checksum.getValue();
+      if (in.readLong() != expected) {
+        throw new IOException("Corrupt fridge snapshot: " + file);
+      }
+    }
+    return lots;
+  }
+
+  private static void replay(Path journal, FridgeService fridgeService) throws IOException {
+    ByteBuffer records;
+    try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+      records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    CRC32 checksum = new CRC32();
+    while (records.remaining() >= RECORD_HEADER) {
+      int length = records.getInt();
+      int expected = records.getInt();
+      if (length <= 0 || length > records.remaining()) break;
+      ByteBuffer payload = records.slice(records.position(), length);
+      checksum.reset();
+      checksum.update(payload.duplicate());
+      if ((int) checksum.getValue() != expected) break; // torn tail of a crashed run
+      records.position(records.position() + length);
+      byte type = payload.get();
+      String name = getString(payload);
+      double quantity = payload.getDouble();
+      if (type == ADD) {
+        String unit = getString(payload);
+        double pricePerUnit = payload.getDouble();
+        LocalDate expiryDate = LocalDate.ofEpochDay(payload.getLong());
+        fridgeService.addGrocery(new Grocery(name, quantity, unit, pricePerUnit, expiryDate));
+      } else if (type == REMOVE) {
+        fridgeService.removeGrocery(name, quantity);
+      } else {
+        throw new IOException("Unknown record type " + type + " in " + journal);
+      }
+    }
+  }
+
+  private void deleteBefore(long snapshotGeneration) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+        if (matcher.matches() && Long.parseLong(matcher.group(2)) < snapshotGeneration) {
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+  }
+
+  /** Returns the UTF-8 encoding of a text, {@code null} if it is too long for a record. */
+  private static byte[] utf8(String value) {
+    byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+    return encoded.length > Short.MAX_VALUE ? null : encoded;
+  }
+
+  private static void report(Throwable failure) {
+    Thread thread = Thread.currentThread();
+    thread.getUncaughtExceptionHandler().uncaughtException(thread, failure);
+  }
+
+  private static void putString(ByteBuffer buffer, byte[] encoded) {
+    if (encoded == null) {
+      buffer.putShort((short) -1);
+    } else {
+      buffer.putShort((short) encoded.length).put(encoded);
+    }
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    short length = buffer.getShort();
+    if (length < 0) return null;
+    byte[] encoded = new byte[length];
+    buffer.get(encoded);
+    return new String(encoded, StandardCharsets.UTF_8);
+  }
+
+  private static ThreadFactory daemon(String name, Object owner) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + Integer.toHexString(owner.hashCode()));
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
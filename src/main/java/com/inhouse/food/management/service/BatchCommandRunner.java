@@ -0,0 +1,376 @@
+package com.inhouse.food.management.service;
+
+import com.inhouse.food.management.json.Json;
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.Recipe;
+import com.inhouse.food.management.model.RecipeTableRenderer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes fridge and cookbook commands read from a script, one command per line, without any
+ * prompts, so the application can be driven by scripts, load tests and replayed traces.
+ *
+ * <p>A command is a comma separated list of fields, the first one naming the operation:
+ *
+ * <pre>
+ * add,name,quantity,unit,pricePerUnit,expiryDate    store a grocery (expiry date as YYYY-MM-DD)
+ * remove,name,quantity                              consume a grocery, earliest expiry first
+ * quantity,name[,all]                               fresh quantity, with all also expired ones
+ * groceries                                         all groceries, earliest expiry first
+ * expired                                           expired groceries
+ * expiring,days                                     groceries expiring within the days
+ * value[,name]                                      value of all groceries or of one grocery
+ * expired-value                                     value of the expired groceries
+ * recipe-add,name,serves,ingredients[,description[,procedure]]
+ *                                                   save a recipe, ingredients as name=quantity
+ *                                                   separated by ';', the procedure may contain
+ *                                                   commas
+ * recipe-remove,id                                  remove a saved recipe
+ * recipe,id                                         a saved recipe
+ * recipes                                           all saved recipes
+ * possible[,all]                                    recipes which can be made with fresh groceries,
+ *                                                   with all also with expired ones
+ * </pre>
+ *
+ * <p>Blank lines and lines starting with {@code #} are skipped. Quantities must be positive. A
+ * command which fails, such as removing more than is stored, is reported and the script continues
+ * with the next line.
+ *
+ * <p>Results are written to an {@link Appendable}, which should be buffered; nothing is flushed
+ * before the script ends. In {@link OutputFormat#TEXT text format} queries print their results as
+ * the console does and successful changes print nothing. In {@link OutputFormat#JSON JSON format}
+ * every command prints exactly one JSON object on its own line, holding the line number, the
+ * operation, whether it succeeded and its result or error. Consecutive {@code add} commands are
+ * handed to the fridge in chunks, the chunk is stored before any other command runs. An {@code add}
+ * is reported once its chunk is stored, and fails with the chunk if storing it fails, so results
+ * are still written in the order of the script.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * BatchCommandRunner runner =
+ *     new BatchCommandRunner(fridgeService, recipeService, BatchCommandRunner.OutputFormat.JSON);
+ * BatchCommandRunner.Result result = runner.run(Files.newBufferedReader(script), out);
+ * }</pre>
+ */
+public class BatchCommandRunner {
+  /** Maximum number of consecutive groceries stored at once. */
+  static final int ADD_CHUNK_SIZE = 10_000;
+
+  /** Format of the results. */
+  public enum OutputFormat {
+    /** Human-readable results. */
+    TEXT,
+    /** One JSON object per command and line. */
+    JSON
+  }
+
+  private final FridgeService fridgeService;
+  private final RecipeService recipeService;
+  private final OutputFormat format;
+  private final List<Grocery> pendingGroceries = new ArrayList<>();
+  private final List<Long> pendingLineNumbers = new ArrayList<>();
+  private final StringBuilder line = new StringBuilder();
+  private long failed;
+
+  public BatchCommandRunner(
+      FridgeService fridgeService, RecipeService recipeService, OutputFormat format) {
+    this.fridgeService = fridgeService;
+    this.recipeService = recipeService;
+    this.format = format;
+  }
+
+  /**
+   * Executes the commands read from the given reader. Neither the reader nor the target is closed.
+   *
+   * @param commands the script, one command per line
+   * @param out the target to write the results to
+   * @return the number of executed and of failed commands
+   * @throws IOException if reading the script or writing the results fails
+   */
+  public Result run(Reader commands, Appendable out) throws IOException {
+    BufferedReader lines =
+        commands instanceof BufferedReader
+            ? (BufferedReader) commands
+            : new BufferedReader(commands);
+    long executed = 0;
+    failed = 0;
+    long lineNumber = 0;
+    String command;
+    while ((command = lines.readLine()) != null) {
+      lineNumber++;
+      if (command.isBlank() || command.stripLeading().startsWith("#")) continue;
+      executed++;
+      execute(lineNumber, command, out);
+    }
+    storePendingGroceries(out);
+    return new Result(executed, failed);
+  }
+
+  private void execute(long lineNumber, String command, Appendable out) throws IOException {
+    String[] fields = command.split(",", -1);
+    String operation = fields[0].trim().toLowerCase();
+    if (operation.equals("add")) {
+      add(lineNumber, fields, out);
+      return;
+    }
+    storePendingGroceries(out);
+    try {
+      line.setLength(0);
+      switch (operation) {
+        case "remove" -> remove(fields);
+        case "quantity" -> quantity(fields);
+        case "groceries" -> groceries(fridgeService.getAllGroceriesInExpiryOrder());
+        case "expired" -> groceries(fridgeService.getExpiredGroceries());
+        case "expiring" -> expiring(fields);
+        case "value" -> value(fields);
+        case "expired-value" -> number(fridgeService.calculateTotalValueOfExpiredGroceries());
+        case "recipe-add" -> addRecipe(command);
+        case "recipe-remove" -> removeRecipe(fields);
+        case "recipe" -> recipe(fields);
+        case "recipes" -> recipes(recipeService.getRecipes());
+        case "possible" -> possibleRecipes(fields);
+        default -> throw new IllegalArgumentException("Unknown command: " + operation);
+      }
+    } catch (IllegalArgumentException | IllegalStateException | DateTimeParseException e) {
+      // NumberFormatException is an IllegalArgumentException
+      reportFailure(lineNumber, operation, e.getMessage(), out);
+      return;
+    }
+    reportSuccess(lineNumber, operation, out);
+  }
+
+  private void reportSuccess(long lineNumber, String operation, Appendable out)
+      throws IOException {
+    if (format == OutputFormat.JSON) {
+      out.append("{\"line\":").append(Long.toString(lineNumber));
+      out.append(",\"command\":").append(Json.quote(operation)).append(",\"ok\":true");
+      if (line.length() > 0) {
+        out.append(",\"result\":").append(line);
+      }
+      out.append("}\n");
+    } else {
+      out.append(line);
+    }
+  }
+
+  private void reportFailure(long lineNumber, String operation, String message, Appendable out)
+      throws IOException {
+    failed++;
+    if (format == OutputFormat.JSON) {
+      out.append("{\"line\":").append(Long.toString(lineNumber));
+      out.append(",\"command\":").append(Json.quote(operation));
+      out.append(",\"ok\":false,\"error\":").append(Json.quote(message)).append("}\n");
+    } else {
+      out.append("line ").append(Long.toString(lineNumber)).append(": ");
+      out.append(operation).append(" failed: ").append(message).append('\n');
+    }
+  }
+
+  private void add(long lineNumber, String[] fields, Appendable out) throws IOException {
+    Grocery grocery;
+    try {
+      expectFields(fields, 6, 6);
+      grocery =
+          new Grocery(
+              fields[1].trim(),
+              parsePositive(fields[2], "quantity"),
+              fields[3].trim(),
+              parsePositive(fields[4], "price"),
+              LocalDate.parse(fields[5].trim()));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      // the adds before are reported first
+      storePendingGroceries(out);
+      reportFailure(lineNumber, "add", e.getMessage(), out);
+      return;
+    }
+    pendingGroceries.add(grocery);
+    pendingLineNumbers.add(lineNumber);
+    if (pendingGroceries.size() == ADD_CHUNK_SIZE) {
+      storePendingGroceries(out);
+    }
+  }
+
+  /** Stores the pending chunk of groceries and reports the {@code add} commands they came from. */
+  private void storePendingGroceries(Appendable out) throws IOException {
+    if (pendingGroceries.isEmpty()) return;
+    String failure = null;
+    try {
+      fridgeService.addGroceries(pendingGroceries);
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      failure = e.getMessage();
+    }
+    line.setLength(0);
+    for (long lineNumber : pendingLineNumbers) {
+      if (failure == null) {
+        reportSuccess(lineNumber, "add", out);
+      } else {
+        reportFailure(lineNumber, "add", failure, out);
+      }
+    }
+    pendingGroceries.clear();
+    pendingLineNumbers.clear();
+  }
+
+  private void remove(String[] fields) {
+    expectFields(fields, 3, 3);
+    String name = fields[1].trim();
+    double quantity = parsePositive(fields[2], "quantity");
+    if (!fridgeService.removeGrocery(name, quantity)) {
+      throw new IllegalStateException("Less than " + quantity + " of " + name + " is stored");
+    }
+  }
+
+  private void quantity(String[] fields) {
+    expectFields(fields, 2, 3);
+    boolean includeExpired = fields.length == 3 && isAll(fields[2]);
+    double quantity = fridgeService.getAvailableQuantity(fields[1].trim(), includeExpired);
+    number(quantity);
+  }
+
+  private void expiring(String[] fields) {
+    expectFields(fields, 2, 2);
+    int days = Integer.parseInt(fields[1].trim());
+    groceries(fridgeService.getGroceriesExpiringWithin(days));
+  }
+
+  private void value(String[] fields) {
+    expectFields(fields, 1, 2);
+    number(
+        fields.length == 2
+            ? fridgeService.calculateTotalValue(fields[1].trim())
+            : fridgeService.calculateTotalValue());
+  }
+
+  private void addRecipe(String command) {
+    String[] fields = command.split(",", 6);
+    expectFields(fields, 4, 6);
+    Map<String, Double> ingredients = new HashMap<>();
+    for (String ingredient : fields[3].split(";")) {
+      if (ingredient.isBlank()) continue;
+      int separator = ingredient.indexOf('=');
+      if (separator < 0) {
+        throw new IllegalArgumentException("Expected name=quantity but found " + ingredient);
+      }
+      ingredients.put(
+          ingredient.substring(0, separator).trim(),
+          parsePositive(ingredient.substring(separator + 1), "quantity"));
+    }
+    int id = recipeService.nextRecipeId();
+    recipeService.addRecipe(
+        new Recipe(
+            id,
+            fields[1].trim(),
+            fields.length > 4 ? fields[4].trim() : "",
+            fields.length > 5 ? fields[5].trim() : "",
+            ingredients,
+            Integer.parseInt(fields[2].trim())));
+    if (format == OutputFormat.JSON) {
+      line.append(id);
+    } else {
+      line.append("Recipe ").append(id).append(" added\n");
+    }
+  }
+
+  private void removeRecipe(String[] fields) {
+    expectFields(fields, 2, 2);
+    int id = Integer.parseInt(fields[1].trim());
+    if (recipeService.removeById(id) == null) {
+      throw new IllegalStateException("No recipe with id " + id);
+    }
+  }
+
+  private void recipe(String[] fields) {
+    expectFields(fields, 2, 2);
+    int id = Integer.parseInt(fields[1].trim());
+    Recipe recipe = recipeService.findById(id);
+    if (recipe == null) {
+      throw new IllegalStateException("No recipe with id " + id);
+    }
+    recipes(List.of(recipe));
+  }
+
+  private void possibleRecipes(String[] fields) {
+    expectFields(fields, 1, 2);
+    boolean includeExpired = fields.length == 2 && isAll(fields[1]);
+    List<Grocery> groceries = fridgeService.getAllGroceries();
+    recipes(recipeService.getPossibleRecipes(groceries, includeExpired ? "y" : "n"));
+  }
+
+  private void number(double value) {
+    if (format == OutputFormat.JSON) {
+      line.append(value);
+    } else {
+      line.append(String.format("%.2f%n", value));
+    }
+  }
+
+  private void groceries(List<Grocery> groceries) {
+    int today = fridgeService.todayEpochDay();
+    if (format == OutputFormat.JSON) {
+      Json.appendGroceries(line, groceries, today);
+      return;
+    }
+    for (Grocery grocery : groceries) {
+      line.append(grocery);
+      line.append(grocery.getExpiryDay() < today ? " (expired)\n" : "\n");
+    }
+  }
+
+  private void recipes(List<Recipe> recipes) {
+    if (format == OutputFormat.JSON) {
+      Json.appendRecipes(line, recipes);
+      return;
+    }
+    if (recipes.isEmpty()) {
+      line.append(Recipe.toTable(recipes)).append('\n');
+      return;
+    }
+    try {
+      new RecipeTableRenderer().render(recipes, line);
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // a StringBuilder does not throw
+    }
+  }
+
+  private static boolean isAll(String field) {
+    String value = field.trim();
+    return value.equalsIgnoreCase("all") || value.equalsIgnoreCase("y");
+  }
+
+  private static double parsePositive(String field, String what) {
+    double value = Double.parseDouble(field.trim());
+    // also rejects NaN, which fails every comparison
+    if (!(value > 0) || Double.isInfinite(value)) {
+      throw new IllegalArgumentException(
+          "Expected a positive " + what + " but found " + field.trim());
+    }
+    return value;
+  }
+
+  private static void expectFields(String[] fields, int min, int max) {
+    if (fields.length < min || fields.length > max) {
+      throw new IllegalArgumentException(
+          "Expected "
+              + (min == max ? String.valueOf(min - 1) : (min - 1) + " to " + (max - 1))
+              + " arguments but found "
+              + (fields.length - 1));
+    }
+  }
+
+  /**
+   * Outcome of a script.
+   *
+   * @param executedCommands the number of commands executed, skipped lines not counted
+   * @param failedCommands the number of commands which failed
+   */
+  public record Result(long executedCommands, long failedCommands) {}
+}
@@ -0,0 +1,223 @@
+package com.inhouse.food.management.service;
+
+import com.inhouse.food.management.model.Cookbook;
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.IngredientDictionary;
+import com.inhouse.food.management.model.Recipe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the sets of recipes of a cookbook which can be made with the groceries of a fridge, once
+ * using only fresh groceries and once including expired ones.
+ *
+ * <p>The sets are updated incrementally: a change of the stored quantity of a grocery re-checks
+ * only the recipes using it, and when the day rolls over only the groceries whose lots expired in
+ * the meantime are re-evaluated. Reading the sets therefore does not evaluate the cookbook.
+ *
+ * <p>Only groceries used as ingredient, i.e. with an id in the {@link IngredientDictionary}, are
+ * tracked, so groceries no recipe uses do not grow the dictionary. A grocery stored before a recipe
+ * first used it is read from the fridge by {@link #loadIngredients(Map)} before the recipe is
+ * saved.
+ *
+ * <p>All state is guarded by the monitor of the cookbook, which {@link RecipeService} also holds
+ * while changing the cookbook. Quantities are always read from the fridge while the grocery is
+ * locked there and before entering the monitor, so the monitor is never held while waiting for a
+ * fridge lock.
+ */
+class CookableRecipeTracker implements InventoryListener {
+  private final Cookbook cookbook;
+  private final FridgeService fridgeService;
+
+  private final IngredientDictionary dictionary = IngredientDictionary.shared();
+
+  /** Fresh and total quantity per ingredient id, {@code NaN} for groceries not in the fridge. */
+  private double[] freshQuantities = new double[0];
+
+  private double[] allQuantities = new double[0];
+
+  /** Ids whose quantities were read since the tracker listens to the fridge. */
+  private final BitSet loadedIngredients = new BitSet();
+
+  private final Set<Recipe> cookable = Collections.newSetFromMap(new IdentityHashMap<>());
+  private final Set<Recipe> cookableIncludingExpired =
+      Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private List<Recipe> cookableInOrder;
+  private List<Recipe> cookableIncludingExpiredInOrder;
+  /** The epoch day the fresh quantities were last read for. */
+  private int trackedDay;
+
+  CookableRecipeTracker(Cookbook cookbook, FridgeService fridgeService) {
+    this.cookbook = cookbook;
+    this.fridgeService = fridgeService;
+    trackedDay = fridgeService.todayEpochDay();
+  }
+
+  /**
+   * Reads the current quantities of all groceries of the fridge. Called once after the tracker was
+   * registered as a listener, so that no change can be missed.
+   */
+  void initialize() {
+    Set<String> names = new HashSet<>();
+    for (Grocery grocery : fridgeService.getAllGroceries()) {
+      names.add(grocery.getName());
+    }
+    for (String name : names) {
+      fridgeService.whileLocked(name, () -> ingredientChanged(name));
+    }
+  }
+
+  /** Evaluates the whole cookbook. Must be called while holding the monitor of the cookbook. */
+  void recheckAll() {
+    cookbook.getRecipes().forEach(this::recheck);
+  }
+
+  @Override
+  public void groceryAdded(Grocery grocery) {
+    ingredientChanged(grocery.getName());
+  }
+
+  @Override
+  public void groceryRemoved(String name, double quantity) {
+    ingredientChanged(name);
+  }
+
+  /**
+   * Reads the quantities of the given ingredients which were not read yet, as a recipe about to be
+   * saved uses them. Must be called before entering the monitor of the cookbook.
+   *
+   * @param ingredients ingredient name to required quantity, may be {@code null}
+   */
+  void loadIngredients(Map<String, Double> ingredients) {
+    if (ingredients == null) return;
+    for (String name : ingredients.keySet()) {
+      // assigned here at the latest, so changes of the grocery from now on are tracked
+      int id = dictionary.idOf(name);
+      boolean loaded;
+      synchronized (cookbook) {
+        loaded = loadedIngredients.get(id);
+      }
+      if (!loaded) {
+        fridgeService.whileLocked(name, () -> ingredientChanged(name));
+      }
+    }
+  }
+
+  /**
+   * Re-evaluates a recipe which was added to the cookbook or whose ingredients changed. Must be
+   * called while holding the monitor of the cookbook.
+   *
+   * @param recipe the added or modified recipe
+   */
+  void recipeChanged(Recipe recipe) {
+    recheck(recipe);
+  }
+
+  /**
+   * Forgets a recipe which was removed from the cookbook. Must be called while holding the monitor
+   * of the cookbook.
+   *
+   * @param recipe the removed recipe
+   */
+  void recipeRemoved(Recipe recipe) {
+    update(cookable, recipe, false);
+    update(cookableIncludingExpired, recipe, false);
+  }
+
+  /**
+   * Returns the recipes which can currently be made, in cookbook order.
+   *
+   * @param includeExpired whether expired groceries may be used
+   * @return the recipes which can be made
+   */
+  List<Recipe> getCookableRecipes(boolean includeExpired) {
+    rollOverIfNeeded();
+    synchronized (cookbook) {
+      if (includeExpired) {
+        if (cookableIncludingExpiredInOrder == null) {
+          cookableIncludingExpiredInOrder = inCookbookOrder(cookableIncludingExpired);
+        }
+        return cookableIncludingExpiredInOrder;
+      }
+      if (cookableInOrder == null) {
+        cookableInOrder = inCookbookOrder(cookable);
+      }
+      return cookableInOrder;
+    }
+  }
+
+  /** Must be called while the grocery is locked in the fridge. */
+  private void ingredientChanged(String name) {
+    // no recipe used the grocery so far, see loadIngredients
+    int id = dictionary.find(name);
+    if (id == IngredientDictionary.NO_ID) return;
+    double fresh = fridgeService.getAvailableQuantity(name, false);
+    double all = fridgeService.getAvailableQuantity(name, true);
+    synchronized (cookbook) {
+      if (id >= allQuantities.length) {
+        freshQuantities = grow(freshQuantities);
+        allQuantities = grow(allQuantities);
+      }
+      freshQuantities[id] = all > 0 ? fresh : Double.NaN;
+      allQuantities[id] = all > 0 ? all : Double.NaN;
+      loadedIngredients.set(id);
+      cookbook.getRecipesUsing(name).forEach(this::recheck);
+    }
+  }
+
+  private void rollOverIfNeeded() {
+    int today = fridgeService.todayEpochDay();
+    int previousDay;
+    synchronized (cookbook) {
+      if (today <= trackedDay) return;
+      previousDay = trackedDay;
+      trackedDay = today;
+    }
+    Set<String> expiredNames = new HashSet<>();
+    for (Grocery grocery : fridgeService.getGroceriesExpiringBetween(previousDay, today)) {
+      expiredNames.add(grocery.getName());
+    }
+    for (String name : expiredNames) {
+      fridgeService.whileLocked(name, () -> ingredientChanged(name));
+    }
+  }
+
+  private void recheck(Recipe recipe) {
+    update(cookable, recipe, recipe.canBeMadeWith(freshQuantities));
+    update(cookableIncludingExpired, recipe, recipe.canBeMadeWith(allQuantities));
+  }
+
+  private void update(Set<Recipe> recipes, Recipe recipe, boolean canBeMade) {
+    boolean changed = canBeMade ? recipes.add(recipe) : recipes.remove(recipe);
+    if (changed) {
+      if (recipes == cookable) {
+        cookableInOrder = null;
+      } else {
+        cookableIncludingExpiredInOrder = null;
+      }
+    }
+  }
+
+  /** Grows by at least half, so new ingredients do not copy the quantities every time. */
+  private double[] grow(double[] quantities) {
+    int length = Math.max(dictionary.size(), quantities.length + (quantities.length >> 1));
+    double[] grown = Arrays.copyOf(quantities, length);
+    Arrays.fill(grown, quantities.length, grown.length, Double.NaN);
+    return grown;
+  }
+
+  private List<Recipe> inCookbookOrder(Set<Recipe> recipes) {
+    List<Recipe> ordered = new ArrayList<>(recipes);
+    cookbook.sortInCookbookOrder(ordered);
+    return Collections.unmodifiableList(ordered);
+  }
+
+}
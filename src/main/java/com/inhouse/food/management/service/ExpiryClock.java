@@ -0,0 +1,105 @@
+package com.inhouse.food.management.service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Day-granular clock expiry is evaluated against. The current day is published as an epoch day
+ * and only recomputed when the day rolls over, so reading it costs a comparison of the clock's
+ * milliseconds instead of a date computation in the time zone of the clock.
+ *
+ * <p>A scan over many groceries should read {@link #today()} once and compare every grocery with
+ * that day, so that the whole scan is consistent even if it runs across midnight.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * ExpiryClock clock = ExpiryClock.fixed(LocalDate.of(2024, 5, 1));
+ * GroceryService groceryService = new GroceryService(clock);
+ * }</pre>
+ */
+public class ExpiryClock {
+  private static final ExpiryClock SYSTEM = new ExpiryClock(Clock.systemDefaultZone());
+
+  private final Clock clock;
+
+  /** The current day and the interval of clock milliseconds it covers. */
+  private volatile Day day;
+
+  /**
+   * Creates an expiry clock following the given clock in its time zone.
+   *
+   * @param clock the clock providing the current instant and time zone
+   */
+  public ExpiryClock(Clock clock) {
+    this.clock = clock;
+    day = Day.of(clock);
+  }
+
+  /**
+   * Returns the expiry clock following the system clock in the default time zone.
+   *
+   * @return the system expiry clock
+   */
+  public static ExpiryClock system() {
+    return SYSTEM;
+  }
+
+  /**
+   * Returns an expiry clock which is always at the given day.
+   *
+   * @param date the day
+   * @return the fixed expiry clock
+   */
+  public static ExpiryClock fixed(LocalDate date) {
+    return new ExpiryClock(
+        Clock.fixed(date.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+  }
+
+  /**
+   * Returns the current day.
+   *
+   * @return the current day as epoch day
+   */
+  public int today() {
+    Day current = day;
+    long millis = clock.millis();
+    if (millis >= current.end() || millis < current.start()) {
+      current = Day.of(clock);
+      day = current;
+    }
+    return current.epochDay();
+  }
+
+  /**
+   * Returns the current day as a date.
+   *
+   * @return the current day
+   */
+  public LocalDate todayAsDate() {
+    return LocalDate.ofEpochDay(today());
+  }
+
+  /**
+   * Returns the time until the next day begins.
+   *
+   * @return the milliseconds from now until the start of the next day
+   */
+  public long millisUntilNextDay() {
+    today();
+    return Math.max(0, day.end() - clock.millis());
+  }
+
+  private record Day(int epochDay, long start, long end) {
+    private static Day of(Clock clock) {
+      ZoneId zone = clock.getZone();
+      LocalDate date = LocalDate.ofInstant(clock.instant(), zone);
+      return new Day(
+          Math.toIntExact(date.toEpochDay()),
+          date.atStartOfDay(zone).toInstant().toEpochMilli(),
+          date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+    }
+  }
+}
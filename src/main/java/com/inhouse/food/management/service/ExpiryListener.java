@@ -0,0 +1,40 @@
+package com.inhouse.food.management.service;
+
+import com.inhouse.food.management.model.Grocery;
+
+/**
+ * Listener notified by {@link ExpiryScheduler} when stored lots start expiring soon and when they
+ * expire.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * expiryScheduler.addExpiryListener(
+ *     new ExpiryListener() {
+ *       public void lotExpiringSoon(Grocery lot) {
+ *         System.out.println(lot.getName() + " expires on " + lot.getExpiryDate());
+ *       }
+ *
+ *       public void lotExpired(Grocery lot) {
+ *         System.out.println(lot.getName() + " expired");
+ *       }
+ *     });
+ * }</pre>
+ */
+public interface ExpiryListener {
+
+  /**
+   * Called when a lot starts expiring soon, at the beginning of the first day within the warning
+   * days of the scheduler before its expiry date.
+   *
+   * @param lot the lot expiring soon
+   */
+  void lotExpiringSoon(Grocery lot);
+
+  /**
+   * Called when a lot expires, at the beginning of the day after its expiry date.
+   *
+   * @param lot the expired lot
+   */
+  void lotExpired(Grocery lot);
+}
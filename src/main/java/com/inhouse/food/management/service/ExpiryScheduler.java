@@ -0,0 +1,356 @@
+package com.inhouse.food.management.service;
+
+import com.inhouse.food.management.model.Grocery;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the expiry of the lots of a fridge and notifies {@link ExpiryListener}s when a lot
+ * starts expiring soon and when it expires, so expiry is noticed without scanning the fridge.
+ *
+ * <p>Every stored lot gets two timers, one for the day it starts expiring soon and one for the day
+ * after its expiry date. The timers are kept in a hierarchical timing wheel of {@value #LEVELS}
+ * levels of {@value #SLOTS} slots, the first level a slot per day, every further level a slot per
+ * {@value #SLOTS} slots of the level below. A timer is placed on the lowest level whose current
+ * span covers its day, in the slot of its day, and moves down a level whenever the wheel enters the
+ * slot it sits in. Timers beyond the span of the top level wait in an overflow list. Every slot is
+ * a doubly linked list, so scheduling and cancelling a timer take constant time however many lots
+ * are scheduled, and a day only visits the timers due that day and those moving down.
+ *
+ * <p>Once {@link #start() started} the scheduler advances the wheel on a thread of its own at the
+ * beginning of every day of its {@link ExpiryClock}. Listeners are called on that thread, outside
+ * of any lock, and may read the fridge. A lot removed while its events are being delivered may
+ * still be reported once. Lots stored when already expired are not reported at all, lots stored
+ * when already expiring soon are reported as expiring soon right away.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * ExpiryScheduler scheduler = new ExpiryScheduler(ExpiryClock.system(), 2);
+ * scheduler.addExpiryListener(listener);
+ * scheduler.track(fridgeService);
+ * scheduler.start();
+ * }</pre>
+ */
+public class ExpiryScheduler implements InventoryListener, AutoCloseable {
+  /** Number of levels of the wheel. */
+  static final int LEVELS = 4;
+
+  /** Number of slots per level, a power of two. */
+  static final int SLOTS = 64;
+
+  private static final int SLOT_BITS = Integer.numberOfTrailingZeros(SLOTS);
+
+  private final ExpiryClock expiryClock;
+  private final int warningDays;
+  private final List<ExpiryListener> expiryListeners = new CopyOnWriteArrayList<>();
+
+  /** Heads of the timer lists per level and slot. Guarded by this. */
+  private final Timer[][] slots = new Timer[LEVELS][SLOTS];
+
+  /** Timers beyond the span of the top level. Guarded by this. */
+  private Timer overflow;
+
+  /**
+   * Timers which are due but not yet fired, and those cancelled since, which are skipped when the
+   * list is drained. Guarded by this.
+   */
+  private final List<Timer> due = new ArrayList<>();
+
+  /** Timers of every scheduled lot, the expiring soon and the expired timer. Guarded by this. */
+  private final Map<Grocery, Timer[]> timersPerLot = new IdentityHashMap<>();
+
+  /** The day the wheel is at, as epoch day. Guarded by this. */
+  private long currentDay;
+
+  private ScheduledExecutorService ticker;
+
+  /**
+   * Creates a scheduler at the current day of the given clock.
+   *
+   * @param expiryClock the clock whose days the wheel follows
+   * @param warningDays how many days before its expiry date a lot is expiring soon
+   * @throws IllegalArgumentException if the warning days are negative
+   */
+  public ExpiryScheduler(ExpiryClock expiryClock, int warningDays) {
+    if (warningDays < 0) {
+      throw new IllegalArgumentException("Warning days must not be negative: " + warningDays);
+    }
+    this.expiryClock = expiryClock;
+    this.warningDays = warningDays;
+    currentDay = expiryClock.today();
+  }
+
+  /**
+   * Registers a listener to be notified of expiring lots.
+   *
+   * @param listener the listener to be notified
+   */
+  public void addExpiryListener(ExpiryListener listener) {
+    expiryListeners.add(listener);
+  }
+
+  /**
+   * Schedules the lots of the given fridge, those stored so far and all stored from now on, and
+   * cancels them when they are removed.
+   *
+   * @param fridgeService the fridge whose lots are scheduled
+   */
+  public void track(FridgeService fridgeService) {
+    fridgeService.addInventoryListenerWithStoredLots(this);
+  }
+
+  /** Starts advancing the wheel at the beginning of every day, on a thread of its own. */
+  public synchronized void start() {
+    if (ticker != null) return;
+    ticker =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "expiry-scheduler");
+              thread.setDaemon(true);
+              return thread;
+            });
+    ticker.execute(this::tick);
+  }
+
+  /** Stops advancing the wheel. Scheduled lots stay scheduled. */
+  @Override
+  public synchronized void close() {
+    if (ticker != null) {
+      ticker.shutdownNow();
+      ticker = null;
+    }
+  }
+
+  /**
+   * Returns the number of lots with an event yet to be fired.
+   *
+   * @return the number of scheduled lots
+   */
+  public synchronized int getScheduledLotCount() {
+    return timersPerLot.size();
+  }
+
+  @Override
+  public void lotStored(Grocery lot) {
+    boolean fireNow;
+    synchronized (this) {
+      long expiredDay = lot.getExpiryDay() + 1L;
+      if (expiredDay <= currentDay || timersPerLot.containsKey(lot)) return;
+      Timer expiringSoon = new Timer(lot, false, expiredDay - 1 - warningDays);
+      Timer expired = new Timer(lot, true, expiredDay);
+      timersPerLot.put(lot, new Timer[] {expiringSoon, expired});
+      schedule(expiringSoon);
+      schedule(expired);
+      fireNow = !due.isEmpty() && ticker != null;
+    }
+    if (fireNow) {
+      // not fired here, the fridge is still locked
+      requestTick();
+    }
+  }
+
+  @Override
+  public void lotRemoved(Grocery lot) {
+    synchronized (this) {
+      Timer[] timers = timersPerLot.remove(lot);
+      if (timers == null) return;
+      for (Timer timer : timers) {
+        cancel(timer);
+      }
+    }
+  }
+
+  @Override
+  public void groceryAdded(Grocery grocery) {}
+
+  @Override
+  public void groceryRemoved(String name, double quantity) {}
+
+  /**
+   * Advances the wheel to the given day and notifies the listeners of all lots which started
+   * expiring soon or expired up to that day. Advancing to a past day only fires the timers due.
+   *
+   * @param day the day to advance to, as epoch day
+   */
+  public void advanceTo(long day) {
+    List<Timer> fired;
+    synchronized (this) {
+      while (currentDay < day) {
+        currentDay++;
+        cascade();
+        Timer timer = slots[0][slotOf(currentDay, 0)];
+        slots[0][slotOf(currentDay, 0)] = null;
+        while (timer != null) {
+          Timer next = timer.next;
+          timer.unlinked();
+          timer.level = Timer.DUE;
+          due.add(timer);
+          timer = next;
+        }
+      }
+      fired = new ArrayList<>(due.size());
+      for (Timer timer : due) {
+        if (timer.level != Timer.DUE) continue; // cancelled
+        timer.unlinked();
+        fired.add(timer);
+        if (timer.expired) {
+          timersPerLot.remove(timer.lot);
+        }
+      }
+      due.clear();
+    }
+    for (Timer timer : fired) {
+      for (ExpiryListener listener : expiryListeners) {
+        if (timer.expired) {
+          listener.lotExpired(timer.lot);
+        } else {
+          listener.lotExpiringSoon(timer.lot);
+        }
+      }
+    }
+  }
+
+  private void tick() {
+    advanceTo(expiryClock.today());
+    synchronized (this) {
+      if (ticker != null) {
+        // the clock reaches the next day exactly at the returned time, checked again by today()
+        ticker.schedule(this::tick, expiryClock.millisUntilNextDay(), TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  private synchronized void requestTick() {
+    if (ticker != null) {
+      ticker.execute(() -> advanceTo(currentDay()));
+    }
+  }
+
+  private synchronized long currentDay() {
+    return currentDay;
+  }
+
+  /**
+   * Moves the timers of the slots the wheel just entered down a level, the overflow list first,
+   * then the highest level. A level is entered anew when all lower levels wrapped around.
+   */
+  private void cascade() {
+    int level = 1;
+    while (level <= LEVELS && slotOf(currentDay, level - 1) == 0) {
+      level++;
+    }
+    // levels 1 to level - 1 wrapped, the slot entered on each of them is moved down
+    if (level > LEVELS) {
+      Timer timer = overflow;
+      overflow = null;
+      reschedule(timer);
+    }
+    for (int wrapped = Math.min(level - 1, LEVELS - 1); wrapped >= 1; wrapped--) {
+      int slot = slotOf(currentDay, wrapped);
+      Timer timer = slots[wrapped][slot];
+      slots[wrapped][slot] = null;
+      reschedule(timer);
+    }
+  }
+
+  private void reschedule(Timer timer) {
+    while (timer != null) {
+      Timer next = timer.next;
+      timer.unlinked();
+      schedule(timer);
+      timer = next;
+    }
+  }
+
+  /** Places a timer on the lowest level whose current span covers its day. */
+  private void schedule(Timer timer) {
+    if (timer.day <= currentDay) {
+      timer.level = Timer.DUE;
+      due.add(timer);
+      return;
+    }
+    for (int level = 0; level < LEVELS; level++) {
+      if (timer.day >> (SLOT_BITS * (level + 1)) == currentDay >> (SLOT_BITS * (level + 1))) {
+        link(timer, level, slotOf(timer.day, level));
+        return;
+      }
+    }
+    timer.level = Timer.OVERFLOW;
+    timer.next = overflow;
+    if (overflow != null) {
+      overflow.previous = timer;
+    }
+    overflow = timer;
+  }
+
+  private void link(Timer timer, int level, int slot) {
+    Timer head = slots[level][slot];
+    timer.level = level;
+    timer.slot = slot;
+    timer.next = head;
+    if (head != null) {
+      head.previous = timer;
+    }
+    slots[level][slot] = timer;
+  }
+
+  private void cancel(Timer timer) {
+    switch (timer.level) {
+      case Timer.UNLINKED:
+        return;
+      case Timer.DUE:
+        // left in the list, which skips it once unlinked below
+        break;
+      default:
+        if (timer.previous != null) {
+          timer.previous.next = timer.next;
+        } else if (timer.level == Timer.OVERFLOW) {
+          overflow = timer.next;
+        } else {
+          slots[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+          timer.next.previous = timer.previous;
+        }
+    }
+    timer.unlinked();
+  }
+
+  private static int slotOf(long day, int level) {
+    return (int) (day >> (SLOT_BITS * level)) & (SLOTS - 1);
+  }
+
+  /** An event of a lot due on a day, linked into the slot it is placed in. */
+  private static final class Timer {
+    private static final int UNLINKED = -1;
+    private static final int DUE = -2;
+    private static final int OVERFLOW = -3;
+
+    private final Grocery lot;
+    private final boolean expired;
+    private final long day;
+    private int level = UNLINKED;
+    private int slot;
+    private Timer previous;
+    private Timer next;
+
+    private Timer(Grocery lot, boolean expired, long day) {
+      this.lot = lot;
+      this.expired = expired;
+      this.day = day;
+    }
+
+    private void unlinked() {
+      level = UNLINKED;
+      previous = null;
+      next = null;
+    }
+  }
+}
@@ -1,16 +1,50 @@
 package com.inhouse.food.management.service;
 
+import com.inhouse.food.management.model.ClubbingKey;
 import com.inhouse.food.management.model.FoodStorage;
 import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.GroceryStorage;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-/** Service class for managing groceries and food storage in a fridge. */
+/**
+ * Service class for managing groceries and food storage in a fridge.
+ *
+ * <p>The service is safe for concurrent use. Changes of one grocery are applied atomically under a
+ * lock striped by grocery name, so writers of different groceries proceed in parallel. Readers of a
+ * single grocery take the read lock of its stripe, readers of the whole inventory take the read
+ * locks of all stripes and therefore never observe a partially applied change.
+ *
+ * <p>An added grocery is stored as a copy when it starts a new lot, and the groceries read from the
+ * fridge are copies as well, so callers cannot change stored lots behind the running totals.
+ *
+ * <p>The lots are kept by a {@link GroceryStorage}, a {@link FoodStorage} unless another storage
+ * is given. The service provides the locking the storage relies on.
+ */
 public class FridgeService {
-  private FoodStorage foodStorage;
+  /** Number of lock stripes, a power of two. */
+  private static final int LOCK_STRIPES = 64;
+
+  private GroceryStorage foodStorage;
 
   private GroceryService groceryService;
 
-  public FridgeService(FoodStorage mockFoodStorage, GroceryService mockGroceryService) {
+  private final List<InventoryListener> inventoryListeners = new CopyOnWriteArrayList<>();
+
+  private final ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPES];
+
+  {
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new ReentrantReadWriteLock();
+    }
+  }
+
+  public FridgeService(GroceryStorage mockFoodStorage, GroceryService mockGroceryService) {
     this.foodStorage = mockFoodStorage;
     this.groceryService = mockGroceryService;
   }
@@ -20,122 +54,427 @@ public class FridgeService {
     groceryService = new GroceryService();
   }
 
+  /**
+   * Registers a listener to be notified after every change of the stored quantities. Listeners
+   * are called while the changed grocery is still locked, so they observe the changes of one
+   * grocery in order; they may read that grocery but must not read the whole inventory.
+   *
+   * @param listener the listener to be notified
+   */
+  public void addInventoryListener(InventoryListener listener) {
+    inventoryListeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener. A change applied concurrently may still notify it.
+   *
+   * @param listener the listener to be removed
+   */
+  public void removeInventoryListener(InventoryListener listener) {
+    inventoryListeners.remove(listener);
+  }
+
+  /**
+   * Registers a listener like {@link #addInventoryListener(InventoryListener)} and reports every
+   * lot stored so far to its {@link InventoryListener#lotStored(Grocery)}. No change is applied
+   * while the lots are reported, so the listener learns of every lot exactly once, either from the
+   * report or from the change storing it.
+   *
+   * @param listener the listener to be notified
+   */
+  public void addInventoryListenerWithStoredLots(InventoryListener listener) {
+    whileAllLocked(
+        () -> {
+          inventoryListeners.add(listener);
+          foodStorage.getLots().forEach(listener::lotStored);
+          return null;
+        });
+  }
+
   /**
    * Adds a grocery item to the food storage. If the same grocery item added multiple times then
    * records would clubbed to an existing one based on expiry date, their quantities are combined.
    * In case where expiry dates are different the groceries even if falls under same category would
    * be treated differently and hence there quatities won't be clubbed
    *
+   * <p>A {@link FoodStorage} looks up the lot to club into by its {@link ClubbingKey} in constant
+   * time, however many lots the category holds, and inserts a new lot behind the lots expiring on
+   * or before it, so the lots of a category stay in first-expiry-first-out order. Every call emits
+   * the Flight Recorder event {@code com.inhouse.food.management.GroceryAdded} if a recording
+   * enables it.
+   *
    * @param grocery the grocery item to be added
    */
   public void addGrocery(Grocery grocery) {
-    ArrayList<Grocery> groceryToBeAdded = new ArrayList<>();
-    groceryToBeAdded.add(grocery);
-    foodStorage
-        .getGroceriesPerCategory()
-        .merge(
-            grocery.getName(),
-            groceryToBeAdded,
-            (existing, newGrocery) -> {
-              Optional<Grocery> existingGrocery =
-                  existing.stream()
-                      .filter(g -> groceryService.areGroceriesClubbable(g, grocery))
-                      .findFirst();
-
-              if (existingGrocery.isPresent()) {
-                existingGrocery
-                    .get()
-                    .setQuantity(existingGrocery.get().getQuantity() + grocery.getQuantity());
-              } else {
-                existing.addAll(newGrocery);
-              }
-              return existing;
-            });
+    GroceryAddedEvent event = new GroceryAddedEvent();
+    event.begin();
+    ReadWriteLock lock = lockFor(grocery.getName());
+    lock.writeLock().lock();
+    try {
+      addLocked(grocery, event);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    event.commit();
+  }
+
+  private void addLocked(Grocery grocery, GroceryAddedEvent event) {
+    GroceryStorage.StoredLot stored = foodStorage.store(grocery);
+    if (event.isEnabled()) {
+      event.name = grocery.getName();
+      event.quantity = grocery.getQuantity();
+      event.clubbed = stored.newLot() == null;
+      event.lotsScanned = stored.lotsScanned();
+      event.categoryLots = foodStorage.getLotCountOfCategory(grocery.getName());
+    }
+    for (InventoryListener listener : inventoryListeners) {
+      if (stored.newLot() != null) {
+        listener.lotStored(stored.newLot());
+      }
+      listener.groceryAdded(grocery);
+    }
+  }
+
+  /**
+   * Adds a batch of grocery items to the food storage, with the same clubbing rules as {@link
+   * #addGrocery(Grocery)}. The batch is grouped by name and clubbing key up front, so every
+   * category is locked and merged once and every lot is clubbed once, however many rows of the
+   * batch belong to it.
+   *
+   * @param groceries the grocery items to be added
+   */
+  public void addGroceries(Collection<Grocery> groceries) {
+    addGroceries(groceries.stream());
+  }
+
+  /**
+   * Adds a stream of grocery items to the food storage, see {@link #addGroceries(Collection)}. The
+   * stream is consumed before any grocery is stored; memory use is bounded by the number of
+   * distinct lots in it.
+   *
+   * @param groceries the grocery items to be added
+   */
+  public void addGroceries(Stream<Grocery> groceries) {
+    Map<String, Map<ClubbingKey, Grocery>> lotsPerCategory = new LinkedHashMap<>();
+    groceries.forEach(
+        grocery -> {
+          Map<ClubbingKey, Grocery> lots =
+              lotsPerCategory.computeIfAbsent(grocery.getName(), name -> new LinkedHashMap<>());
+          Grocery lot = lots.putIfAbsent(ClubbingKey.of(grocery), copyOf(grocery));
+          if (lot != null) {
+            lot.setQuantity(lot.getQuantity() + grocery.getQuantity());
+          }
+        });
+
+    lotsPerCategory.forEach(
+        (name, lots) -> {
+          ReadWriteLock lock = lockFor(name);
+          lock.writeLock().lock();
+          try {
+            addAllLocked(name, lots.values());
+          } finally {
+            lock.writeLock().unlock();
+          }
+        });
+  }
+
+  private void addAllLocked(String name, Collection<Grocery> lots) {
+    List<Grocery> newLots = foodStorage.storeAll(name, lots);
+    int next = 0;
+    for (Grocery lot : lots) {
+      // the new lots are the lots of the batch which were not clubbed, in batch order
+      boolean stored = next < newLots.size() && newLots.get(next) == lot;
+      if (stored) {
+        next++;
+      }
+      for (InventoryListener listener : inventoryListeners) {
+        if (stored) {
+          listener.lotStored(lot);
+        }
+        listener.groceryAdded(lot);
+      }
+    }
   }
 
   /**
    * Removes a specified quantity of a grocery item from the food storage.
    *
+   * <p>The lots of a grocery are kept in first-expiry-first-out order, so the lots expiring first
+   * are consumed first and only the consumed lots are visited. Whether enough is stored is checked
+   * against the running quantity of the grocery before any lot is touched. Every call emits the
+   * Flight Recorder event {@code com.inhouse.food.management.GroceryRemoved} if a recording enables
+   * it.
+   *
    * @param name the name of the grocery item to be removed
    * @param quantity the quantity to be removed
    * @return true if the specified quantity was removed successfully, false otherwise
    */
   public boolean removeGrocery(String name, double quantity) {
-    List<Grocery> groceries = foodStorage.getGroceriesPerCategory().get(name);
-    if (groceries == null) return false;
-
-    // Calculate total quantity of the groceries
-    double totalQuantity = groceries.stream().map(Grocery::getQuantity).reduce(0.0, Double::sum);
-    if (totalQuantity < quantity) return false;
-
-    // Remove the specified quantity
-    double remainingQuantity = quantity;
-    Iterator<Grocery> iterator = groceries.iterator();
-    while (iterator.hasNext() && remainingQuantity > 0) {
-      Grocery grocery = iterator.next();
-      double groceryQuantity = grocery.getQuantity();
-      if (groceryQuantity <= remainingQuantity) {
-        remainingQuantity -= groceryQuantity;
-        iterator.remove();
-      } else {
-        grocery.setQuantity(groceryQuantity - remainingQuantity);
-        remainingQuantity = 0;
-      }
+    GroceryRemovedEvent event = new GroceryRemovedEvent();
+    event.begin();
+    boolean removed;
+    ReadWriteLock lock = lockFor(name);
+    lock.writeLock().lock();
+    try {
+      removed = removeLocked(name, quantity, event);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    if (event.shouldCommit()) {
+      event.name = name;
+      event.quantity = quantity;
+      event.removed = removed;
+      event.commit();
     }
+    return removed;
+  }
+
+  private boolean removeLocked(String name, double quantity, GroceryRemovedEvent event) {
+    GroceryStorage.Removal removal = foodStorage.remove(name, quantity);
+    if (removal == null) return false;
 
-    if (groceries.isEmpty()) {
-      foodStorage.getGroceriesPerCategory().remove(name);
+    for (InventoryListener listener : inventoryListeners) {
+      for (Grocery lot : removal.removedLots()) {
+        listener.lotRemoved(lot);
+      }
+      listener.groceryRemoved(name, quantity);
+    }
+    if (event.isEnabled()) {
+      event.lotsVisited = removal.lotsVisited();
+      event.lotsConsumed = removal.removedLots().size();
     }
     return true;
   }
 
+  /**
+   * Returns the quantity of a grocery available in the food storage.
+   *
+   * @param name the name of the grocery
+   * @param includeExpired whether quantities of expired lots count as available
+   * @return the available quantity, {@code 0} if the grocery is not stored
+   */
+  public double getAvailableQuantity(String name, boolean includeExpired) {
+    ReadWriteLock lock = lockFor(name);
+    lock.readLock().lock();
+    try {
+      return includeExpired
+          ? foodStorage.getQuantityOfCategory(name)
+          : foodStorage.getFreshQuantityOfCategory(name, groceryService.today());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Runs the given action while changes of the given grocery are blocked.
+   *
+   * @param name the name of the grocery
+   * @param action the action to run
+   */
+  void whileLocked(String name, Runnable action) {
+    ReadWriteLock lock = lockFor(name);
+    lock.readLock().lock();
+    try {
+      action.run();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
   /**
    * Retrieves all groceries stored in the storage. Expired groceries also gets retrieved to give an
    * overview of the storage
    *
-   * @return a list of all grocery items in the food storage
+   * @return copies of all grocery items in the food storage, unaffected by later changes
    */
   public List<Grocery> getAllGroceries() {
-    return new ArrayList<>(
-        foodStorage.getGroceriesPerCategory().values().stream()
-            .flatMap(Collection::stream)
-            .toList());
+    return whileAllLocked(() -> copiesOf(foodStorage.getLots()));
+  }
+
+  /**
+   * Takes a consistent copy of all lots in the food storage. The given action runs while the copy
+   * is taken, at a point where no change is in progress, so that e.g. a journal can be rotated at
+   * exactly the state the copy reflects. The action must not change the fridge.
+   *
+   * @param atSnapshot the action to run at the point of the snapshot
+   * @return copies of all lots, unaffected by later changes
+   */
+  public List<Grocery> snapshotGroceries(Runnable atSnapshot) {
+    return whileAllLocked(
+        () -> {
+          List<Grocery> lots = copiesOf(foodStorage.getLots());
+          atSnapshot.run();
+          return lots;
+        });
+  }
+
+  /**
+   * Retrieves all groceries stored in the storage ordered by expiry date, earliest first. The order
+   * is served from the expiry index of the storage, so no sorting takes place.
+   *
+   * @return copies of all grocery items in the food storage in expiry order
+   */
+  public List<Grocery> getAllGroceriesInExpiryOrder() {
+    return whileAllLocked(() -> copiesOf(foodStorage.getGroceriesInExpiryOrder()));
   }
 
   /**
    * Retrieves all expired groceries from the food storage.
    *
-   * @return a list of expired grocery items
+   * @return copies of the expired grocery items
    */
   public List<Grocery> getExpiredGroceries() {
-    return foodStorage.getGroceriesPerCategory().values().stream()
-        .flatMap(Collection::stream)
-        .filter(groceryService::isExpired)
-        .toList();
+    int today = groceryService.today();
+    return whileAllLocked(() -> copiesOf(foodStorage.getGroceriesExpiredAsOf(today)));
   }
 
   /**
-   * Calculates the total value of all groceries stored in the fridge.
+   * Retrieves the groceries which are not expired yet but will expire within the given number of
+   * days.
+   *
+   * @param days the number of days to look ahead, {@code 0} meaning groceries expiring today
+   * @return copies of the grocery items expiring soon, earliest expiry first
+   */
+  public List<Grocery> getGroceriesExpiringWithin(int days) {
+    int today = groceryService.today();
+    return whileAllLocked(() -> copiesOf(foodStorage.getGroceriesExpiringWithin(today, days)));
+  }
+
+  /**
+   * Retrieves the groceries whose expiry date lies in the given range.
+   *
+   * @param from the first expiry date, inclusive
+   * @param to the last expiry date, exclusive
+   * @return copies of the grocery items expiring in the range, earliest expiry first
+   */
+  public List<Grocery> getGroceriesExpiringBetween(LocalDate from, LocalDate to) {
+    return getGroceriesExpiringBetween(
+        Math.toIntExact(from.toEpochDay()), Math.toIntExact(to.toEpochDay()));
+  }
+
+  /** Retrieves the groceries expiring in a range of epoch days, see the {@code LocalDate} form. */
+  List<Grocery> getGroceriesExpiringBetween(int from, int to) {
+    return whileAllLocked(() -> copiesOf(foodStorage.getGroceriesExpiringBetween(from, to)));
+  }
+
+  /**
+   * Calculates the total value of all groceries stored in the fridge. The value is maintained
+   * incrementally by the storage, so this is a constant time read.
    *
    * @return the total value of all grocery items
    */
   public double calculateTotalValue() {
-    return foodStorage.getGroceriesPerCategory().values().stream()
-        .flatMap(Collection::stream)
-        .mapToDouble(groceryService::calculateValue)
-        .sum();
+    return foodStorage.getTotalValue();
+  }
+
+  /**
+   * Calculates the total value of the groceries of one category.
+   *
+   * @param name the name of the grocery category
+   * @return the total value of the grocery items with the given name
+   */
+  public double calculateTotalValue(String name) {
+    return foodStorage.getValueOfCategory(name);
   }
 
     /**
-     * Calculates the total value of all expired groceries stored in the fridge.
+     * Calculates the total value of all expired groceries stored in the fridge. The value is
+     * maintained incrementally and only settled for the lots expiring since the previous call.
      *
      * @return the total value of all expired grocery items
      */
     public double calculateTotalValueOfExpiredGroceries() {
-        return foodStorage.getGroceriesPerCategory().values().stream()
-            .flatMap(Collection::stream)
-            .filter(groceryService::isExpired)
-            .mapToDouble(groceryService::calculateValue)
-            .sum();
+        return foodStorage.getExpiredValueAsOf(groceryService.today());
+    }
+
+  /**
+   * Returns the number of lots stored, without locking the fridge. Lots being stored or removed
+   * concurrently may or may not be counted.
+   *
+   * @return the number of lots
+   */
+  public int getLotCount() {
+    return foodStorage.getLotCount();
+  }
+
+  /**
+   * Returns the number of groceries, by name, of which lots are stored, without locking the
+   * fridge.
+   *
+   * @return the number of grocery categories
+   */
+  public int getCategoryCount() {
+    return foodStorage.getCategoryCount();
+  }
+
+  /**
+   * Returns the current day of the expiry clock of the grocery service, the day all expiry queries
+   * of this fridge are evaluated against.
+   *
+   * @return the current day
+   */
+  public LocalDate today() {
+    return LocalDate.ofEpochDay(todayEpochDay());
+  }
+
+  /**
+   * Returns the current day of the expiry clock like {@link #today()}, as epoch day.
+   *
+   * @return the current day, see {@link LocalDate#toEpochDay()}
+   */
+  public int todayEpochDay() {
+    return groceryService.today();
+  }
+
+  /**
+   * Copies a lot, so the stored lots are only changed through the fridge and the running totals
+   * stay in step with them.
+   */
+  private static Grocery copyOf(Grocery lot) {
+    return new Grocery(lot);
+  }
+
+  /** Replaces the lots of a list read from the storage by copies, in place. */
+  private static List<Grocery> copiesOf(List<Grocery> lots) {
+    lots.replaceAll(FridgeService::copyOf);
+    return lots;
+  }
+
+  /**
+   * Returns the lock stripe of a grocery. Changes of groceries in different stripes never wait for
+   * each other.
+   *
+   * @param name the name of the grocery
+   * @return the stripe, from {@code 0} to {@link #getLockStripeCount()} exclusive
+   */
+  public int getLockStripe(String name) {
+    int hash = name.hashCode();
+    return (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+  }
+
+  /**
+   * Returns the number of lock stripes of the fridge.
+   *
+   * @return the number of stripes
+   */
+  public int getLockStripeCount() {
+    return LOCK_STRIPES;
+  }
+
+  private ReadWriteLock lockFor(String name) {
+    return locks[getLockStripe(name)];
+  }
+
+  private <T> T whileAllLocked(Supplier<T> reader) {
+    for (ReadWriteLock lock : locks) {
+      lock.readLock().lock();
+    }
+    try {
+      return reader.get();
+    } finally {
+      for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+        locks[i].readLock().unlock();
+      }
     }
+  }
 }
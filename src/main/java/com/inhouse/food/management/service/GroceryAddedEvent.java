@@ -0,0 +1,45 @@
+package com.inhouse.food.management.service;
+
+import com.inhouse.food.management.model.Grocery;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one {@link FridgeService#addGrocery(Grocery)}. The duration includes
+ * waiting for the lock of the grocery and notifying the inventory listeners.
+ *
+ * <p>Disabled unless a recording enables it, e.g. with the settings {@code
+ * jfr/food-management.jfc}; while disabled it is never filled in or committed.
+ */
+@Name(GroceryAddedEvent.NAME)
+@Label("Grocery Added")
+@Category({"Food Management", "Inventory"})
+@Description("Grocery added to a fridge, clubbed into a lot or stored as a new one")
+@Enabled(false)
+@StackTrace(false)
+final class GroceryAddedEvent extends Event {
+  static final String NAME = "com.inhouse.food.management.GroceryAdded";
+
+  @Label("Name")
+  String name;
+
+  @Label("Quantity")
+  double quantity;
+
+  @Label("Clubbed")
+  @Description("Whether the grocery was clubbed into an existing lot")
+  boolean clubbed;
+
+  @Label("Lots Scanned")
+  @Description("Lots stepped over to insert a new lot in expiry order, 0 if clubbed")
+  int lotsScanned;
+
+  @Label("Category Lots")
+  @Description("Lots of the grocery after it was added")
+  int categoryLots;
+}
@@ -0,0 +1,163 @@
+package com.inhouse.food.management.service;
+
+import com.inhouse.food.management.model.Grocery;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * Imports groceries from CSV delivery files into a fridge.
+ *
+ * <p>Every line holds one grocery as {@code name,quantity,unit,pricePerUnit,expiryDate} with the
+ * expiry date in ISO format (YYYY-MM-DD); an optional first line naming exactly these columns, in
+ * any case, and blank lines are skipped. Fields are not quoted. The file is read as a stream and
+ * handed to {@link FridgeService#addGroceries(java.util.Collection)} in chunks, so memory use is
+ * bounded by the chunk size rather than by the file size. Rows that cannot be parsed or are
+ * rejected by the {@link Grocery} constructor are reported and skipped without aborting the import.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * GroceryCsvImporter.Result result =
+ *     new GroceryCsvImporter(fridgeService).importFrom(Path.of("delivery.csv"));
+ * result.getRejections().forEach(System.out::println);
+ * }</pre>
+ */
+public class GroceryCsvImporter {
+  /** Number of rows handed to the fridge at once by default. */
+  public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+  /** Number of rejected rows reported in detail, further rejections are only counted. */
+  static final int MAX_REPORTED_REJECTIONS = 1_000;
+
+  /** Column names of the optional header line. */
+  private static final String[] HEADER = {"name", "quantity", "unit", "pricePerUnit", "expiryDate"};
+
+  private final FridgeService fridgeService;
+  private final int chunkSize;
+
+  public GroceryCsvImporter(FridgeService fridgeService) {
+    this(fridgeService, DEFAULT_CHUNK_SIZE);
+  }
+
+  public GroceryCsvImporter(FridgeService fridgeService, int chunkSize) {
+    if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive");
+    this.fridgeService = fridgeService;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Imports the groceries of a CSV file encoded in UTF-8.
+   *
+   * @param file the file to import
+   * @return the outcome of the import
+   * @throws IOException if the file cannot be read
+   */
+  public Result importFrom(Path file) throws IOException {
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return importFrom(reader);
+    }
+  }
+
+  /**
+   * Imports the groceries read from the given reader. The reader is not closed.
+   *
+   * @param reader the CSV source
+   * @return the outcome of the import
+   * @throws IOException if reading fails
+   */
+  public Result importFrom(Reader reader) throws IOException {
+    BufferedReader lines =
+        reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    Result result = new Result();
+    List<Grocery> chunk = new ArrayList<>(Math.min(chunkSize, DEFAULT_CHUNK_SIZE));
+    long lineNumber = 0;
+    String line;
+    while ((line = lines.readLine()) != null) {
+      lineNumber++;
+      if (line.isBlank() || (lineNumber == 1 && isHeader(line))) continue;
+      try {
+        chunk.add(parse(line));
+      } catch (IllegalArgumentException | DateTimeParseException e) {
+        result.reject(new RejectedRow(lineNumber, line, e.getMessage()));
+        continue;
+      }
+      if (chunk.size() == chunkSize) {
+        flush(chunk, result);
+      }
+    }
+    flush(chunk, result);
+    return result;
+  }
+
+  private void flush(List<Grocery> chunk, Result result) {
+    if (chunk.isEmpty()) return;
+    fridgeService.addGroceries(chunk);
+    result.importedRows += chunk.size();
+    chunk.clear();
+  }
+
+  private static boolean isHeader(String line) {
+    String[] fields = line.split(",", -1);
+    if (fields.length != HEADER.length) return false;
+    for (int i = 0; i < HEADER.length; i++) {
+      if (!fields[i].trim().equalsIgnoreCase(HEADER[i])) return false;
+    }
+    return true;
+  }
+
+  private static Grocery parse(String line) {
+    String[] fields = line.split(",", -1);
+    if (fields.length != HEADER.length) {
+      throw new IllegalArgumentException(
+          "Expected " + HEADER.length + " columns but found " + fields.length);
+    }
+    // NumberFormatException is an IllegalArgumentException
+    double quantity = Double.parseDouble(fields[1].trim());
+    double pricePerUnit = Double.parseDouble(fields[3].trim());
+    LocalDate expiryDate = LocalDate.parse(fields[4].trim());
+    return new Grocery(fields[0].trim(), quantity, fields[2].trim(), pricePerUnit, expiryDate);
+  }
+
+  /** Outcome of an import. */
+  @Getter
+  public static class Result {
+    /** Number of rows stored in the fridge. */
+    private long importedRows;
+
+    /** Number of rows which were rejected. */
+    private long rejectedRows;
+
+    /** The first {@value GroceryCsvImporter#MAX_REPORTED_REJECTIONS} rejected rows. */
+    private final List<RejectedRow> rejections = new ArrayList<>();
+
+    private void reject(RejectedRow rejection) {
+      rejectedRows++;
+      if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+        rejections.add(rejection);
+      }
+    }
+
+    public List<RejectedRow> getRejections() {
+      return Collections.unmodifiableList(rejections);
+    }
+  }
+
+  /**
+   * A row which could not be imported.
+   *
+   * @param lineNumber the line number within the file, starting at 1
+   * @param line the content of the line
+   * @param reason why the row was rejected
+   */
+  public record RejectedRow(long lineNumber, String line, String reason) {}
+}
@@ -0,0 +1,43 @@
+package com.inhouse.food.management.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one {@link FridgeService#removeGrocery(String, double)}. The duration
+ * includes waiting for the lock of the grocery and notifying the inventory listeners.
+ *
+ * <p>Disabled unless a recording enables it, e.g. with the settings {@code
+ * jfr/food-management.jfc}; while disabled it is never filled in or committed.
+ */
+@Name(GroceryRemovedEvent.NAME)
+@Label("Grocery Removed")
+@Category({"Food Management", "Inventory"})
+@Description("Grocery removed from a fridge, earliest expiring lots first")
+@Enabled(false)
+@StackTrace(false)
+final class GroceryRemovedEvent extends Event {
+  static final String NAME = "com.inhouse.food.management.GroceryRemoved";
+
+  @Label("Name")
+  String name;
+
+  @Label("Quantity")
+  double quantity;
+
+  @Label("Removed")
+  @Description("Whether enough was stored to remove the quantity")
+  boolean removed;
+
+  @Label("Lots Visited")
+  int lotsVisited;
+
+  @Label("Lots Consumed")
+  @Description("Lots used up and removed from the fridge")
+  int lotsConsumed;
+}
@@ -1,10 +1,35 @@
 package com.inhouse.food.management.service;
 
 import com.inhouse.food.management.model.Grocery;
-import java.time.LocalDate;
 
 public class GroceryService {
 
+  private final ExpiryClock expiryClock;
+
+  /** Creates a grocery service evaluating expiry against the system clock. */
+  public GroceryService() {
+    this(ExpiryClock.system());
+  }
+
+  /**
+   * Creates a grocery service evaluating expiry against the given clock.
+   *
+   * @param expiryClock the clock providing the current day
+   */
+  public GroceryService(ExpiryClock expiryClock) {
+    this.expiryClock = expiryClock;
+  }
+
+  /**
+   * Returns the current day of the expiry clock. Scans over many groceries read it once and pass
+   * it to {@link #isExpired(Grocery, int)}, so they are consistent across midnight.
+   *
+   * @return the current day as epoch day
+   */
+  public int today() {
+    return expiryClock.today();
+  }
+
   // Utility
   /**
    * Checks if the given grocery item is expired.
@@ -13,13 +38,23 @@ public class GroceryService {
    * @return {@code true} if the grocery item is expired, {@code false} otherwise
    * @example
    *     <pre>
-   * Grocery grocery = new Grocery();
-   * grocery.setExpiryDate(LocalDate.of(2023, 10, 1));
+   * Grocery grocery = new Grocery("Milk", 1, "liters", 15, LocalDate.of(2023, 10, 1));
    * boolean expired = groceryService.isExpired(grocery);
    * </pre>
    */
   public boolean isExpired(Grocery grocery) {
-    return LocalDate.now().isAfter(grocery.getExpiryDate());
+    return isExpired(grocery, today());
+  }
+
+  /**
+   * Checks if the given grocery item is expired on the given day.
+   *
+   * @param grocery the grocery item to check
+   * @param today the day to evaluate expiry against, as epoch day
+   * @return {@code true} if the grocery item expired before {@code today}, {@code false} otherwise
+   */
+  public boolean isExpired(Grocery grocery, int today) {
+    return grocery.getExpiryDay() < today;
   }
 
   /**
@@ -29,9 +64,7 @@ public class GroceryService {
    * @return the total value of the grocery item
    * @example
    *     <pre>
-   * Grocery grocery = new Grocery();
-   * grocery.setQuantity(10);
-   * grocery.setPricePerUnit(2.5);
+   * Grocery grocery = new Grocery("Apple", 10, "kg", 2.5, LocalDate.of(2023, 10, 1));
    * double value = groceryService.calculateValue(grocery);
    * </pre>
    */
@@ -47,17 +80,8 @@ public class GroceryService {
    * @return {@code true} if the two grocery items can be clubbed together, {@code false} otherwise
    * @example
    *     <pre>
-   * Grocery grocery1 = new Grocery();
-   * grocery1.setName("Apple");
-   * grocery1.setUnit("kg");
-   * grocery1.setPricePerUnit(3.0);
-   * grocery1.setExpiryDate(LocalDate.of(2023, 10, 1));
-   *
-   * Grocery grocery2 = new Grocery();
-   * grocery2.setName("Apple");
-   * grocery2.setUnit("kg");
-   * grocery2.setPricePerUnit(3.0);
-   * grocery2.setExpiryDate(LocalDate.of(2023, 10, 1));
+   * Grocery grocery1 = new Grocery("Apple", 1, "kg", 3.0, LocalDate.of(2023, 10, 1));
+   * Grocery grocery2 = new Grocery("Apple", 2, "kg", 3.0, LocalDate.of(2023, 10, 1));
    *
    * boolean clubbable = groceryService.areGroceriesClubbable(grocery1, grocery2);
    * </pre>
@@ -66,6 +90,6 @@ public class GroceryService {
     return existingGrocery.getName().equals(newlyAddedGrocery.getName())
         && existingGrocery.getUnit().equals(newlyAddedGrocery.getUnit())
         && existingGrocery.getPricePerUnit() == newlyAddedGrocery.getPricePerUnit()
-        && existingGrocery.getExpiryDate().isEqual(newlyAddedGrocery.getExpiryDate());
+        && existingGrocery.getExpiryDay() == newlyAddedGrocery.getExpiryDay();
   }
 }
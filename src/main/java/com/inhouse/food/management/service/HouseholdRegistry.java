@@ -0,0 +1,242 @@
+package com.inhouse.food.management.service;
+
+import com.inhouse.food.management.model.FoodStorage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Registry of the households served by one application, each with a fridge of its own and all
+ * sharing one cookbook.
+ *
+ * <p>The fridge of a household is created on first use with its own {@link FoodStorage}, so
+ * households never see nor lock each other's groceries. All fridges evaluate expiry against one
+ * {@link GroceryService}, and all households cook from one {@link RecipeService}, whose cookbook is
+ * read far more often than it is changed.
+ *
+ * <p>Households are partitioned across shards, by default one per processor. Every shard owns the
+ * households hashed to it and runs their work on a single thread of its own, so the groceries of a
+ * household stay in the caches of the core that thread last ran on and work of different
+ * households of one shard never contends. Java offers no control over which core a thread runs on,
+ * so shards are affine to their thread rather than pinned to a core. Reports across households,
+ * like {@link #calculateTotalValueOfExpiredGroceries()}, run on all shards in parallel, each shard
+ * summing up its own households. Such reports wait for every shard, so they must not be made from
+ * work submitted to a shard, which would wait for its own thread.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * try (HouseholdRegistry registry = new HouseholdRegistry()) {
+ *   registry.submit("smith", fridge -> { fridge.addGrocery(milk); return null; }).join();
+ *   double wasted = registry.calculateTotalValueOfExpiredGroceries();
+ * }
+ * }</pre>
+ */
+public class HouseholdRegistry implements AutoCloseable {
+  private final GroceryService groceryService;
+  private final RecipeService recipeService;
+  private final Shard[] shards;
+
+  /** Creates a registry with one shard per processor, using the system expiry clock. */
+  public HouseholdRegistry() {
+    this(Runtime.getRuntime().availableProcessors(), new GroceryService());
+  }
+
+  private HouseholdRegistry(int shardCount, GroceryService groceryService) {
+    this(shardCount, groceryService, new RecipeService(groceryService));
+  }
+
+  /**
+   * Creates a registry.
+   *
+   * @param shardCount the number of shards, each running on a thread of its own
+   * @param groceryService the grocery service expiry of all households is evaluated with
+   * @param recipeService the cookbook shared by all households, which should evaluate expiry with
+   *     the same grocery service
+   * @throws IllegalArgumentException if the number of shards is not positive
+   */
+  public HouseholdRegistry(
+      int shardCount, GroceryService groceryService, RecipeService recipeService) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+    }
+    this.groceryService = groceryService;
+    this.recipeService = recipeService;
+    shards = new Shard[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new Shard(i);
+    }
+  }
+
+  /**
+   * Returns the cookbook shared by all households.
+   *
+   * @return the recipe service
+   */
+  public RecipeService getRecipeService() {
+    return recipeService;
+  }
+
+  /**
+   * Returns the fridge of a household, creating an empty one on first use. The fridge is safe for
+   * use from any thread, but work submitted with {@link #submit(String, Function)} runs on the
+   * thread of the household's shard and does not contend with other households.
+   *
+   * @param householdId the id of the household
+   * @return the fridge of the household
+   */
+  public FridgeService getFridge(String householdId) {
+    return shardOf(householdId).fridgeOf(householdId);
+  }
+
+  /**
+   * Runs work on the fridge of a household, on the thread of the shard the household belongs to.
+   * Work of one household runs in the order it was submitted. The work must not wait for other
+   * work of the registry, which may be queued behind it on the same thread.
+   *
+   * @param householdId the id of the household
+   * @param work the work to run with the fridge of the household
+   * @param <T> the type of the result of the work
+   * @return the result of the work, completed exceptionally if the work failed
+   */
+  public <T> CompletableFuture<T> submit(String householdId, Function<FridgeService, T> work) {
+    Shard shard = shardOf(householdId);
+    return CompletableFuture.supplyAsync(
+        () -> work.apply(shard.fridgeOf(householdId)), shard.executor);
+  }
+
+  /**
+   * Removes a household and its fridge once the work submitted for it so far is done. Work
+   * submitted for the household afterwards starts over with an empty fridge.
+   *
+   * @param householdId the id of the household
+   * @return the removed fridge, {@code null} if the household had none
+   */
+  public CompletableFuture<FridgeService> removeHousehold(String householdId) {
+    Shard shard = shardOf(householdId);
+    return CompletableFuture.supplyAsync(() -> shard.fridges.remove(householdId), shard.executor);
+  }
+
+  /**
+   * Returns the number of households which have a fridge.
+   *
+   * @return the number of households
+   */
+  public int getHouseholdCount() {
+    int count = 0;
+    for (Shard shard : shards) {
+      count += shard.fridges.size();
+    }
+    return count;
+  }
+
+  /**
+   * Calculates the value of the expired groceries of all households, the food wasted across the
+   * registry.
+   *
+   * @return the total value of all expired grocery items of all households
+   */
+  public double calculateTotalValueOfExpiredGroceries() {
+    return sum(FridgeService::calculateTotalValueOfExpiredGroceries);
+  }
+
+  /**
+   * Calculates the value of the groceries of all households.
+   *
+   * @return the total value of all grocery items of all households
+   */
+  public double calculateTotalValue() {
+    return sum(FridgeService::calculateTotalValue);
+  }
+
+  /**
+   * Sums a figure over the fridges of all households. Every shard sums its own households on its
+   * own thread, all shards in parallel.
+   *
+   * @param figure the figure of one fridge
+   * @return the sum of the figure over all fridges
+   * @throws IllegalStateException if called from work running on a shard, which would wait for
+   *     its own thread forever
+   */
+  public double sum(ToDoubleFunction<FridgeService> figure) {
+    for (Shard shard : shards) {
+      if (shard.thread == Thread.currentThread()) {
+        throw new IllegalStateException("Cannot sum over households from work of a household");
+      }
+    }
+    List<CompletableFuture<Double>> partialSums = new ArrayList<>(shards.length);
+    for (Shard shard : shards) {
+      partialSums.add(CompletableFuture.supplyAsync(() -> shard.sum(figure), shard.executor));
+    }
+    double sum = 0;
+    try {
+      for (CompletableFuture<Double> partialSum : partialSums) {
+        sum += partialSum.join();
+      }
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) throw cause;
+      throw e;
+    }
+    return sum;
+  }
+
+  /** Stops the threads of all shards once the work submitted so far is done. */
+  @Override
+  public void close() {
+    for (Shard shard : shards) {
+      shard.executor.shutdown();
+    }
+    try {
+      for (Shard shard : shards) {
+        shard.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private Shard shardOf(String householdId) {
+    // spread the hash like HashMap does, ids often differ in their last characters only
+    int hash = householdId.hashCode();
+    return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+  }
+
+  /** Households hashed to one shard and the thread their work runs on. */
+  private final class Shard {
+    private final Map<String, FridgeService> fridges = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    /** The thread of the shard, {@code null} until the first work is run. */
+    private volatile Thread thread;
+
+    private Shard(int index) {
+      executor =
+          Executors.newSingleThreadExecutor(
+              task -> {
+                thread = new Thread(task, "household-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+
+    private FridgeService fridgeOf(String householdId) {
+      return fridges.computeIfAbsent(
+          householdId, id -> new FridgeService(new FoodStorage(), groceryService));
+    }
+
+    private double sum(ToDoubleFunction<FridgeService> figure) {
+      double sum = 0;
+      for (FridgeService fridge : fridges.values()) {
+        sum += figure.applyAsDouble(fridge);
+      }
+      return sum;
+    }
+  }
+}
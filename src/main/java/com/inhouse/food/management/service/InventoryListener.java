@@ -0,0 +1,57 @@
+package com.inhouse.food.management.service;
+
+import com.inhouse.food.management.model.Grocery;
+
+/**
+ * Listener notified by {@link FridgeService} after the stored quantity of a grocery changed.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * fridgeService.addInventoryListener(
+ *     new InventoryListener() {
+ *       public void groceryAdded(Grocery grocery) {
+ *         System.out.println("Added " + grocery);
+ *       }
+ *
+ *       public void groceryRemoved(String name, double quantity) {
+ *         System.out.println("Removed " + quantity + " of " + name);
+ *       }
+ *     });
+ * }</pre>
+ */
+public interface InventoryListener {
+
+  /**
+   * Called after a grocery was added to the fridge, either as a new lot or clubbed into an existing
+   * one.
+   *
+   * @param grocery the grocery which was added
+   */
+  void groceryAdded(Grocery grocery);
+
+  /**
+   * Called after a quantity of a grocery was successfully removed from the fridge.
+   *
+   * @param name the name of the grocery
+   * @param quantity the quantity which was removed
+   */
+  void groceryRemoved(String name, double quantity);
+
+  /**
+   * Called after a new lot was stored, before {@link #groceryAdded(Grocery)} is called for the
+   * grocery it was stored for. Groceries clubbed into an existing lot store no new lot. The lot is
+   * the stored instance, which stays the same until the lot is removed.
+   *
+   * @param lot the stored lot
+   */
+  default void lotStored(Grocery lot) {}
+
+  /**
+   * Called after a lot was used up completely and removed, before {@link #groceryRemoved(String,
+   * double)} is called for the removal which used it up.
+   *
+   * @param lot the removed lot, the instance earlier passed to {@link #lotStored(Grocery)}
+   */
+  default void lotRemoved(Grocery lot) {}
+}
@@ -0,0 +1,44 @@
+package com.inhouse.food.management.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of one evaluation of the cookbook by {@link
+ * RecipeService#getPossibleRecipes(java.util.List, String)}. The duration includes waiting for the
+ * monitor of the cookbook.
+ *
+ * <p>Disabled unless a recording enables it, e.g. with the settings {@code
+ * jfr/food-management.jfc}; while disabled it is never filled in or committed.
+ */
+@Name(PossibleRecipesEvent.NAME)
+@Label("Possible Recipes")
+@Category({"Food Management", "Recipes"})
+@Description("Evaluation of the cookbook against the groceries of a fridge")
+@Enabled(false)
+final class PossibleRecipesEvent extends Event {
+  static final String NAME = "com.inhouse.food.management.PossibleRecipes";
+
+  @Label("Groceries")
+  @Description("Number of lots passed in")
+  int groceries;
+
+  @Label("Include Expired")
+  boolean includeExpired;
+
+  @Label("Recipes Scanned")
+  @Description("Recipes using an available ingredient, found through the ingredient index")
+  int recipesScanned;
+
+  @Label("Ingredients Checked")
+  @Description("Ingredients compared against the available quantities, up to the first missing")
+  long ingredientsChecked;
+
+  @Label("Matches")
+  @Description("Recipes which can be made, those without ingredients included")
+  int matches;
+}
@@ -1,23 +1,52 @@
 package com.inhouse.food.management.service;
 
 import com.inhouse.food.management.model.Cookbook;
+import com.inhouse.food.management.model.ExpiryPressure;
 import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.IngredientDictionary;
 import com.inhouse.food.management.model.Recipe;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import lombok.NoArgsConstructor;
 
 /**
  * The RecipeService class provides methods to manage and interact with recipes, including adding
  * recipes, retrieving all recipes, and filtering recipes based on available grocery items.
+ *
+ * <p>Saved recipes are indexed by their id, so they can be found, updated and removed by id in
+ * time proportional to the number of their ingredients, however many recipes are saved. New ids
+ * are handed out by {@link #nextRecipeId()}, which never returns an id twice, even to concurrent
+ * callers, and always returns ids above those of the saved recipes.
  */
 @NoArgsConstructor
 public class RecipeService {
+  /** Minimum size of the cookbook evaluated in parallel. */
+  static final int PARALLEL_THRESHOLD = 20_000;
+
+  /** Minimum number of recipes evaluated by one task of the parallel evaluation. */
+  static final int MIN_CHUNK_SIZE = 2_048;
+
+  /** Number of chunks per worker of the parallel evaluation, to balance chunks of uneven cost. */
+  private static final int CHUNKS_PER_WORKER = 4;
+
   private Cookbook cookbookForRecipes = new Cookbook();
+  /** The list handed out by {@link #getRecipes()}, {@code null} once the cookbook changed. */
+  private List<Recipe> recipeList;
   private GroceryService groceryService = new GroceryService();
+  private volatile CookableRecipeTracker cookableRecipes;
+  private final AtomicInteger lastRecipeId = new AtomicInteger();
 
   public RecipeService(GroceryService mockGroceryService) {
     groceryService = mockGroceryService;
@@ -27,6 +56,7 @@ public class RecipeService {
    * Adds a new recipe to the list of recipes.
    *
    * @param recipe the recipe to be added
+   * @throws IllegalArgumentException if a recipe with the same id is already saved
    *     <p>Example usage:
    *     <pre>
    *     Recipe newRecipe = new Recipe("Pasta", ingredientsMap);
@@ -34,26 +64,199 @@ public class RecipeService {
    * </pre>
    */
   public void addRecipe(Recipe recipe) {
-    cookbookForRecipes.getRecipes().add(recipe);
+    loadIngredientsOf(recipe.getIngredients());
+    synchronized (cookbookForRecipes) {
+      cookbookForRecipes.addRecipe(recipe);
+      recipeList = null;
+      if (recipe.getId() != null) {
+        lastRecipeId.accumulateAndGet(recipe.getId(), Math::max);
+      }
+      if (cookableRecipes != null) {
+        cookableRecipes.recipeChanged(recipe);
+      }
+    }
+  }
+
+  /**
+   * Allocates an id for a new recipe.
+   *
+   * @return an id no saved recipe has and no earlier call returned
+   *     <p>Example usage:
+   *     <pre>
+   *     recipeService.addRecipe(new Recipe(recipeService.nextRecipeId(), "Pasta", ...));
+   * </pre>
+   */
+  public int nextRecipeId() {
+    return lastRecipeId.incrementAndGet();
+  }
+
+  /**
+   * Returns the saved recipe with the given id.
+   *
+   * @param id the id of the recipe
+   * @return the recipe, or {@code null} if no recipe with this id is saved
+   */
+  public Recipe findById(int id) {
+    synchronized (cookbookForRecipes) {
+      return cookbookForRecipes.getRecipeById(id);
+    }
+  }
+
+  /**
+   * Replaces the name, description, procedure, serves and ingredients of the saved recipe with the
+   * given id by those of another recipe. The saved recipe keeps its id and its place in the
+   * cookbook.
+   *
+   * @param id the id of the recipe to be modified
+   * @param recipe the recipe to copy the new contents from
+   * @return {@code true} if the recipe was updated, {@code false} if no recipe with this id is
+   *     saved
+   */
+  public boolean updateById(int id, Recipe recipe) {
+    loadIngredientsOf(recipe.getIngredients());
+    synchronized (cookbookForRecipes) {
+      Recipe saved = cookbookForRecipes.getRecipeById(id);
+      if (saved == null) return false;
+      saved.setName(recipe.getName());
+      saved.setDescription(recipe.getDescription());
+      saved.setProcedure(recipe.getProcedure());
+      saved.setServes(recipe.getServes());
+      cookbookForRecipes.updateIngredients(saved, recipe.getIngredients());
+      if (cookableRecipes != null) {
+        cookableRecipes.recipeChanged(saved);
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Removes the saved recipe with the given id.
+   *
+   * @param id the id of the recipe
+   * @return the removed recipe, or {@code null} if no recipe with this id is saved
+   */
+  public Recipe removeById(int id) {
+    synchronized (cookbookForRecipes) {
+      Recipe saved = cookbookForRecipes.getRecipeById(id);
+      if (saved == null) return null;
+      cookbookForRecipes.removeRecipe(saved);
+      recipeList = null;
+      if (cookableRecipes != null) {
+        cookableRecipes.recipeRemoved(saved);
+      }
+      return saved;
+    }
+  }
+
+  /**
+   * Replaces the ingredients of a saved recipe, keeping the ingredient index of the cookbook in
+   * sync. Ingredients of saved recipes must not be changed in any other way.
+   *
+   * @param recipe the saved recipe to be modified
+   * @param ingredients the new ingredients, ingredient name to required quantity
+   */
+  public void updateIngredients(Recipe recipe, Map<String, Double> ingredients) {
+    loadIngredientsOf(ingredients);
+    synchronized (cookbookForRecipes) {
+      cookbookForRecipes.updateIngredients(recipe, ingredients);
+      if (cookableRecipes != null) {
+        cookableRecipes.recipeChanged(recipe);
+      }
+    }
+  }
+
+  /** Lets the tracker read the fridge for ingredients new to it, before the monitor is taken. */
+  private void loadIngredientsOf(Map<String, Double> ingredients) {
+    CookableRecipeTracker tracker = cookableRecipes;
+    if (tracker != null) {
+      tracker.loadIngredients(ingredients);
+    }
+  }
+
+  /**
+   * Starts tracking the groceries of the given fridge. From then on the recipes which can be made
+   * are kept up to date on every change of the fridge and of the cookbook, and can be read through
+   * {@link #getCookableRecipes(String)} without evaluating the cookbook.
+   *
+   * @param fridgeService the fridge whose groceries are used for cooking
+   *     <p>Example usage:
+   *     <pre>
+   *     recipeService.trackInventory(fridgeService);
+   *     List&lt;Recipe&gt; cookable = recipeService.getCookableRecipes("n");
+   * </pre>
+   */
+  public void trackInventory(FridgeService fridgeService) {
+    CookableRecipeTracker tracker = new CookableRecipeTracker(cookbookForRecipes, fridgeService);
+    fridgeService.addInventoryListener(tracker);
+    tracker.initialize();
+    synchronized (cookbookForRecipes) {
+      tracker.recheckAll();
+      cookableRecipes = tracker;
+    }
+  }
+
+  /**
+   * Returns the recipes which can be made with the groceries of the tracked fridge, in cookbook
+   * order.
+   *
+   * @param includeExpiredGrocery whether to include expired groceries ("y" for yes, otherwise no)
+   * @return the list of possible recipes that can be made
+   * @throws IllegalStateException if no fridge is tracked, see {@link
+   *     #trackInventory(FridgeService)}
+   */
+  public List<Recipe> getCookableRecipes(String includeExpiredGrocery) {
+    CookableRecipeTracker tracker = cookableRecipes;
+    if (tracker == null) {
+      throw new IllegalStateException("No fridge inventory is tracked");
+    }
+    return tracker.getCookableRecipes(includeExpiredGrocery.equalsIgnoreCase("y"));
   }
 
   /**
-   * Returns the list of all recipes.
+   * Returns the list of all recipes, copied under the monitor of the cookbook so it may be iterated
+   * while other threads change the cookbook. The copy is made once after every recipe added or
+   * removed and handed to all callers until the next one, so repeated calls while the cookbook does
+   * not change cost nothing.
    *
-   * @return the list of recipes
+   * @return an unmodifiable list of the recipes in cookbook order
    *     <p>Example usage:
    *     <pre>
    *     List&lt;Recipe&gt; allRecipes = recipeService.getRecipes();
    * </pre>
    */
   public List<Recipe> getRecipes() {
-    return cookbookForRecipes.getRecipes();
+    return copyOfRecipes();
+  }
+
+  private List<Recipe> copyOfRecipes() {
+    synchronized (cookbookForRecipes) {
+      if (recipeList == null) {
+        recipeList = List.copyOf(cookbookForRecipes.getRecipes());
+      }
+      return recipeList;
+    }
+  }
+
+  /**
+   * Returns the number of saved recipes.
+   *
+   * @return the size of the cookbook
+   */
+  public int getRecipeCount() {
+    synchronized (cookbookForRecipes) {
+      return cookbookForRecipes.getRecipes().size();
+    }
   }
 
   /**
    * Returns a list of possible recipes that can be made with the given fridge items. This method
    * filters the recipes based on whether expired groceries should be included.
    *
+   * <p>Only recipes sharing at least one ingredient with the fridge are visited, found through the
+   * ingredient index of the cookbook, and each of them is rejected on its first missing ingredient.
+   * The result is in cookbook order. Every call emits the Flight Recorder event {@code
+   * com.inhouse.food.management.PossibleRecipes} if a recording enables it.
+   *
    * @param fridgeItems the list of groceries available in the fridge
    * @param includeExpiredGrocery whether to include expired groceries ("y" for yes, otherwise no)
    * @return the list of possible recipes that can be made
@@ -64,33 +267,372 @@ public class RecipeService {
    * </pre>
    */
   public List<Recipe> getPossibleRecipes(List<Grocery> fridgeItems, String includeExpiredGrocery) {
+    PossibleRecipesEvent event = new PossibleRecipesEvent();
+    event.begin();
+    boolean recording = event.isEnabled();
+    List<String> availableIngredients = new ArrayList<>();
+    double[] availableQuantities =
+        availableQuantities(fridgeItems, includeExpiredGrocery, availableIngredients);
+
+    List<Recipe> possibleRecipes;
+    Set<Recipe> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    long ingredientsChecked = 0;
+    synchronized (cookbookForRecipes) {
+      possibleRecipes = new ArrayList<>(cookbookForRecipes.getRecipesWithoutIngredients());
+      for (String ingredient : availableIngredients) {
+        for (Recipe recipe : cookbookForRecipes.getRecipesUsing(ingredient)) {
+          if (visited.add(recipe)) {
+            int missing = recipe.firstMissingIngredient(availableQuantities);
+            if (missing < 0) {
+              possibleRecipes.add(recipe);
+            }
+            if (recording) {
+              ingredientsChecked += missing < 0 ? recipe.getIngredientCount() : missing + 1;
+            }
+          }
+        }
+      }
+      cookbookForRecipes.sortInCookbookOrder(possibleRecipes);
+    }
+    if (event.shouldCommit()) {
+      event.groceries = fridgeItems.size();
+      event.includeExpired = includeExpiredGrocery.equalsIgnoreCase("y");
+      event.recipesScanned = visited.size();
+      event.ingredientsChecked = ingredientsChecked;
+      event.matches = possibleRecipes.size();
+      event.commit();
+    }
+    return possibleRecipes;
+  }
+
+  /**
+   * Returns the recipes which can be made with the usable groceries that save the most food from
+   * being wasted, ranked by their expiry pressure: the value of the groceries expiring within the
+   * given days that cooking them would use up, lots expiring earliest used up first. Recipes of
+   * equal pressure are ranked in cookbook order. Expired groceries are not used.
+   *
+   * <p>The possible recipes are found through the ingredient index of the cookbook like by {@link
+   * #getPossibleRecipes(List, String)}, and only the best {@code limit} of them are kept in a
+   * bounded heap while they are scored, so the possible recipes are never sorted as a whole.
+   *
+   * @param fridgeItems the list of groceries available in the fridge
+   * @param days the number of days from today within which groceries count as expiring soon
+   * @param limit the maximum number of recipes to return
+   * @return the recipes with the highest expiry pressure, highest first
+   * @throws IllegalArgumentException if days or limit are negative
+   *     <p>Example usage:
+   *     <pre>
+   *     List&lt;RankedRecipe&gt; suggestions =
+   *         recipeService.getRecipesByExpiryPressure(fridgeService.getAllGroceries(), 3, 5);
+   * </pre>
+   */
+  public List<RankedRecipe> getRecipesByExpiryPressure(
+      List<Grocery> fridgeItems, int days, int limit) {
+    if (days < 0 || limit < 0) {
+      throw new IllegalArgumentException("Days and limit must not be negative");
+    }
+    int today = groceryService.today();
+    List<Grocery> usableGroceries = new ArrayList<>();
+    for (Grocery grocery : fridgeItems) {
+      if (!groceryService.isExpired(grocery, today)) {
+        usableGroceries.add(grocery);
+      }
+    }
+    List<String> availableIngredients = new ArrayList<>();
+    double[] availableQuantities = availableQuantities(usableGroceries, "y", availableIngredients);
+    ExpiryPressure expiryPressure = new ExpiryPressure(usableGroceries, (long) today + days);
+
+    synchronized (cookbookForRecipes) {
+      Comparator<RankedRecipe> ranking =
+          Comparator.comparingDouble(RankedRecipe::expiryPressure)
+              .thenComparing(
+                  RankedRecipe::recipe, cookbookForRecipes.inCookbookOrder().reversed());
+      // the lowest ranked of the best recipes so far is at the head, to be replaced first
+      PriorityQueue<RankedRecipe> best = new PriorityQueue<>(ranking);
+      Set<Recipe> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+      Consumer<Recipe> rank =
+          recipe -> {
+            if (!visited.add(recipe) || !recipe.canBeMadeWith(availableQuantities)) return;
+            RankedRecipe ranked = new RankedRecipe(recipe, expiryPressure.of(recipe));
+            if (best.size() < limit) {
+              best.add(ranked);
+            } else if (limit > 0 && ranking.compare(ranked, best.peek()) > 0) {
+              best.poll();
+              best.add(ranked);
+            }
+          };
+      cookbookForRecipes.getRecipesWithoutIngredients().forEach(rank);
+      for (String ingredient : availableIngredients) {
+        cookbookForRecipes.getRecipesUsing(ingredient).forEach(rank);
+      }
+
+      RankedRecipe[] ranked = new RankedRecipe[best.size()];
+      for (int i = ranked.length - 1; i >= 0; i--) {
+        ranked[i] = best.poll();
+      }
+      return List.of(ranked);
+    }
+  }
+
+  /**
+   * Returns the recipes which cannot be made with the given fridge items but are missing at most
+   * the given number of ingredients, with the quantity of every ingredient they are short of. An
+   * ingredient is missing if it is not in stock or not in the required quantity.
+   *
+   * <p>The recipes closest to being possible come first: those missing fewer ingredients, then
+   * those short of a smaller share of their missing ingredients, summed over them, and then in
+   * cookbook order. The summed share may be bounded as well, an ingredient not in stock at all
+   * counts {@code 1}. Recipes which can be made are left to {@link #getPossibleRecipes(List,
+   * String)}.
+   *
+   * <p>Only the recipes using an ingredient in stock, found through the ingredient index, and the
+   * recipes with no more ingredients than may be missing are evaluated, so the cost is bound by
+   * them, not by the size of the cookbook. Recipes are matched on the ingredient id arrays.
+   *
+   * @param fridgeItems the list of groceries available in the fridge
+   * @param includeExpiredGrocery whether to include expired groceries ("y" for yes, otherwise no)
+   * @param maxMissingIngredients the maximum number of ingredients a recipe may be missing
+   * @param maxShortfall the maximum share of their required quantity the missing ingredients may be
+   *     short of, summed over them
+   * @return the recipes missing between one and the given number of ingredients, closest first
+   * @throws IllegalArgumentException if the maximum number of missing ingredients or the maximum
+   *     shortfall is negative
+   *     <p>Example usage:
+   *     <pre>
+   *     List&lt;NearMatch&gt; oneAway =
+   *         recipeService.getAlmostPossibleRecipes(fridgeService.getAllGroceries(), "n", 1, 1.0);
+   * </pre>
+   */
+  public List<NearMatch> getAlmostPossibleRecipes(
+      List<Grocery> fridgeItems,
+      String includeExpiredGrocery,
+      int maxMissingIngredients,
+      double maxShortfall) {
+    if (maxMissingIngredients < 0) {
+      throw new IllegalArgumentException(
+          "Maximum number of missing ingredients must not be negative: " + maxMissingIngredients);
+    }
+    if (!(maxShortfall >= 0)) {
+      throw new IllegalArgumentException("Maximum shortfall must not be negative: " + maxShortfall);
+    }
+    List<String> availableIngredients = new ArrayList<>();
+    double[] availableQuantities =
+        availableQuantities(fridgeItems, includeExpiredGrocery, availableIngredients);
+
+    synchronized (cookbookForRecipes) {
+      Set<Recipe> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (String ingredient : availableIngredients) {
+        candidates.addAll(cookbookForRecipes.getRecipesUsing(ingredient));
+      }
+      // recipes using nothing in stock qualify if all their ingredients may be missing
+      candidates.addAll(cookbookForRecipes.getRecipesWithAtMostIngredients(maxMissingIngredients));
+
+      List<NearMatch> nearMatches = new ArrayList<>();
+      Map<NearMatch, Double> shortShares = new IdentityHashMap<>();
+      for (Recipe recipe : candidates) {
+        int missing = recipe.countMissingIngredients(availableQuantities, maxMissingIngredients);
+        if (missing < 1 || missing > maxMissingIngredients) continue;
+        double shortShare = recipe.getShortfallShare(availableQuantities);
+        if (shortShare > maxShortfall) continue;
+        NearMatch nearMatch =
+            new NearMatch(
+                recipe, Collections.unmodifiableMap(recipe.getShortfall(availableQuantities)));
+        nearMatches.add(nearMatch);
+        shortShares.put(nearMatch, shortShare);
+      }
+      nearMatches.sort(
+          Comparator.comparingInt(NearMatch::getMissingIngredientCount)
+              .thenComparingDouble(shortShares::get)
+              .thenComparing(NearMatch::recipe, cookbookForRecipes.inCookbookOrder()));
+      return nearMatches;
+    }
+  }
+
+  /**
+   * Returns the same recipes as {@link #getPossibleRecipes(List, String)}, evaluating a large
+   * cookbook on all processors.
+   *
+   * <p>The cookbook is split into chunks of consecutive recipes, sized so that every worker of a
+   * dedicated fork/join pool gets several of them to balance uneven chunks, but at least {@value
+   * #MIN_CHUNK_SIZE} recipes each. All workers match against one snapshot of the available
+   * quantities, which is not changed once taken. The possible recipes of every chunk are
+   * concatenated in chunk order, so the result is in cookbook order without sorting. Cookbooks of
+   * fewer than {@value #PARALLEL_THRESHOLD} recipes, and any cookbook on a single processor, are
+   * evaluated sequentially by {@link #getPossibleRecipes(List, String)}.
+   *
+   * <p>The workers evaluate the list {@link #getRecipes()} returns, without holding the cookbook
+   * monitor, so saving recipes and tracking the fridge are not held up by the evaluation. Recipes
+   * saved meanwhile are not seen, recipes updated meanwhile are matched with either their old or
+   * their new ingredients.
+   *
+   * @param fridgeItems the list of groceries available in the fridge
+   * @param includeExpiredGrocery whether to include expired groceries ("y" for yes, otherwise no)
+   * @return the list of possible recipes that can be made
+   */
+  public List<Recipe> getPossibleRecipesInParallel(
+      List<Grocery> fridgeItems, String includeExpiredGrocery) {
+    return getPossibleRecipesInParallel(fridgeItems, includeExpiredGrocery, EvaluationPool.POOL);
+  }
+
+  /** Evaluates on the given pool, see {@link #getPossibleRecipesInParallel(List, String)}. */
+  List<Recipe> getPossibleRecipesInParallel(
+      List<Grocery> fridgeItems, String includeExpiredGrocery, ForkJoinPool pool) {
+    synchronized (cookbookForRecipes) {
+      if (cookbookForRecipes.getRecipes().size() < PARALLEL_THRESHOLD
+          || pool.getParallelism() == 1) {
+        return getPossibleRecipes(fridgeItems, includeExpiredGrocery);
+      }
+    }
+    List<Recipe> recipes = copyOfRecipes();
+    double[] availableQuantities =
+        availableQuantities(fridgeItems, includeExpiredGrocery, new ArrayList<>());
+
+    // evaluated without the monitor, so the cookbook and the tracker are not held up meanwhile;
+    // every recipe swaps its ingredients as a whole, so workers see either the old or the new ones
+    int chunkSize =
+        Math.max(MIN_CHUNK_SIZE, recipes.size() / (pool.getParallelism() * CHUNKS_PER_WORKER));
+    List<Recipe>[] possibleRecipesPerChunk =
+        pool.invoke(new PossibleRecipesTask(recipes, availableQuantities, chunkSize));
+    int count = 0;
+    for (List<Recipe> chunk : possibleRecipesPerChunk) {
+      count += chunk.size();
+    }
+    List<Recipe> possibleRecipes = new ArrayList<>(count);
+    for (List<Recipe> chunk : possibleRecipesPerChunk) {
+      possibleRecipes.addAll(chunk);
+    }
+    return possibleRecipes;
+  }
+
+  /**
+   * Sums the quantities of the groceries per ingredient id, see {@link
+   * IngredientDictionary#newQuantityVector()}, and collects the names of the ingredients present.
+   */
+  private double[] availableQuantities(
+      List<Grocery> fridgeItems, String includeExpiredGrocery, List<String> availableIngredients) {
+    boolean includeExpired = includeExpiredGrocery.equalsIgnoreCase("y");
+    int today = groceryService.today();
+    IngredientDictionary dictionary = IngredientDictionary.shared();
+    double[] availableQuantities = dictionary.newQuantityVector();
+    for (Grocery grocery : fridgeItems) {
+      if (includeExpired || !groceryService.isExpired(grocery, today)) {
+        int id = dictionary.find(grocery.getName());
+        if (id == IngredientDictionary.NO_ID || id >= availableQuantities.length) {
+          continue; // no recipe requires it
+        }
+        if (Double.isNaN(availableQuantities[id])) {
+          availableQuantities[id] = grocery.getQuantity();
+          availableIngredients.add(grocery.getName());
+        } else {
+          availableQuantities[id] += grocery.getQuantity();
+        }
+      }
+    }
+    return availableQuantities;
+  }
+
+  /**
+   * A recipe ranked by its expiry pressure.
+   *
+   * @param recipe the recipe
+   * @param expiryPressure the value of the groceries expiring soon the recipe uses up
+   */
+  public record RankedRecipe(Recipe recipe, double expiryPressure) {}
+
+  /**
+   * A recipe which is missing some ingredients.
+   *
+   * @param recipe the recipe
+   * @param shortfall the missing quantity of every ingredient the recipe is short of, by name
+   */
+  public record NearMatch(Recipe recipe, Map<String, Double> shortfall) {
+
+    /**
+     * Returns the number of ingredients the recipe is short of.
+     *
+     * @return the number of missing ingredients
+     */
+    public int getMissingIngredientCount() {
+      return shortfall.size();
+    }
+  }
+
+  /**
+   * Evaluates the chunks of a range of the cookbook, splitting the range in halves until it is a
+   * single chunk. The possible recipes of chunk {@code i} end up at index {@code i} of the result.
+   */
+  private static final class PossibleRecipesTask extends RecursiveTask<List<Recipe>[]> {
+    private final List<Recipe> recipes;
+    private final double[] availableQuantities;
+    private final int chunkSize;
+    private final List<Recipe>[] possibleRecipesPerChunk;
+    private final int fromChunk;
+    private final int toChunk;
+
+    @SuppressWarnings("unchecked")
+    private PossibleRecipesTask(List<Recipe> recipes, double[] availableQuantities, int chunkSize) {
+      this(
+          recipes,
+          availableQuantities,
+          chunkSize,
+          new List[(recipes.size() + chunkSize - 1) / chunkSize],
+          0,
+          (recipes.size() + chunkSize - 1) / chunkSize);
+    }
+
+    private PossibleRecipesTask(
+        List<Recipe> recipes,
+        double[] availableQuantities,
+        int chunkSize,
+        List<Recipe>[] possibleRecipesPerChunk,
+        int fromChunk,
+        int toChunk) {
+      this.recipes = recipes;
+      this.availableQuantities = availableQuantities;
+      this.chunkSize = chunkSize;
+      this.possibleRecipesPerChunk = possibleRecipesPerChunk;
+      this.fromChunk = fromChunk;
+      this.toChunk = toChunk;
+    }
+
+    @Override
+    protected List<Recipe>[] compute() {
+      if (toChunk - fromChunk > 1) {
+        int middle = (fromChunk + toChunk) >>> 1;
+        invokeAll(subtask(fromChunk, middle), subtask(middle, toChunk));
+      } else if (toChunk > fromChunk) {
+        int from = fromChunk * chunkSize;
+        int to = Math.min(from + chunkSize, recipes.size());
+        List<Recipe> possibleRecipes = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+          Recipe recipe = recipes.get(i);
+          if (recipe.canBeMadeWith(availableQuantities)) {
+            possibleRecipes.add(recipe);
+          }
+        }
+        possibleRecipesPerChunk[fromChunk] = possibleRecipes;
+      }
+      return possibleRecipesPerChunk;
+    }
+
+    private PossibleRecipesTask subtask(int fromChunk, int toChunk) {
+      return new PossibleRecipesTask(
+          recipes, availableQuantities, chunkSize, possibleRecipesPerChunk, fromChunk, toChunk);
+    }
+  }
 
-    Map<String, List<Grocery>> expiredItemsIncludedBasedOnFlag =
-        fridgeItems.stream()
-            .filter(
-                grocery -> {
-                  if (includeExpiredGrocery.equalsIgnoreCase("y")) {
-                    return true;
-                  } else {
-                    return !groceryService.isExpired(grocery);
-                  }
-                })
-            .collect(Collectors.groupingBy(Grocery::getName));
-
-    return cookbookForRecipes.getRecipes().stream()
-        .filter(
-            recipe ->
-                recipe.getIngredients().entrySet().stream()
-                    .allMatch(
-                        entry -> {
-                          List<Grocery> grocery =
-                              expiredItemsIncludedBasedOnFlag.get(entry.getKey());
-                          double availableQuantity =
-                              Optional.ofNullable(grocery).orElse(new ArrayList<>()).stream()
-                                  .mapToDouble(Grocery::getQuantity)
-                                  .sum();
-                          return grocery != null && availableQuantity >= entry.getValue();
-                        }))
-        .toList();
+  /** Pool of the parallel evaluation, created on first use. */
+  private static final class EvaluationPool {
+    private static final ForkJoinPool POOL =
+        new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            pool -> {
+              ForkJoinWorkerThread thread =
+                  ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+              thread.setName("recipe-evaluation-" + thread.getPoolIndex());
+              return thread;
+            },
+            null,
+            false);
   }
 }
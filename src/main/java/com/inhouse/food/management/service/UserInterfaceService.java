@@ -4,16 +4,23 @@ import static com.inhouse.food.management.FoodWasteApp.*;
 
 import com.inhouse.food.management.model.Grocery;
 import com.inhouse.food.management.model.Recipe;
+import com.inhouse.food.management.model.RecipeTableRenderer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
 import java.time.LocalDate;
 import java.util.*;
 
 public class UserInterfaceService {
+  private static final int RECIPES_PER_PAGE = 20;
+  private static final int MAX_RECIPE_COLUMN_WIDTH = 40;
+  private static final int NEAR_MATCHES_SHOWN = 5;
 
   /**
    * Initialize the application with sample groceries and recipes.
    *
-   * <p>This method adds sample grocery items to the fridge and sample recipes to the recipe book.
+   * <p>This method adds sample grocery items to the fridge, unless groceries were restored from a
+   * previous run, and sample recipes to the recipe book.
    *
    * <p>Example usage:
    *
@@ -22,20 +29,27 @@ public class UserInterfaceService {
    * }</pre>
    */
   public static void init() {
-    // Add some sample groceries to the fridge
-    fridgeService.addGrocery(new Grocery("Milk", 2, "liters", 15, LocalDate.now().plusDays(5)));
-    fridgeService.addGrocery(new Grocery("Eggs", 12, "pieces", 2, LocalDate.now().plusDays(10)));
-    fridgeService.addGrocery(new Grocery("Flour", 1, "kg", 20, LocalDate.now().plusMonths(6)));
+    // Keep the possible recipes up to date with the fridge
+    recipeService.trackInventory(fridgeService);
+
+    // Add some sample groceries to an empty fridge
+    if (fridgeService.getAllGroceries().isEmpty()) {
+      fridgeService.addGrocery(new Grocery("Milk", 2, "liters", 15, LocalDate.now().plusDays(5)));
+      fridgeService.addGrocery(new Grocery("Eggs", 12, "pieces", 2, LocalDate.now().plusDays(10)));
+      fridgeService.addGrocery(new Grocery("Flour", 1, "kg", 20, LocalDate.now().plusMonths(6)));
+    }
 
-    // Add some sample recipes to the cookbook
-    Map<String, Double> pancakeIngredients = Map.of("Milk", 1.5, "Eggs", 2.0, "Flour", 0.5);
-    recipeService.addRecipe(
-        new Recipe(1,
-            "Pancakes",
-            "Delicious breakfast",
-            "Mix and cook on a skillet.",
-            pancakeIngredients,
-            4));
+    // Add some sample recipes to an empty cookbook
+    if (recipeService.getRecipeCount() == 0) {
+      Map<String, Double> pancakeIngredients = Map.of("Milk", 1.5, "Eggs", 2.0, "Flour", 0.5);
+      recipeService.addRecipe(
+          new Recipe(1,
+              "Pancakes",
+              "Delicious breakfast",
+              "Mix and cook on a skillet.",
+              pancakeIngredients,
+              4));
+    }
   }
 
   /**
@@ -82,7 +96,7 @@ public class UserInterfaceService {
                   addRecipe(scanner);
                   break;
               case 8:
-                  viewAllRecipes();
+                  viewAllRecipes(scanner);
                   break;
               case 9:
                   viewPossibleRecipes(scanner);
@@ -91,6 +105,9 @@ public class UserInterfaceService {
                   modifySavedRecipes(scanner);
                   break;
               case 11:
+                  viewMetrics();
+                  break;
+              case 12:
                   System.out.println("Exiting application. Goodbye!");
                   exit = true;
                   break;
@@ -110,32 +127,44 @@ public class UserInterfaceService {
         throws IllegalAccessException, NoSuchFieldException {
 
         System.out.println("Below are the saved recipes in cookbook");
-        System.out.println(Recipe.toTable(recipeService.getRecipes()));
+        System.out.println(recipeTable(recipeService.getRecipes()));
         System.out.print("Enter recipe id to modify: ");
         int id = scanner.nextInt();
+        Recipe recipe = recipeService.findById(id);
+        if (recipe == null) {
+            System.out.println("No recipe found with id " + id);
+            return;
+        }
         System.out.println("Below is the recipe found: ");
-        List<Recipe> foundRecipe =
-            recipeService.getRecipes().stream().filter(recipe -> recipe.getId().equals(id))
-                .toList();
-        System.out.println(Recipe.toTable(foundRecipe));
+        List<Recipe> foundRecipe = List.of(recipe);
+        System.out.println(recipeTable(foundRecipe));
         updateTheContentsOfRecipe(scanner, foundRecipe);
         System.out.println("final cook book overview table post update: ");
-        System.out.println(Recipe.toTable(recipeService.getRecipes()));
+        System.out.println(recipeTable(recipeService.getRecipes()));
     }
 
     private static void updateTheContentsOfRecipe(Scanner scanner, List<Recipe> foundRecipe)
         throws NoSuchFieldException, IllegalAccessException {
+        // the fields are accessed directly below, load text kept in the cookbook snapshot first
+        foundRecipe.get(0).loadText();
         while(true) {
             System.out.print("Enter the column to be modified or done if no longer update required: ");
             String columnName = scanner.next();
             scanner.nextLine();
 
             if (!columnName.equalsIgnoreCase("done")) {
-                Field declaredField = Recipe.class.getDeclaredField(columnName.toLowerCase());
-                declaredField.setAccessible(true); // Make the field accessible
-
-                // Get its current value
-                Object currentValue = declaredField.get(foundRecipe.get(0));
+                Field declaredField = null;
+                Object currentValue;
+                if (columnName.equalsIgnoreCase("ingredients")) {
+                    // kept as ingredient ids, read through the map view
+                    currentValue = foundRecipe.get(0).getIngredients();
+                } else {
+                    declaredField = Recipe.class.getDeclaredField(columnName.toLowerCase());
+                    declaredField.setAccessible(true); // Make the field accessible
+
+                    // Get its current value
+                    currentValue = declaredField.get(foundRecipe.get(0));
+                }
 
                 // Print the field name and its current value
                 System.out.println("\nField Name: " + columnName);
@@ -165,12 +194,13 @@ public class UserInterfaceService {
                         newValue = scanner.nextLine();
                     }
                     // Update the field value based on its type
-                    if (declaredField.getType() == String.class) {
+                    if (ingredients != null) {
+                        // goes through the service to keep the ingredient index in sync
+                        recipeService.updateIngredients(foundRecipe.get(0), ingredients);
+                    } else if (declaredField.getType() == String.class) {
                         declaredField.set(foundRecipe.get(0), newValue);
                     } else if (declaredField.getType() == int.class) {
                         declaredField.set(foundRecipe.get(0), Integer.parseInt(newValue));
-                    } else if (declaredField.getType() == Map.class) {
-                        declaredField.set(foundRecipe.get(0), (HashMap) (ingredients));
                     }
                 }else{
                     break;
@@ -204,7 +234,8 @@ public class UserInterfaceService {
     System.out.println("8. View All Recipes");
     System.out.println("9. View Possible Recipes with Current Groceries");
     System.out.println("10. Modify Saved Recipes");
-    System.out.println("11. Exit");
+    System.out.println("11. View Metrics");
+    System.out.println("12. Exit");
   }
 
   /**
@@ -281,11 +312,11 @@ public class UserInterfaceService {
    */
   private static void viewAllGroceries() {
     System.out.println("\n--- All Groceries ---");
-    fridgeService.getAllGroceries().stream()
-        .sorted(Comparator.comparing(Grocery::getExpiryDate))
+    int today = groceryService.today();
+    fridgeService.getAllGroceriesInExpiryOrder()
         .forEach(
             x -> {
-              if (groceryService.isExpired(x)) {
+              if (groceryService.isExpired(x, today)) {
                 System.out.println(x + " (expired)");
               } else {
                 System.out.println(x);
@@ -386,32 +417,40 @@ public class UserInterfaceService {
     System.out.print("Serves (number of people): ");
     int serves = scanner.nextInt();
 
-    recipeService.addRecipe(new Recipe(recipeService.getRecipes().stream().mapToInt(Recipe::getId).max().orElse(0)+1,name, description, procedure, ingredients, serves));
+    recipeService.addRecipe(
+        new Recipe(
+            recipeService.nextRecipeId(), name, description, procedure, ingredients, serves));
     System.out.println("Recipe added successfully.");
   }
 
   /**
    * View all recipes in the recipe book.
    *
-   * <p>This method displays all recipes stored in the recipe book.
-   *
-   * <p>Example usage:
+   * <p>This method displays all recipes stored in the recipe book, page by page.
    *
-   * <pre>{@code
-   * FoodWasteApp.viewAllRecipes();
+   * @param scanner Scanner object for user input
+   *     <p>Example usage:
+   *     <pre>{@code
+   * Scanner scanner = new Scanner(System.in);
+   * FoodWasteApp.viewAllRecipes(scanner);
    * }</pre>
    */
-  private static void viewAllRecipes() {
+  private static void viewAllRecipes(Scanner scanner) {
     System.out.println("\n--- All Recipes ---");
-    Recipe.toTable(recipeService.getRecipes());
-   // recipeService.getRecipes().forEach(System.out::println);
+    List<Recipe> recipes = recipeService.getRecipes();
+    if (recipes.isEmpty()) {
+      System.out.println(recipeTable(recipes));
+    } else {
+      printRecipePages(scanner, recipes);
+    }
   }
 
   /**
    * View all possible recipes that can be made with current groceries.
    *
    * <p>This method prompts the user to indicate whether to include expired groceries and displays
-   * recipes that can be made with the groceries available in the fridge.
+   * recipes that can be made with the groceries available in the fridge, followed by the closest
+   * {@value #NEAR_MATCHES_SHOWN} recipes a single ingredient is missing for.
    *
    * @param scanner Scanner object for user input
    *     <p>Example usage:
@@ -425,13 +464,73 @@ public class UserInterfaceService {
     String includeExpiredGrocery = scanner.nextLine();
 
     System.out.println("\n--- Possible Recipes with Current Groceries ---");
-    List<Recipe> possibleRecipes =
-        recipeService.getPossibleRecipes(fridgeService.getAllGroceries(), includeExpiredGrocery);
+    List<Recipe> possibleRecipes = recipeService.getCookableRecipes(includeExpiredGrocery);
     if (possibleRecipes.isEmpty()) {
       System.out.println("No recipes can be made with the current groceries.");
     } else {
-        Recipe.toTable(possibleRecipes);
-      //possibleRecipes.forEach(System.out::println);
+      printRecipePages(scanner, possibleRecipes);
     }
+
+    List<RecipeService.NearMatch> nearMatches =
+        recipeService.getAlmostPossibleRecipes(
+            fridgeService.getAllGroceries(), includeExpiredGrocery, 1, 1.0);
+    if (!nearMatches.isEmpty()) {
+      System.out.println("\n--- One Ingredient Away ---");
+      int shown = Math.min(NEAR_MATCHES_SHOWN, nearMatches.size());
+      for (RecipeService.NearMatch nearMatch : nearMatches.subList(0, shown)) {
+        System.out.println(nearMatch.recipe().getName() + ": short of " + nearMatch.shortfall());
+      }
+    }
+  }
+
+  /**
+   * Prints recipes as a table of {@value #RECIPES_PER_PAGE} recipes per page, asking before each
+   * further page. Long cells are cut off so rows fit a terminal.
+   *
+   * @param scanner Scanner object for user input
+   * @param recipes the recipes to print
+   */
+  private static void printRecipePages(Scanner scanner, List<Recipe> recipes) {
+    RecipeTableRenderer renderer =
+        new RecipeTableRenderer(MAX_RECIPE_COLUMN_WIDTH, RECIPES_PER_PAGE);
+    int pages = renderer.getPageCount(recipes);
+    for (int page = 0; page < pages; page++) {
+      if (page > 0) {
+        System.out.print("Press Enter for page " + (page + 1) + " of " + pages + " or q to stop: ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+          return;
+        }
+      }
+      int shownPage = page;
+      metrics
+          .operation("recipe.renderPage")
+          .time(
+              () -> {
+                try {
+                  renderer.renderPage(recipes, shownPage, System.out);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e); // System.out does not throw
+                }
+              });
+      System.out.flush();
+    }
+  }
+
+  /**
+   * Prints calls, failures and latencies of the service operations called so far and the current
+   * inventory gauges.
+   */
+  private static void viewMetrics() {
+    System.out.println("\n--- Metrics ---");
+    try {
+      metrics.appendSnapshot(System.out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // System.out does not throw
+    }
+  }
+
+  /** Formats recipes as one table, timed as {@code recipe.toTable}. */
+  private static String recipeTable(List<Recipe> recipes) {
+    return metrics.operation("recipe.toTable").time(() -> Recipe.toTable(recipes));
   }
 }
@@ -0,0 +1,182 @@
+package com.inhouse.food.management.api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.inhouse.food.management.json.Json;
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.service.FridgeService;
+import com.inhouse.food.management.service.RecipeService;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FoodWasteServerTest {
+
+  /** Fails to store groceries named Spoiled, as a fridge failing for one name would. */
+  private final FridgeService fridgeService =
+      new FridgeService() {
+        @Override
+        public void addGroceries(Collection<Grocery> groceries) {
+          if (groceries.stream().anyMatch(grocery -> grocery.getName().equals("Spoiled"))) {
+            throw new IllegalStateException("Cannot store Spoiled");
+          }
+          super.addGroceries(groceries);
+        }
+      };
+  private final RecipeService recipeService = new RecipeService();
+  private final HttpClient httpClient = HttpClient.newHttpClient();
+  private FoodWasteServer server;
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server =
+        new FoodWasteServer(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            fridgeService,
+            recipeService);
+    server.start();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    server.close();
+  }
+
+  @Test
+  public void testGroceryEndpoints() throws Exception {
+    String expiry = LocalDate.now().plusDays(3).toString();
+    HttpResponse<String> added =
+        send(
+            "POST",
+            "/groceries",
+            "[{\"name\":\"Milk\",\"quantity\":2,\"unit\":\"liters\",\"pricePerUnit\":15,"
+                + "\"expiryDate\":\"" + expiry + "\"},"
+                + "{\"name\":\"Milk\",\"quantity\":1,\"unit\":\"liters\",\"pricePerUnit\":15,"
+                + "\"expiryDate\":\"" + expiry + "\"}]");
+
+    assertEquals(201, added.statusCode());
+    assertEquals("{\"added\":2}", added.body());
+    assertEquals(
+        "{\"name\":\"Milk\",\"quantity\":3.0,\"quantityIncludingExpired\":3.0,\"value\":45.0}",
+        send("GET", "/groceries/Milk", null).body());
+    assertEquals(409, send("DELETE", "/groceries/Milk?quantity=4", null).statusCode());
+    assertEquals(200, send("DELETE", "/groceries/Milk?quantity=1", null).statusCode());
+    for (String invalid : List.of("NaN", "-5", "0", "Infinity")) {
+      assertEquals(
+          400, send("DELETE", "/groceries/Milk?quantity=" + invalid, null).statusCode(), invalid);
+    }
+    assertEquals(400, send("POST", "/groceries", "[".repeat(200_000)).statusCode());
+    assertEquals(2, fridgeService.getAvailableQuantity("Milk", true));
+    List<?> groceries = (List<?>) Json.parse(send("GET", "/groceries", null).body());
+    assertEquals(1, groceries.size());
+    assertEquals(expiry, ((Map<?, ?>) groceries.get(0)).get("expiryDate"));
+    assertEquals("{\"total\":30.0,\"expired\":0.0}", send("GET", "/value", null).body());
+  }
+
+  @Test
+  public void testRecipeEndpoints() throws Exception {
+    fridgeService.addGrocery(new Grocery("Milk", 2, "liters", 15, LocalDate.now().plusDays(3)));
+
+    HttpResponse<String> added =
+        send(
+            "POST",
+            "/recipes",
+            "{\"name\":\"Milkshake\",\"serves\":1,\"ingredients\":{\"Milk\":1.5}}");
+
+    assertEquals(201, added.statusCode());
+    assertEquals("{\"id\":1}", added.body());
+    List<?> possible = (List<?>) Json.parse(send("GET", "/recipes/possible", null).body());
+    assertEquals("Milkshake", ((Map<?, ?>) possible.get(0)).get("name"));
+
+    HttpResponse<String> updated =
+        send("PUT", "/recipes/1", "{\"name\":\"Latte\",\"ingredients\":{\"Milk\":3}}");
+    assertEquals(200, updated.statusCode());
+    assertEquals("Latte", recipeService.findById(1).getName());
+    assertEquals("[]", send("GET", "/recipes/possible", null).body());
+
+    assertEquals(200, send("DELETE", "/recipes/1", null).statusCode());
+    assertEquals(404, send("GET", "/recipes/1", null).statusCode());
+    assertEquals(400, send("POST", "/recipes", "{\"name\":").statusCode());
+    assertEquals(405, send("PATCH", "/recipes", "{}").statusCode());
+    assertEquals(404, send("GET", "/pantry", null).statusCode());
+  }
+
+  @Test
+  public void testConcurrentGroceryAdds_AllStored() throws Exception {
+    String grocery =
+        "{\"name\":\"Eggs\",\"quantity\":1,\"unit\":\"pieces\",\"pricePerUnit\":2,"
+            + "\"expiryDate\":\"" + LocalDate.now().plusDays(5) + "\"}";
+    List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      responses.add(httpClient.sendAsync(request("POST", "/groceries", grocery), bodyHandler()));
+    }
+    for (CompletableFuture<HttpResponse<String>> response : responses) {
+      assertEquals(201, response.get().statusCode());
+    }
+
+    assertEquals(200, fridgeService.getAvailableQuantity("Eggs", false));
+  }
+
+  @Test
+  public void testGroceryAdds_FailuresReportedPerGrocery() throws Exception {
+    String expiry = LocalDate.now().plusDays(3).toString();
+    String groceries =
+        "[{\"name\":\"Milk\",\"quantity\":2,\"unit\":\"liters\",\"pricePerUnit\":15,"
+            + "\"expiryDate\":\"" + expiry + "\"},"
+            + "{\"name\":\"Spoiled\",\"quantity\":1,\"unit\":\"kg\",\"pricePerUnit\":1,"
+            + "\"expiryDate\":\"" + expiry + "\"},"
+            + "{\"name\":\"Eggs\",\"quantity\":6,\"unit\":\"pieces\",\"pricePerUnit\":2,"
+            + "\"expiryDate\":\"" + expiry + "\"}]";
+
+    HttpResponse<String> added = send("POST", "/groceries", groceries);
+
+    assertEquals(500, added.statusCode());
+    Map<?, ?> result = (Map<?, ?>) Json.parse(added.body());
+    assertEquals(2.0, ((Number) result.get("added")).doubleValue());
+    List<?> failed = (List<?>) result.get("failed");
+    assertEquals(1, failed.size());
+    assertEquals(1.0, ((Number) ((Map<?, ?>) failed.get(0)).get("index")).doubleValue());
+    assertEquals(2, fridgeService.getAvailableQuantity("Milk", true));
+    assertEquals(6, fridgeService.getAvailableQuantity("Eggs", true));
+  }
+
+  @Test
+  public void testAddRecipe_TakenIdConflicts() throws Exception {
+    String recipe = "{\"id\":7,\"name\":\"Toast\",\"serves\":1,\"ingredients\":{}}";
+
+    assertEquals(201, send("POST", "/recipes", recipe).statusCode());
+    assertEquals(409, send("POST", "/recipes", recipe).statusCode());
+    assertEquals(400, send("POST", "/recipes", "{\"id\":8,\"serves\":\"x\"}").statusCode());
+  }
+
+  private HttpResponse<String> send(String method, String path, String body) throws Exception {
+    return httpClient.send(request(method, path, body), bodyHandler());
+  }
+
+  private HttpRequest request(String method, String path, String body) {
+    return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+        .method(
+            method,
+            body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+
+  private static HttpResponse.BodyHandler<String> bodyHandler() {
+    return HttpResponse.BodyHandlers.ofString();
+  }
+}
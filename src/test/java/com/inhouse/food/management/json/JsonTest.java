@@ -0,0 +1,77 @@
+package com.inhouse.food.management.json;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.Recipe;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class JsonTest {
+
+  @Test
+  public void testParse_AllValueKinds() {
+    Object document =
+        Json.parse(
+            " {\"name\": \"Tab\\there \\u00e9\", \"quantity\": -1.5e1, \"tags\": [true, false,"
+                + " null], \"nested\": {}} ");
+
+    Map<?, ?> members = (Map<?, ?>) document;
+    assertEquals(List.of("name", "quantity", "tags", "nested"), List.copyOf(members.keySet()));
+    assertEquals("Tab\there \u00e9", members.get("name"));
+    assertEquals(-15.0, members.get("quantity"));
+    assertEquals(Arrays.asList(true, false, null), members.get("tags"));
+    assertEquals(Map.of(), members.get("nested"));
+  }
+
+  @Test
+  public void testParse_RejectsInvalidDocuments() {
+    for (String invalid : List.of("", "{", "[1,]", "{\"a\" 1}", "\"open", "1 2", "tru", "-")) {
+      assertThrows(IllegalArgumentException.class, () -> Json.parse(invalid), invalid);
+    }
+  }
+
+  @Test
+  public void testParse_RejectsDeepNestingAndOutOfRangeNumbers() {
+    String nested = "[".repeat(Json.MAX_DEPTH) + "]".repeat(Json.MAX_DEPTH);
+    assertEquals(List.of(), unwrap(Json.parse(nested), Json.MAX_DEPTH - 1));
+    assertThrows(IllegalArgumentException.class, () -> Json.parse("[" + nested + "]"));
+    assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\":".repeat(200_000)));
+    assertThrows(IllegalArgumentException.class, () -> Json.parse("1e999"));
+    assertEquals(-0.0, Json.parse("-1e-999"));
+  }
+
+  private static Object unwrap(Object value, int levels) {
+    for (int i = 0; i < levels; i++) {
+      value = ((List<?>) value).get(0);
+    }
+    return value;
+  }
+
+  @Test
+  public void testAppend_GroceriesAndRecipesRoundTrip() {
+    LocalDate expiryDate = LocalDate.of(2024, 5, 1);
+    Grocery milk = new Grocery("Milk \"A\"", 2, "liters", 15, expiryDate);
+    StringBuilder out = new StringBuilder();
+
+    Json.appendGroceries(out, List.of(milk), (int) expiryDate.toEpochDay() + 1);
+
+    assertEquals(
+        "[{\"name\":\"Milk \\\"A\\\"\",\"quantity\":2.0,\"unit\":\"liters\",\"pricePerUnit\":15.0,"
+            + "\"expiryDate\":\"2024-05-01\",\"expired\":true}]",
+        out.toString());
+    Map<?, ?> grocery = (Map<?, ?>) ((List<?>) Json.parse(out.toString())).get(0);
+    assertEquals("Milk \"A\"", grocery.get("name"));
+
+    out.setLength(0);
+    Json.appendRecipe(out, new Recipe(3, "Tea", "Hot\ndrink", null, Map.of("Water", 0.25), 2));
+
+    assertEquals(
+        "{\"id\":3,\"name\":\"Tea\",\"description\":\"Hot\\ndrink\",\"procedure\":null,"
+            + "\"serves\":2,\"ingredients\":{\"Water\":0.25}}",
+        out.toString());
+  }
+}
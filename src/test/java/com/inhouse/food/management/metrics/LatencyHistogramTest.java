@@ -0,0 +1,51 @@
+package com.inhouse.food.management.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBuckets_CoverAllValuesWithinOneSixteenth() {
+    assertEquals(0, LatencyHistogram.bucketOf(0));
+    assertEquals(15, LatencyHistogram.bucketOf(15));
+    long previousUpperBound = -1;
+    for (int bucket = 0; bucket <= LatencyHistogram.bucketOf(Long.MAX_VALUE); bucket++) {
+      long upperBound = LatencyHistogram.upperBoundOf(bucket);
+      long lowerBound = previousUpperBound + 1;
+      assertEquals(bucket, LatencyHistogram.bucketOf(lowerBound), "" + lowerBound);
+      assertEquals(bucket, LatencyHistogram.bucketOf(upperBound), "" + upperBound);
+      assertTrue(upperBound - lowerBound <= lowerBound / LatencyHistogram.SUB_BUCKETS);
+      previousUpperBound = upperBound;
+    }
+    assertEquals(Long.MAX_VALUE, previousUpperBound);
+  }
+
+  @Test
+  public void testSnapshot_ReportsPercentilesMeanAndMax() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1_000; i++) {
+      histogram.record(i * 1_000L);
+    }
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(1_000, snapshot.getCount());
+    assertEquals(500_500, snapshot.getMean(), 1e-9);
+    assertEquals(1_000_000, snapshot.getMax());
+    assertEquals(500_000, snapshot.percentile(0.50), 500_000 / 16.0);
+    assertEquals(990_000, snapshot.percentile(0.99), 990_000 / 16.0);
+    assertEquals(1_000_000, snapshot.percentile(1.0));
+    assertTrue(snapshot.percentile(0.50) >= 500_000);
+  }
+
+  @Test
+  public void testEmptySnapshot_ReportsZero() {
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+    assertEquals(0, snapshot.getCount());
+    assertEquals(0, snapshot.getMean());
+    assertEquals(0, snapshot.percentile(0.99));
+  }
+}
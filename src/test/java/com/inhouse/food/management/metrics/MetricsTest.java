@@ -0,0 +1,106 @@
+package com.inhouse.food.management.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.inhouse.food.management.model.FoodStorage;
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.service.ExpiryClock;
+import com.inhouse.food.management.service.FridgeService;
+import com.inhouse.food.management.service.GroceryService;
+import com.inhouse.food.management.service.RecipeService;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+public class MetricsTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2024, 5, 1);
+
+  private final Metrics metrics = new Metrics();
+  private final GroceryService groceryService =
+      new MeteredGroceryService(metrics, ExpiryClock.fixed(TODAY));
+  private final FridgeService fridgeService =
+      new MeteredFridgeService(metrics, new FoodStorage(), groceryService);
+  private final RecipeService recipeService = new MeteredRecipeService(metrics, groceryService);
+
+  @Test
+  public void testMeteredServices_RecordCallsFailuresAndGauges() {
+    fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, TODAY.plusDays(3)));
+    fridgeService.addGrocery(new Grocery("Eggs", 6, "pieces", 2, TODAY.plusDays(3)));
+    fridgeService.addGrocery(new Grocery("Eggs", 6, "pieces", 2, TODAY.plusDays(9)));
+    fridgeService.removeGrocery("Eggs", 1);
+    recipeService.getPossibleRecipes(fridgeService.getAllGroceries(), "n");
+    assertThrows(NullPointerException.class, () -> fridgeService.addGrocery(null));
+
+    assertEquals(4, metrics.operation("fridge.addGrocery").getCount());
+    assertEquals(1, metrics.operation("fridge.addGrocery").getFailures());
+    assertEquals(1, metrics.operation("fridge.removeGrocery").getCount());
+    assertEquals(1, metrics.operation("recipe.getPossibleRecipes").getCount());
+    assertTrue(metrics.gaugeValue("grocery.isExpired.calls") >= 3);
+    assertEquals(0, metrics.operation("recipe.addRecipe").getCount());
+  }
+
+  @Test
+  public void testAppendSnapshot_ListsCalledOperationsAndGauges() throws IOException {
+    fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, TODAY.plusDays(3)));
+    fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, TODAY.plusDays(4)));
+
+    StringBuilder snapshot = new StringBuilder();
+    metrics.appendSnapshot(snapshot);
+
+    assertTrue(snapshot.toString().contains("fridge.addGrocery"), snapshot.toString());
+    assertFalse(snapshot.toString().contains("fridge.removeGrocery"), snapshot.toString());
+    assertTrue(snapshot.toString().matches("(?s).*fridge\\.lots +2\\R.*"), snapshot.toString());
+    assertTrue(snapshot.toString().matches("(?s).*fridge\\.categories +1\\R.*"));
+    assertTrue(snapshot.toString().matches("(?s).*cookbook\\.recipes +0\\R.*"));
+  }
+
+  @Test
+  public void testRegisterMBeans_ExportsOperationsAndGauges() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName addGrocery = objectName("Operation", "fridge.addGrocery");
+    ObjectName lots = objectName("Gauge", "fridge.lots");
+    metrics.registerMBeans();
+    try {
+      fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, TODAY.plusDays(3)));
+      metrics.gauge("test.answer", () -> 42);
+
+      assertEquals(1L, server.getAttribute(addGrocery, "Count"));
+      assertTrue((Double) server.getAttribute(addGrocery, "P99Millis") > 0);
+      assertEquals(1L, server.getAttribute(lots, "Value"));
+      assertEquals(42L, server.getAttribute(objectName("Gauge", "test.answer"), "Value"));
+    } finally {
+      metrics.unregisterMBeans();
+    }
+    assertFalse(server.isRegistered(addGrocery));
+    assertFalse(server.isRegistered(lots));
+  }
+
+  @Test
+  public void testTime_CountsFailuresAndRethrows() {
+    OperationMetrics operation = metrics.operation("test.operation");
+
+    assertEquals(List.of(), operation.time(() -> List.of()));
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            operation.time(
+                () -> {
+                  throw new IllegalStateException();
+                }));
+
+    assertEquals(2, operation.getCount());
+    assertEquals(1, operation.getFailures());
+    assertSame(operation, metrics.operation("test.operation"));
+  }
+
+  private static ObjectName objectName(String type, String name) throws JMException {
+    return new ObjectName(
+        Metrics.JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+  }
+}
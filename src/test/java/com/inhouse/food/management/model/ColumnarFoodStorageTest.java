@@ -0,0 +1,104 @@
+package com.inhouse.food.management.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ColumnarFoodStorageTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2024, 5, 1);
+  private static final int TODAY_EPOCH_DAY = (int) TODAY.toEpochDay();
+
+  @Test
+  public void testStore_ClubsEqualLots() {
+    ColumnarFoodStorage storage = new ColumnarFoodStorage();
+    Grocery milk = new Grocery("Milk", 2, "liters", 15, TODAY);
+    Grocery lot = storage.store(milk).newLot();
+    assertNull(storage.store(new Grocery("Milk", 1, "liters", 15, TODAY)).newLot());
+    storage.store(new Grocery("Milk", 1, "liters", 12, TODAY));
+    storage.store(new Grocery("Bread", 1, null, 30, TODAY));
+
+    assertNotSame(milk, lot);
+    assertEquals(2, milk.getQuantity(), 0.001);
+    assertEquals(3, lot.getQuantity(), 0.001);
+    assertEquals(3, storage.getLotCount());
+    assertEquals(2, storage.getLotCountOfCategory("Milk"));
+    assertEquals(2, storage.getCategoryCount());
+    assertEquals(4, storage.getQuantityOfCategory("Milk"), 0.001);
+    assertEquals(57, storage.getValueOfCategory("Milk"), 0.001);
+    assertEquals(87, storage.getTotalValue(), 0.001);
+    assertNull(storage.getGroceriesInExpiryOrder().get(2).getUnit());
+  }
+
+  @Test
+  public void testRemove_ConsumesEarliestExpiringLotsFirstAndReusesSlots() {
+    ColumnarFoodStorage storage = new ColumnarFoodStorage();
+    storage.store(new Grocery("Milk", 2, "liters", 10, TODAY.plusDays(3)));
+    Grocery expiredMilk =
+        storage.store(new Grocery("Milk", 2, "liters", 20, TODAY.minusDays(1))).newLot();
+    storage.store(new Grocery("Eggs", 6, "pieces", 2, TODAY));
+
+    assertNull(storage.remove("Milk", 5));
+    assertNull(storage.remove("Flour", 1));
+    GroceryStorage.Removal removal = storage.remove("Milk", 3);
+
+    assertEquals(List.of(expiredMilk), removal.removedLots());
+    assertSame(expiredMilk, removal.removedLots().get(0));
+    assertEquals(2, removal.lotsVisited());
+    assertEquals(1, storage.getQuantityOfCategory("Milk"), 0.001);
+    assertEquals(1, storage.getLots().stream().filter(lot -> lot.getName().equals("Milk")).count());
+    assertEquals(22, storage.getTotalValue(), 0.001);
+    assertEquals(0, storage.getExpiredValueAsOf(TODAY_EPOCH_DAY), 0.001);
+    assertEquals(1, storage.getFreshQuantityOfCategory("Milk", TODAY_EPOCH_DAY), 0.001);
+
+    storage.store(new Grocery("Flour", 1, "kg", 20, TODAY.plusDays(30)));
+    assertEquals(3, storage.getLotCount());
+    assertEquals(42, storage.getTotalValue(), 0.001);
+
+    storage.remove("Eggs", 6);
+    assertEquals(0, storage.getLotCountOfCategory("Eggs"));
+    assertEquals(2, storage.getCategoryCount());
+  }
+
+  @Test
+  public void testStoreAll_AdoptsNewLotsAndClubsTheRest() {
+    ColumnarFoodStorage storage = new ColumnarFoodStorage();
+    storage.store(new Grocery("Milk", 2, "liters", 10, TODAY));
+    Grocery clubbed = new Grocery("Milk", 1, "liters", 10, TODAY);
+    Grocery later = new Grocery("Milk", 1, "liters", 10, TODAY.plusDays(2));
+    Grocery earlier = new Grocery("Milk", 1, "liters", 10, TODAY.minusDays(2));
+
+    List<Grocery> newLots = storage.storeAll("Milk", List.of(clubbed, later, earlier));
+
+    assertEquals(2, newLots.size());
+    assertSame(later, newLots.get(0));
+    assertSame(earlier, newLots.get(1));
+    assertEquals(
+        List.of(earlier.getExpiryDate(), TODAY, later.getExpiryDate()),
+        storage.getLots().stream().map(Grocery::getExpiryDate).toList());
+    assertEquals(5, storage.getQuantityOfCategory("Milk"), 0.001);
+  }
+
+  @Test
+  public void testExpiryQueries_ReturnLotsInExpiryOrder() {
+    ColumnarFoodStorage storage = new ColumnarFoodStorage();
+    for (int i = 0; i < 100; i++) {
+      storage.store(new Grocery("Grocery" + (i % 7), 1, "kg", 1, TODAY.plusDays(50 - i)));
+    }
+
+    List<Grocery> expired = storage.getGroceriesExpiredAsOf(TODAY_EPOCH_DAY);
+    List<Grocery> expiringSoon = storage.getGroceriesExpiringWithin(TODAY_EPOCH_DAY, 2);
+
+    assertEquals(49, expired.size());
+    assertEquals(TODAY.minusDays(49), expired.get(0).getExpiryDate());
+    assertEquals(TODAY.minusDays(1), expired.get(48).getExpiryDate());
+    assertEquals(3, expiringSoon.size());
+    assertEquals(TODAY, expiringSoon.get(0).getExpiryDate());
+    assertEquals(
+        2, storage.getGroceriesExpiringBetween(TODAY_EPOCH_DAY, TODAY_EPOCH_DAY + 2).size());
+    assertEquals(49, storage.getExpiredValueAsOf(TODAY_EPOCH_DAY), 0.001);
+    assertEquals(100, storage.getGroceriesInExpiryOrder().size());
+  }
+}
@@ -0,0 +1,66 @@
+package com.inhouse.food.management.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class RecipeTableRendererTest {
+
+  private final List<Recipe> recipes =
+      List.of(
+          new Recipe(1, "Pancakes", "Breakfast", "Mix and fry", Map.of("Milk", 1.5), 4),
+          new Recipe(2, "Tea", "Hot drink", "Steep", Map.of("Water", 0.25), 12),
+          new Recipe(3, "Toast", "Snack", "Toast the bread slices", null, 1));
+
+  @Test
+  public void testToTable_PadsEveryColumnToItsWidestCell() {
+    String expected =
+        "ID | Name     | Description | Procedure              | Serves | Ingredients \n"
+            + "----------------------------------------------------------------------------\n"
+            + "1  | Pancakes | Breakfast   | Mix and fry            | 4      | {Milk=1.5}  \n"
+            + "2  | Tea      | Hot drink   | Steep                  | 12     | {Water=0.25}\n"
+            + "3  | Toast    | Snack       | Toast the bread slices | 1      | null        \n";
+
+    assertEquals(expected, Recipe.toTable(recipes));
+    assertEquals("No data available!", Recipe.toTable(List.of()));
+  }
+
+  @Test
+  public void testRenderPage_TruncatesLongCells() throws IOException {
+    RecipeTableRenderer renderer = new RecipeTableRenderer(8, 2);
+    StringBuilder out = new StringBuilder();
+
+    renderer.renderPage(recipes, 1, out);
+
+    assertEquals(
+        "ID | Name  | Descr... | Proce... | Serves | Ingre...\n"
+            + "----------------------------------------------------\n"
+            + "3  | Toast | Snack    | Toast... | 1      | null    \n",
+        out.toString());
+  }
+
+  @Test
+  public void testRender_WritesEveryPageWithItsOwnWidths() throws IOException {
+    RecipeTableRenderer renderer = new RecipeTableRenderer(RecipeTableRenderer.UNLIMITED, 2);
+    StringBuilder out = new StringBuilder();
+
+    renderer.render(recipes, out);
+
+    assertEquals(2, renderer.getPageCount(recipes));
+    assertEquals(1, renderer.getPageCount(List.of()));
+    String[] pages = out.toString().split("\n\n");
+    assertEquals(2, pages.length);
+    assertTrue(pages[0].startsWith("ID | Name     | Description | Procedure   | Serves |"));
+    assertTrue(pages[1].startsWith("ID | Name  | Description | Procedure              | Serves |"));
+    assertThrows(IndexOutOfBoundsException.class, () -> renderer.renderPage(recipes, 2, out));
+  }
+
+  @Test
+  public void testConstructor_RejectsTooSmallLimits() {
+    assertThrows(IllegalArgumentException.class, () -> new RecipeTableRenderer(3, 10));
+    assertThrows(IllegalArgumentException.class, () -> new RecipeTableRenderer(10, 0));
+  }
+}
@@ -0,0 +1,78 @@
+package com.inhouse.food.management.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class RecipeTest {
+
+  @Test
+  public void testGetIngredients_ViewsTheIngredientArrays() {
+    Map<String, Double> ingredients = new LinkedHashMap<>();
+    ingredients.put("Flour", 0.5);
+    ingredients.put("Milk", 1.5);
+    ingredients.put("Eggs", 2.0);
+    Recipe recipe = new Recipe(1, "Pancakes", "Breakfast", "Mix", ingredients, 4);
+
+    assertEquals(ingredients, recipe.getIngredients());
+    assertEquals(1.5, recipe.getIngredients().get("Milk"));
+    assertNull(recipe.getIngredients().get("Butter"));
+    assertFalse(recipe.getIngredients().containsKey(42));
+    assertThrows(UnsupportedOperationException.class, () -> recipe.getIngredients().clear());
+    assertNull(new Recipe(2, "Water", "Drink", "Pour", null, 1).getIngredients());
+  }
+
+  @Test
+  public void testEquals_IndependentOfIngredientOrder() {
+    Map<String, Double> ingredients = new LinkedHashMap<>();
+    ingredients.put("Milk", 1.5);
+    ingredients.put("Eggs", 2.0);
+    Map<String, Double> reversed = new LinkedHashMap<>();
+    reversed.put("Eggs", 2.0);
+    reversed.put("Milk", 1.5);
+
+    assertEquals(
+        new Recipe(1, "Pancakes", "Breakfast", "Mix", ingredients, 4),
+        new Recipe(1, "Pancakes", "Breakfast", "Mix", reversed, 4));
+  }
+
+  @Test
+  public void testCanBeMadeWith_ComparesAgainstQuantityVector() {
+    IngredientDictionary dictionary = IngredientDictionary.shared();
+    Recipe recipe = new Recipe(1, "Omelette", "Lunch", "Fry", Map.of("Eggs", 3.0, "Salt", 0.0), 1);
+    double[] available = dictionary.newQuantityVector();
+    available[dictionary.idOf("Eggs")] = 3;
+
+    assertFalse(recipe.canBeMadeWith(available), "absent ingredient, even if none is required");
+
+    available[dictionary.idOf("Salt")] = 0;
+    assertTrue(recipe.canBeMadeWith(available));
+
+    available[dictionary.idOf("Eggs")] = 2.5;
+    assertFalse(recipe.canBeMadeWith(available));
+    assertFalse(recipe.canBeMadeWith(new double[0]));
+    assertTrue(new Recipe(2, "Water", "Drink", "Pour", null, 1).canBeMadeWith(new double[0]));
+  }
+
+  @Test
+  public void testIngredientArraysOf_SortsOnlyIdsOutOfOrder() {
+    int[] ascending = {1, 4, 7};
+    double[] quantities = {0.5, 1.5, 2.0};
+    Recipe.IngredientArrays adopted = Recipe.IngredientArrays.of(ascending, quantities);
+    assertSame(ascending, adopted.ids());
+    assertSame(quantities, adopted.quantities());
+
+    Recipe.IngredientArrays sorted =
+        Recipe.IngredientArrays.of(new int[] {7, 1, 4}, new double[] {2.0, 0.5, 1.5});
+    assertEquals(adopted, sorted);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Recipe.IngredientArrays.of(new int[] {4, 1, 4}, new double[] {1, 2, 3}));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Recipe.IngredientArrays.of(new int[] {1, 4}, new double[] {1}));
+  }
+}
@@ -0,0 +1,50 @@
+package com.inhouse.food.management.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.inhouse.food.management.model.Recipe;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CookbookSnapshotTest {
+
+  @TempDir Path directory;
+
+  @Test
+  public void testRead_RestoresRecipesAndLoadsTextOnDemand() throws IOException {
+    Path file = directory.resolve("cookbook.bin");
+    Recipe pancakes =
+        new Recipe(
+            1, "Pancakes", "D\u00e9licieux", "Mix and cook.", Map.of("Milk", 1.5, "Eggs", 2.0), 4);
+    Recipe omelette = new Recipe(2, "Omelette", null, "Whisk and fry.", Map.of("Eggs", 3.0), 1);
+    Recipe water = new Recipe(null, "Water", "Plain", null, null, 1);
+    CookbookSnapshot.write(file, List.of(pancakes, omelette, water));
+
+    List<Recipe> recipes = CookbookSnapshot.read(file);
+
+    assertEquals(List.of(pancakes, omelette, water), recipes);
+    assertEquals("D\u00e9licieux", recipes.get(0).getDescription());
+    assertNull(recipes.get(1).getDescription());
+    assertEquals("Whisk and fry.", recipes.get(1).getProcedure());
+    assertNull(recipes.get(2).getId());
+    assertNull(recipes.get(2).getIngredients());
+    assertNotNull(Recipe.toTable(recipes.subList(0, 1)));
+  }
+
+  @Test
+  public void testRead_RejectsCorruptSnapshot() throws IOException {
+    Path file = directory.resolve("cookbook.bin");
+    CookbookSnapshot.write(
+        file, List.of(new Recipe(1, "Pancakes", "Breakfast", "Mix", Map.of("Milk", 1.5), 4)));
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[30] ^= 1;
+    Files.write(file, bytes);
+
+    assertThrows(IOException.class, () -> CookbookSnapshot.read(file));
+  }
+}
@@ -0,0 +1,131 @@
+package com.inhouse.food.management.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.service.FridgeService;
+import com.inhouse.food.management.service.InventoryListener;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FridgeJournalTest {
+
+  @TempDir Path directory;
+
+  @Test
+  public void testReplay_RestoresAddsAndRemovals() throws IOException {
+    LocalDate expiryDate = LocalDate.of(2099, 1, 1);
+    FridgeService fridgeService = new FridgeService();
+    try (FridgeJournal journal = FridgeJournal.open(directory, fridgeService)) {
+      fridgeService.addGrocery(new Grocery("Milk", 2, "liters", 15, expiryDate));
+      fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, expiryDate));
+      fridgeService.addGrocery(new Grocery("Eggs", 12, "pieces", 2, expiryDate.plusDays(3)));
+      fridgeService.removeGrocery("Eggs", 5);
+    }
+
+    FridgeService restored = new FridgeService();
+    try (FridgeJournal journal = FridgeJournal.open(directory, restored)) {
+      List<Grocery> groceries = restored.getAllGroceriesInExpiryOrder();
+      assertEquals(2, groceries.size());
+      assertEquals(3, restored.getAvailableQuantity("Milk", true), 0.001);
+      assertEquals(7, restored.getAvailableQuantity("Eggs", true), 0.001);
+      assertEquals(59, restored.calculateTotalValue(), 0.001);
+    }
+  }
+
+  @Test
+  public void testCompaction_FoldsJournalsIntoSnapshot() throws Exception {
+    LocalDate expiryDate = LocalDate.of(2099, 1, 1);
+    FridgeService fridgeService = new FridgeService();
+    try (FridgeJournal journal = FridgeJournal.open(directory, fridgeService, 4096, 1)) {
+      for (int i = 0; i < 500; i++) {
+        fridgeService.addGrocery(new Grocery("Grocery" + (i % 7), 1, "kg", 1, expiryDate));
+      }
+    }
+
+    FridgeService restored = new FridgeService();
+    try (FridgeJournal journal = FridgeJournal.open(directory, restored, 4096, 1)) {
+      assertEquals(7, restored.getAllGroceries().size());
+      assertEquals(500, restored.calculateTotalValue(), 0.001);
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      assertTrue(files.anyMatch(file -> file.getFileName().toString().startsWith("snapshot-")));
+    }
+  }
+
+  @Test
+  public void testRecordExceedingSegment_KeptBySnapshotAndOtherListenersStillRun()
+      throws Exception {
+    LocalDate expiryDate = LocalDate.of(2099, 1, 1);
+    String longName = "Cheese".repeat(400);
+    FridgeService fridgeService = new FridgeService();
+    List<Grocery> seenByLaterListener = new ArrayList<>();
+    try (FridgeJournal journal = FridgeJournal.open(directory, fridgeService, 1024, 1)) {
+      fridgeService.addInventoryListener(
+          new InventoryListener() {
+            @Override
+            public void groceryAdded(Grocery grocery) {
+              seenByLaterListener.add(grocery);
+            }
+
+            @Override
+            public void groceryRemoved(String name, double quantity) {}
+          });
+      fridgeService.addGrocery(new Grocery(longName, 2, "kg", 3, expiryDate));
+      fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, expiryDate));
+    }
+    assertEquals(2, seenByLaterListener.size());
+
+    FridgeService restored = new FridgeService();
+    try (FridgeJournal journal = FridgeJournal.open(directory, restored, 1024, 1)) {
+      assertEquals(2, restored.getAvailableQuantity(longName, true), 0.001);
+      assertEquals(1, restored.getAvailableQuantity("Milk", true), 0.001);
+    }
+  }
+
+  @Test
+  public void testClose_LaterChangesAreAppliedWithoutBeingRecorded() throws IOException {
+    LocalDate expiryDate = LocalDate.of(2099, 1, 1);
+    FridgeService fridgeService = new FridgeService();
+    FridgeJournal journal = FridgeJournal.open(directory, fridgeService);
+    fridgeService.addGrocery(new Grocery("Milk", 2, "liters", 15, expiryDate));
+    journal.close();
+
+    fridgeService.addGrocery(new Grocery("Eggs", 12, "pieces", 2, expiryDate));
+    assertTrue(fridgeService.removeGrocery("Milk", 1));
+    journal.groceryAdded(new Grocery("Eggs", 1, "pieces", 2, expiryDate));
+    journal.groceryRemoved("Milk", 1);
+
+    assertEquals(12, fridgeService.getAvailableQuantity("Eggs", true), 0.001);
+    assertEquals(2, journal.getChangesAfterClose());
+    FridgeService restored = new FridgeService();
+    try (FridgeJournal reopened = FridgeJournal.open(directory, restored)) {
+      assertEquals(2, restored.getAvailableQuantity("Milk", true), 0.001);
+      assertEquals(0, restored.getAvailableQuantity("Eggs", true), 0.001);
+    }
+  }
+
+  @Test
+  public void testNameTooLongForRecord_KeptBySnapshot() throws IOException {
+    LocalDate expiryDate = LocalDate.of(2099, 1, 1);
+    String longName = "Cheese".repeat(6000);
+    FridgeService fridgeService = new FridgeService();
+    try (FridgeJournal journal = FridgeJournal.open(directory, fridgeService, 1 << 20, 1)) {
+      fridgeService.addGrocery(new Grocery(longName, 2, "kg", 3, expiryDate));
+      assertTrue(fridgeService.removeGrocery(longName, 1));
+      assertEquals(0, journal.getSyncFailureCount());
+    }
+
+    FridgeService restored = new FridgeService();
+    try (FridgeJournal journal = FridgeJournal.open(directory, restored, 1 << 20, 1)) {
+      assertEquals(1, restored.getAvailableQuantity(longName, true), 0.001);
+    }
+  }
+}
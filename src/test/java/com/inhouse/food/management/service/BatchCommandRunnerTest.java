@@ -0,0 +1,151 @@
+package com.inhouse.food.management.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.inhouse.food.management.model.Grocery;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+public class BatchCommandRunnerTest {
+
+  private final FridgeService fridgeService = new FridgeService();
+  private final RecipeService recipeService = new RecipeService();
+
+  @Test
+  public void testRun_JsonOutputHasOneLinePerCommand() throws IOException {
+    String expiry = LocalDate.now().plusDays(3).toString();
+    String script =
+        "# restock\n"
+            + "add,Milk,2,liters,15," + expiry + "\n"
+            + "add,Milk,1,liters,15," + expiry + "\n"
+            + "\n"
+            + "quantity,Milk\n"
+            + "remove,Milk,5\n"
+            + "recipe-add,Milkshake,1,Milk=1.5,Drink,Shake, then serve\n"
+            + "possible\n"
+            + "fly,away\n";
+    StringBuilder out = new StringBuilder();
+
+    BatchCommandRunner.Result result =
+        new BatchCommandRunner(fridgeService, recipeService, BatchCommandRunner.OutputFormat.JSON)
+            .run(new StringReader(script), out);
+
+    assertEquals(new BatchCommandRunner.Result(7, 2), result);
+    String[] lines = out.toString().split("\n");
+    assertEquals(7, lines.length);
+    assertEquals("{\"line\":2,\"command\":\"add\",\"ok\":true}", lines[0]);
+    assertEquals("{\"line\":5,\"command\":\"quantity\",\"ok\":true,\"result\":3.0}", lines[2]);
+    assertEquals(
+        "{\"line\":6,\"command\":\"remove\",\"ok\":false,"
+            + "\"error\":\"Less than 5.0 of Milk is stored\"}",
+        lines[3]);
+    assertEquals("{\"line\":7,\"command\":\"recipe-add\",\"ok\":true,\"result\":1}", lines[4]);
+    assertEquals(
+        "{\"line\":8,\"command\":\"possible\",\"ok\":true,\"result\":[{\"id\":1,"
+            + "\"name\":\"Milkshake\",\"description\":\"Drink\","
+            + "\"procedure\":\"Shake, then serve\","
+            + "\"serves\":1,\"ingredients\":{\"Milk\":1.5}}]}",
+        lines[5]);
+    assertEquals(
+        "{\"line\":9,\"command\":\"fly\",\"ok\":false,\"error\":\"Unknown command: fly\"}",
+        lines[6]);
+    assertEquals(3, fridgeService.getAvailableQuantity("Milk", true));
+  }
+
+  @Test
+  public void testRun_TextOutputPrintsOnlyQueriesAndFailures() throws IOException {
+    String script =
+        "add,Eggs,6,pieces,2," + LocalDate.now().minusDays(1) + "\n"
+            + "remove,Eggs,2\n"
+            + "expired-value\n"
+            + "quantity,Eggs\n"
+            + "quantity,Eggs,all\n"
+            + "recipe-remove,4\n";
+    StringBuilder out = new StringBuilder();
+
+    BatchCommandRunner.Result result =
+        new BatchCommandRunner(fridgeService, recipeService, BatchCommandRunner.OutputFormat.TEXT)
+            .run(new StringReader(script), out);
+
+    assertEquals(new BatchCommandRunner.Result(6, 1), result);
+    assertEquals(
+        String.format("%.2f%n%.2f%n%.2f%n", 8.0, 0.0, 4.0)
+            + "line 6: recipe-remove failed: No recipe with id 4\n",
+        out.toString());
+  }
+
+  @Test
+  public void testRun_AddsReportedWithTheirChunkAndQuantitiesValidated() throws IOException {
+    String expiry = LocalDate.now().plusDays(3).toString();
+    fridgeService.addInventoryListener(
+        new InventoryListener() {
+          @Override
+          public void groceryAdded(Grocery grocery) {
+            if (grocery.getName().equals("Cheese")) {
+              throw new IllegalStateException("Fridge journal is closed");
+            }
+          }
+
+          @Override
+          public void groceryRemoved(String name, double quantity) {}
+        });
+    String script =
+        "add,Milk,2,liters,15," + expiry + "\n"
+            + "add,Eggs,-1,pieces,2," + expiry + "\n"
+            + "add,Cheese,1,kg,20," + expiry + "\n"
+            + "remove,Milk,-5\n"
+            + "remove,Milk,NaN\n"
+            + "quantity,Milk\n";
+    StringBuilder out = new StringBuilder();
+
+    BatchCommandRunner.Result result =
+        new BatchCommandRunner(fridgeService, recipeService, BatchCommandRunner.OutputFormat.JSON)
+            .run(new StringReader(script), out);
+
+    assertEquals(new BatchCommandRunner.Result(6, 4), result);
+    String[] lines = out.toString().split("\n");
+    assertEquals("{\"line\":1,\"command\":\"add\",\"ok\":true}", lines[0]);
+    assertEquals(
+        "{\"line\":2,\"command\":\"add\",\"ok\":false,"
+            + "\"error\":\"Expected a positive quantity but found -1\"}",
+        lines[1]);
+    assertEquals(
+        "{\"line\":3,\"command\":\"add\",\"ok\":false,"
+            + "\"error\":\"Fridge journal is closed\"}",
+        lines[2]);
+    assertTrue(lines[3].startsWith("{\"line\":4,\"command\":\"remove\",\"ok\":false"));
+    assertTrue(lines[4].startsWith("{\"line\":5,\"command\":\"remove\",\"ok\":false"));
+    assertEquals("{\"line\":6,\"command\":\"quantity\",\"ok\":true,\"result\":2.0}", lines[5]);
+  }
+
+  @Test
+  public void testRun_PricesAndIngredientQuantitiesValidated() throws IOException {
+    String expiry = LocalDate.now().plusDays(3).toString();
+    String script =
+        "add,Milk,2,liters,NaN," + expiry + "\n"
+            + "add,Milk,2,liters,Infinity," + expiry + "\n"
+            + "recipe-add,Milkshake,1,Milk=NaN\n"
+            + "recipe-add,Milkshake,1,Milk=-1\n"
+            + "value\n";
+    StringBuilder out = new StringBuilder();
+
+    BatchCommandRunner.Result result =
+        new BatchCommandRunner(fridgeService, recipeService, BatchCommandRunner.OutputFormat.JSON)
+            .run(new StringReader(script), out);
+
+    assertEquals(new BatchCommandRunner.Result(5, 4), result);
+    String[] lines = out.toString().split("\n");
+    assertEquals(
+        "{\"line\":1,\"command\":\"add\",\"ok\":false,"
+            + "\"error\":\"Expected a positive price but found NaN\"}",
+        lines[0]);
+    assertEquals(
+        "{\"line\":3,\"command\":\"recipe-add\",\"ok\":false,"
+            + "\"error\":\"Expected a positive quantity but found NaN\"}",
+        lines[2]);
+    assertEquals("{\"line\":5,\"command\":\"value\",\"ok\":true,\"result\":0.0}", lines[4]);
+    assertEquals(0, recipeService.getRecipeCount());
+  }
+}
@@ -0,0 +1,62 @@
+package com.inhouse.food.management.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+
+public class ExpiryClockTest {
+
+  /** Clock in the Oslo time zone which only moves when told to. */
+  private static class SteppingClock extends Clock {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Oslo");
+    private Instant instant;
+
+    SteppingClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZONE;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+
+  @Test
+  public void testToday_TicksAtMidnightOfTheClockZone() {
+    LocalDate day = LocalDate.of(2024, 3, 30);
+    SteppingClock clock =
+        new SteppingClock(ZonedDateTime.of(day.atTime(23, 59), SteppingClock.ZONE).toInstant());
+    ExpiryClock expiryClock = new ExpiryClock(clock);
+
+    assertEquals(day.toEpochDay(), expiryClock.today());
+
+    clock.advance(Duration.ofMinutes(1));
+    assertEquals(day.plusDays(1).toEpochDay(), expiryClock.today());
+
+    // the next day is only 23 hours long, daylight saving time starts
+    clock.advance(Duration.ofHours(23).minusMinutes(1));
+    assertEquals(day.plusDays(1), expiryClock.todayAsDate());
+    clock.advance(Duration.ofMinutes(1));
+    assertEquals(day.plusDays(2), expiryClock.todayAsDate());
+  }
+}
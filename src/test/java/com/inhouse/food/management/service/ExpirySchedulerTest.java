@@ -0,0 +1,145 @@
+package com.inhouse.food.management.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.inhouse.food.management.model.FoodStorage;
+import com.inhouse.food.management.model.Grocery;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class ExpirySchedulerTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2024, 5, 1);
+
+  private final ExpiryClock expiryClock = ExpiryClock.fixed(TODAY);
+  private final FridgeService fridgeService =
+      new FridgeService(new FoodStorage(), new GroceryService(expiryClock));
+  private final ExpiryScheduler scheduler = new ExpiryScheduler(expiryClock, 2);
+  private final List<String> events = new ArrayList<>();
+
+  {
+    scheduler.addExpiryListener(
+        new ExpiryListener() {
+          @Override
+          public void lotExpiringSoon(Grocery lot) {
+            events.add("soon " + lot.getName() + " " + lot.getExpiryDate());
+          }
+
+          @Override
+          public void lotExpired(Grocery lot) {
+            events.add("expired " + lot.getName() + " " + lot.getExpiryDate());
+          }
+        });
+  }
+
+  @Test
+  public void testAdvanceTo_FiresEventsOnTheirDays() {
+    fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, TODAY.minusDays(1)));
+    scheduler.track(fridgeService);
+    fridgeService.addGrocery(new Grocery("Eggs", 6, "pieces", 2, TODAY.plusDays(3)));
+    fridgeService.addGrocery(new Grocery("Eggs", 6, "pieces", 2, TODAY.plusDays(3)));
+
+    advanceTo(TODAY);
+    assertEquals(List.of(), events);
+    assertEquals(1, scheduler.getScheduledLotCount());
+    advanceTo(TODAY.plusDays(1));
+    assertEquals(List.of("soon Eggs " + TODAY.plusDays(3)), events);
+    advanceTo(TODAY.plusDays(3));
+    assertEquals(1, events.size());
+    advanceTo(TODAY.plusDays(4));
+    assertEquals(
+        List.of("soon Eggs " + TODAY.plusDays(3), "expired Eggs " + TODAY.plusDays(3)), events);
+    assertEquals(0, scheduler.getScheduledLotCount());
+  }
+
+  @Test
+  public void testRemovedLots_AreCancelled() {
+    scheduler.track(fridgeService);
+    fridgeService.addGrocery(new Grocery("Eggs", 6, "pieces", 2, TODAY.plusDays(1)));
+    fridgeService.addGrocery(new Grocery("Eggs", 6, "pieces", 2, TODAY.plusDays(10)));
+    fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, TODAY.plusDays(10)));
+
+    fridgeService.removeGrocery("Eggs", 8);
+    fridgeService.removeGrocery("Milk", 0.5);
+    advanceTo(TODAY.plusDays(30));
+
+    // the eggs of the first lot were used up, those of the second and the milk partly only
+    assertEquals(
+        Set.of(
+            "soon Eggs " + TODAY.plusDays(10),
+            "soon Milk " + TODAY.plusDays(10),
+            "expired Eggs " + TODAY.plusDays(10),
+            "expired Milk " + TODAY.plusDays(10)),
+        Set.copyOf(events));
+    assertEquals(4, events.size());
+    assertEquals(0, scheduler.getScheduledLotCount());
+  }
+
+  @Test
+  public void testRemovedLots_DueButNotFiredAreSkipped() {
+    scheduler.track(fridgeService);
+    fridgeService.addGrocery(new Grocery("Eggs", 6, "pieces", 2, TODAY.plusDays(1)));
+    fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, TODAY.plusDays(1)));
+
+    // both are expiring soon already, due with the next advance
+    fridgeService.removeGrocery("Eggs", 6);
+    advanceTo(TODAY);
+
+    assertEquals(List.of("soon Milk " + TODAY.plusDays(1)), events);
+    assertEquals(1, scheduler.getScheduledLotCount());
+  }
+
+  @Test
+  public void testDistantExpiryDates_CascadeThroughAllLevelsAndOverflow() {
+    scheduler.track(fridgeService);
+    long[] distances = {70, 5_000, 300_000, 20_000_000};
+    for (long distance : distances) {
+      fridgeService.addGrocery(new Grocery("Salt", 1, "kg", 1, TODAY.plusDays(distance)));
+    }
+
+    for (long distance : distances) {
+      advanceTo(TODAY.plusDays(distance - 3));
+      assertFalse(events.contains("soon Salt " + TODAY.plusDays(distance)), "" + distance);
+      advanceTo(TODAY.plusDays(distance - 2));
+      assertTrue(events.contains("soon Salt " + TODAY.plusDays(distance)), "" + distance);
+      advanceTo(TODAY.plusDays(distance));
+      assertFalse(events.contains("expired Salt " + TODAY.plusDays(distance)), "" + distance);
+      advanceTo(TODAY.plusDays(distance + 1));
+      assertTrue(events.contains("expired Salt " + TODAY.plusDays(distance)), "" + distance);
+    }
+    assertEquals(2 * distances.length, events.size());
+  }
+
+  @Test
+  public void testStarted_ReportsLotsAlreadyExpiringSoonRightAway() throws InterruptedException {
+    CountDownLatch reported = new CountDownLatch(1);
+    scheduler.addExpiryListener(
+        new ExpiryListener() {
+          @Override
+          public void lotExpiringSoon(Grocery lot) {
+            reported.countDown();
+          }
+
+          @Override
+          public void lotExpired(Grocery lot) {}
+        });
+    scheduler.track(fridgeService);
+    scheduler.start();
+    try {
+      fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, TODAY.plusDays(1)));
+
+      assertTrue(reported.await(10, TimeUnit.SECONDS));
+    } finally {
+      scheduler.close();
+    }
+  }
+
+  private void advanceTo(LocalDate day) {
+    scheduler.advanceTo(day.toEpochDay());
+  }
+}
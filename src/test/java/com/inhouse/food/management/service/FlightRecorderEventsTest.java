@@ -0,0 +1,122 @@
+package com.inhouse.food.management.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.inhouse.food.management.model.FoodStorage;
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.Recipe;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FlightRecorderEventsTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2024, 5, 1);
+
+  private final GroceryService groceryService = new GroceryService(ExpiryClock.fixed(TODAY));
+  private final FridgeService fridgeService = new FridgeService(new FoodStorage(), groceryService);
+  private final RecipeService recipeService = new RecipeService(groceryService);
+
+  @TempDir Path directory;
+
+  @Test
+  public void testProfile_RecordsInventoryAndRecipeEvents() throws IOException, ParseException {
+    recipeService.addRecipe(
+        new Recipe(1, "Omelette", "", "", Map.of("Eggs", 3.0, "Milk", 0.2), 1));
+    recipeService.addRecipe(
+        new Recipe(2, "Pancakes", "", "", Map.of("Eggs", 10.0, "Flour", 0.5), 4));
+
+    List<RecordedEvent> events =
+        record(
+            profile(),
+            () -> {
+              fridgeService.addGrocery(new Grocery("Eggs", 6, "pieces", 2, TODAY.plusDays(9)));
+              fridgeService.addGrocery(new Grocery("Eggs", 6, "pieces", 2, TODAY.plusDays(3)));
+              fridgeService.addGrocery(new Grocery("Eggs", 6, "pieces", 2, TODAY.plusDays(3)));
+              fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, TODAY.plusDays(5)));
+              fridgeService.removeGrocery("Eggs", 14);
+              recipeService.getPossibleRecipes(fridgeService.getAllGroceries(), "n");
+            });
+
+    List<RecordedEvent> added = eventsNamed(events, GroceryAddedEvent.NAME);
+    assertEquals(4, added.size());
+    assertEquals(
+        List.of(false, false, true, false),
+        added.stream().map(event -> event.getBoolean("clubbed")).collect(Collectors.toList()));
+    // the second lot expires first, so it was inserted before the first one
+    assertEquals(1, added.get(1).getInt("lotsScanned"));
+    assertEquals(2, added.get(2).getInt("categoryLots"));
+
+    RecordedEvent removed = eventsNamed(events, GroceryRemovedEvent.NAME).get(0);
+    assertEquals("Eggs", removed.getString("name"));
+    assertTrue(removed.getBoolean("removed"));
+    assertEquals(2, removed.getInt("lotsVisited"));
+    assertEquals(1, removed.getInt("lotsConsumed"));
+
+    RecordedEvent possibleRecipes = eventsNamed(events, PossibleRecipesEvent.NAME).get(0);
+    assertEquals(2, possibleRecipes.getInt("groceries"));
+    assertEquals(2, possibleRecipes.getInt("recipesScanned"));
+    // both ingredients of the omelette are checked, the first of the pancakes is missing already
+    assertEquals(2 + 1, possibleRecipes.getLong("ingredientsChecked"));
+    assertEquals(1, possibleRecipes.getInt("matches"));
+    assertNotNull(possibleRecipes.getStackTrace());
+  }
+
+  @Test
+  public void testDefaultSettings_RecordNoEvents() throws IOException, ParseException {
+    List<RecordedEvent> events =
+        record(
+            Configuration.getConfiguration("default"),
+            () -> {
+              fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, TODAY.plusDays(5)));
+              fridgeService.removeGrocery("Milk", 1);
+              recipeService.getPossibleRecipes(fridgeService.getAllGroceries(), "n");
+            });
+
+    assertTrue(
+        events.stream()
+            .map(event -> event.getEventType().getName())
+            .noneMatch(name -> name.startsWith("com.inhouse.food.management.")));
+  }
+
+  private static Configuration profile() throws IOException, ParseException {
+    try (Reader reader =
+        new InputStreamReader(
+            FlightRecorderEventsTest.class.getResourceAsStream("/jfr/food-management.jfc"),
+            StandardCharsets.UTF_8)) {
+      return Configuration.create(reader);
+    }
+  }
+
+  private List<RecordedEvent> record(Configuration configuration, Runnable work)
+      throws IOException {
+    Path file = directory.resolve("recording.jfr");
+    try (Recording recording = new Recording(configuration)) {
+      recording.start();
+      work.run();
+      recording.stop();
+      recording.dump(file);
+    }
+    return RecordingFile.readAllEvents(file);
+  }
+
+  private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name) {
+    return events.stream()
+        .filter(event -> event.getEventType().getName().equals(name))
+        .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+        .collect(Collectors.toList());
+  }
+}
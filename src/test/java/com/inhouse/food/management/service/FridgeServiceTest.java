@@ -3,12 +3,18 @@ package com.inhouse.food.management.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import com.inhouse.food.management.model.ColumnarFoodStorage;
 import com.inhouse.food.management.model.FoodStorage;
 import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.GroceryStorage;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 
 public class FridgeServiceTest {
@@ -60,10 +66,11 @@ public class FridgeServiceTest {
     Grocery grocery = new Grocery("Banana", 10, "kg", 1.5, LocalDate.now().plusDays(7));
     when(mockGroceryService.areGroceriesClubbable(any(Grocery.class), eq(grocery)))
         .thenReturn(true);
+    when(mockFoodStorage.store(grocery)).thenReturn(new GroceryStorage.StoredLot(null, 0));
 
     fridgeService.addGrocery(grocery);
 
-    verify(mockFoodStorage, times(1)).getGroceriesPerCategory();
+    verify(mockFoodStorage, times(1)).store(grocery);
   }
 
   @Test
@@ -118,6 +125,185 @@ public class FridgeServiceTest {
     assertTrue(groceries.isEmpty());
   }
 
+  @Test
+  public void testGetExpiredGroceries() {
+    FridgeService fridgeService = new FridgeService();
+    Grocery expired = new Grocery("Milk", 1, "liters", 15, LocalDate.now().minusDays(1));
+    Grocery fresh = new Grocery("Milk", 2, "liters", 15, LocalDate.now().plusDays(3));
+    fridgeService.addGrocery(expired);
+    fridgeService.addGrocery(fresh);
+
+    assertLots(List.of(expired), fridgeService.getExpiredGroceries());
+    assertEquals(15, fridgeService.calculateTotalValueOfExpiredGroceries(), 0.001);
+  }
+
+  @Test
+  public void testExpiryQueries_UseTheExpiryClockOfTheGroceryService() {
+    LocalDate today = LocalDate.of(2024, 5, 1);
+    FridgeService fridgeService =
+        new FridgeService(new FoodStorage(), new GroceryService(ExpiryClock.fixed(today)));
+    Grocery expired = new Grocery("Milk", 1, "liters", 15, today.minusDays(1));
+    Grocery fresh = new Grocery("Milk", 2, "liters", 15, today);
+    fridgeService.addGrocery(expired);
+    fridgeService.addGrocery(fresh);
+
+    assertLots(List.of(expired), fridgeService.getExpiredGroceries());
+    assertLots(List.of(fresh), fridgeService.getGroceriesExpiringWithin(0));
+    assertEquals(2, fridgeService.getAvailableQuantity("Milk", false), 0.001);
+    assertEquals(15, fridgeService.calculateTotalValueOfExpiredGroceries(), 0.001);
+  }
+
+  @Test
+  public void testGetGroceriesExpiringWithin() {
+    FridgeService fridgeService = new FridgeService();
+    Grocery expired = new Grocery("Milk", 1, "liters", 15, LocalDate.now().minusDays(1));
+    Grocery today = new Grocery("Eggs", 6, "pieces", 2, LocalDate.now());
+    Grocery soon = new Grocery("Milk", 2, "liters", 15, LocalDate.now().plusDays(3));
+    Grocery later = new Grocery("Flour", 1, "kg", 20, LocalDate.now().plusDays(4));
+    fridgeService.addGrocery(expired);
+    fridgeService.addGrocery(today);
+    fridgeService.addGrocery(soon);
+    fridgeService.addGrocery(later);
+
+    assertLots(List.of(today, soon), fridgeService.getGroceriesExpiringWithin(3));
+  }
+
+  @Test
+  public void testGetAllGroceriesInExpiryOrder_RemovedLotsAreDropped() {
+    FridgeService fridgeService = new FridgeService();
+    Grocery milk = new Grocery("Milk", 1, "liters", 15, LocalDate.now().plusDays(5));
+    Grocery eggs = new Grocery("Eggs", 6, "pieces", 2, LocalDate.now().plusDays(2));
+    Grocery flour = new Grocery("Flour", 1, "kg", 20, LocalDate.now().plusDays(9));
+    fridgeService.addGrocery(milk);
+    fridgeService.addGrocery(eggs);
+    fridgeService.addGrocery(flour);
+
+    assertLots(List.of(eggs, milk, flour), fridgeService.getAllGroceriesInExpiryOrder());
+
+    fridgeService.removeGrocery("Eggs", 6);
+
+    assertLots(List.of(milk, flour), fridgeService.getAllGroceriesInExpiryOrder());
+  }
+
+  @Test
+  public void testCalculateTotalValue_TracksAddClubbingAndRemoval() {
+    FridgeService fridgeService = new FridgeService();
+    fridgeService.addGrocery(new Grocery("Milk", 2, "liters", 15, LocalDate.now().plusDays(5)));
+    fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, LocalDate.now().plusDays(5)));
+    fridgeService.addGrocery(new Grocery("Eggs", 12, "pieces", 2, LocalDate.now().plusDays(10)));
+
+    assertEquals(69, fridgeService.calculateTotalValue(), 0.001);
+    assertEquals(45, fridgeService.calculateTotalValue("Milk"), 0.001);
+
+    fridgeService.removeGrocery("Milk", 2.5);
+    fridgeService.removeGrocery("Eggs", 12);
+
+    assertEquals(7.5, fridgeService.calculateTotalValue(), 0.001);
+    assertEquals(0, fridgeService.calculateTotalValue("Eggs"), 0.001);
+  }
+
+  @Test
+  public void testCalculateTotalValueOfExpiredGroceries_TracksChangesAfterSettlement() {
+    FridgeService fridgeService = new FridgeService();
+    fridgeService.addGrocery(new Grocery("Milk", 2, "liters", 15, LocalDate.now().minusDays(2)));
+    fridgeService.addGrocery(new Grocery("Eggs", 12, "pieces", 2, LocalDate.now().plusDays(10)));
+
+    assertEquals(30, fridgeService.calculateTotalValueOfExpiredGroceries(), 0.001);
+
+    fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, LocalDate.now().minusDays(2)));
+    fridgeService.removeGrocery("Milk", 0.5);
+
+    assertEquals(37.5, fridgeService.calculateTotalValueOfExpiredGroceries(), 0.001);
+  }
+
+  @Test
+  public void testConcurrentAddAndRemove_KeepsClubbingAndTotalsConsistent() throws Exception {
+    FridgeService fridgeService = new FridgeService();
+    LocalDate expiryDate = LocalDate.now().plusDays(3);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int thread = 0; thread < 8; thread++) {
+      String name = "Grocery" + (thread % 4);
+      executor.submit(
+          () -> {
+            for (int i = 0; i < 1000; i++) {
+              fridgeService.addGrocery(new Grocery(name, 2, "kg", 1.0, expiryDate));
+              fridgeService.removeGrocery(name, 1);
+            }
+          });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+    List<Grocery> groceries = fridgeService.getAllGroceries();
+    assertEquals(4, groceries.size());
+    groceries.forEach(grocery -> assertEquals(2000, grocery.getQuantity(), 0.001));
+    assertEquals(8000, fridgeService.calculateTotalValue(), 0.001);
+  }
+
+  @Test
+  public void testAddGroceries_ClubsWithinBatchAndWithStoredLots() {
+    FridgeService fridgeService = new FridgeService();
+    LocalDate expiryDate = LocalDate.now().plusDays(5);
+    fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 15, expiryDate));
+
+    fridgeService.addGroceries(
+        List.of(
+            new Grocery("Milk", 2, "liters", 15, expiryDate),
+            new Grocery("Eggs", 6, "pieces", 2, expiryDate),
+            new Grocery("Milk", 3, "liters", 15, expiryDate),
+            new Grocery("Milk", 1, "liters", 12, expiryDate)));
+
+    assertEquals(3, fridgeService.getAllGroceries().size());
+    assertEquals(7, fridgeService.getAvailableQuantity("Milk", false), 0.001);
+    assertEquals(6 * 15 + 12 + 12, fridgeService.calculateTotalValue(), 0.001);
+  }
+
+  @Test
+  public void testAddGrocery_ClubsThroughKeyIndexAndKeepsLotOrder() {
+    FridgeService fridgeService = new FridgeService();
+    LocalDate expiryDate = LocalDate.now().plusDays(10);
+    for (int i = 0; i < 100; i++) {
+      fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 10 + i, expiryDate));
+    }
+
+    fridgeService.addGrocery(new Grocery("Milk", 2, "liters", 60, expiryDate));
+    List<Grocery> lots = fridgeService.getAllGroceries();
+    assertEquals(100, lots.size());
+    assertEquals(3, lots.get(50).getQuantity(), 0.001);
+
+    // the first lot is consumed, an equal grocery starts a new lot at the end
+    assertTrue(fridgeService.removeGrocery("Milk", 1));
+    fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 10, expiryDate));
+    lots = fridgeService.getAllGroceries();
+    assertEquals(100, lots.size());
+    assertEquals(10, lots.get(99).getPricePerUnit(), 0.001);
+  }
+
+  @Test
+  public void testRemoveGrocery_ConsumesEarliestExpiringLotsFirst() {
+    FridgeService fridgeService = new FridgeService();
+    Grocery fresh = new Grocery("Milk", 2, "liters", 10, LocalDate.now().plusDays(9));
+    Grocery expiringSoon = new Grocery("Milk", 2, "liters", 12, LocalDate.now().plusDays(1));
+    Grocery expired = new Grocery("Milk", 1, "liters", 15, LocalDate.now().minusDays(2));
+    fridgeService.addGrocery(fresh);
+    fridgeService.addGrocery(expiringSoon);
+    fridgeService.addGrocery(expired);
+
+    assertLots(List.of(expired, expiringSoon, fresh), fridgeService.getAllGroceries());
+    assertEquals(4, fridgeService.getAvailableQuantity("Milk", false), 0.001);
+    assertFalse(fridgeService.removeGrocery("Milk", 5.5));
+
+    assertTrue(fridgeService.removeGrocery("Milk", 2.5));
+
+    List<Grocery> lots = fridgeService.getAllGroceries();
+    assertEquals(2, lots.size());
+    assertEquals(0.5, lots.get(0).getQuantity(), 0.001);
+    assertEquals(12, lots.get(0).getPricePerUnit(), 0.001);
+    assertLots(List.of(fresh), lots.subList(1, 2));
+    assertEquals(2.5, fridgeService.getAvailableQuantity("Milk", true), 0.001);
+    assertEquals(26, fridgeService.calculateTotalValue(), 0.001);
+  }
+
   @Test
   public void testRemoveGrocery_MockGroceryServiceInteraction() {
     FoodStorage mockFoodStorage = mock(FoodStorage.class);
@@ -143,4 +329,117 @@ public class FridgeServiceTest {
 
     verifyNoMoreInteractions(mockGroceryService);
   }
+
+  @Test
+  public void testAddGrocery_SameInstanceTwiceAndChangedCopies_KeepTotalsInStep() {
+    FridgeService fridgeService = new FridgeService();
+    Grocery milk = new Grocery("Milk", 2, "liters", 10, LocalDate.now().plusDays(5));
+
+    fridgeService.addGrocery(milk);
+    fridgeService.addGrocery(milk);
+    fridgeService.getAllGroceries().get(0).setQuantity(100);
+
+    assertEquals(2, milk.getQuantity(), 0.001);
+    assertEquals(4, fridgeService.getAllGroceries().get(0).getQuantity(), 0.001);
+    assertEquals(4, fridgeService.getAvailableQuantity("Milk", true), 0.001);
+    assertEquals(40, fridgeService.calculateTotalValue(), 0.001);
+  }
+
+  @Test
+  public void testRemoveGrocery_SpanningLotsPublishesTotalsOnceAndPrunesEmptyDays()
+      throws Exception {
+    FoodStorage foodStorage = new FoodStorage();
+    FridgeService fridgeService = new FridgeService(foodStorage, new GroceryService());
+    LocalDate first = LocalDate.now().plusDays(2);
+    LocalDate second = LocalDate.now().plusDays(4);
+    fridgeService.addGrocery(new Grocery("Eggs", 10, "pieces", 1, LocalDate.now().plusDays(9)));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<?> writer =
+        executor.submit(
+            () -> {
+              for (int i = 0; i < 2000; i++) {
+                fridgeService.addGroceries(
+                    List.of(
+                        new Grocery("Milk", 1, "liters", 1, first),
+                        new Grocery("Milk", 1, "liters", 1, second)));
+                fridgeService.removeGrocery("Milk", 2);
+              }
+            });
+    while (!writer.isDone()) {
+      double totalValue = fridgeService.calculateTotalValue();
+      assertTrue(
+          Math.abs(totalValue - 10) < 0.001 || Math.abs(totalValue - 12) < 0.001,
+          "half applied operation visible: " + totalValue);
+    }
+    writer.get();
+    executor.shutdown();
+
+    assertEquals(10, fridgeService.calculateTotalValue(), 0.001);
+    assertFalse(foodStorage.getGroceriesPerExpiryDay().containsKey((int) first.toEpochDay()));
+    assertFalse(foodStorage.getGroceriesPerExpiryDay().containsKey((int) second.toEpochDay()));
+  }
+
+  @Test
+  public void testColumnarFoodStorage_SameInventoryAndListenerLotsAsFoodStorage() {
+    LocalDate today = LocalDate.of(2024, 5, 1);
+    GroceryService groceryService = new GroceryService(ExpiryClock.fixed(today));
+    FridgeService rows = new FridgeService(new FoodStorage(), groceryService);
+    FridgeService columns = new FridgeService(new ColumnarFoodStorage(), groceryService);
+    List<Grocery> storedLots = new ArrayList<>();
+    List<Grocery> removedLots = new ArrayList<>();
+    columns.addInventoryListener(
+        new InventoryListener() {
+          @Override
+          public void groceryAdded(Grocery grocery) {}
+
+          @Override
+          public void groceryRemoved(String name, double quantity) {}
+
+          @Override
+          public void lotStored(Grocery lot) {
+            storedLots.add(lot);
+          }
+
+          @Override
+          public void lotRemoved(Grocery lot) {
+            removedLots.add(lot);
+          }
+        });
+
+    for (FridgeService fridgeService : List.of(rows, columns)) {
+      fridgeService.addGrocery(new Grocery("Milk", 2, "liters", 10, today.plusDays(3)));
+      fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 10, today.plusDays(3)));
+      fridgeService.addGroceries(
+          List.of(
+              new Grocery("Milk", 2, "liters", 20, today.minusDays(1)),
+              new Grocery("Eggs", 6, "pieces", 2, today),
+              new Grocery("Eggs", 6, "pieces", 2, today)));
+      assertFalse(fridgeService.removeGrocery("Milk", 6));
+      assertTrue(fridgeService.removeGrocery("Milk", 3));
+    }
+
+    assertLots(rows.getAllGroceriesInExpiryOrder(), columns.getAllGroceriesInExpiryOrder());
+    assertLots(rows.getExpiredGroceries(), columns.getExpiredGroceries());
+    assertLots(rows.getGroceriesExpiringWithin(3), columns.getGroceriesExpiringWithin(3));
+    assertEquals(rows.calculateTotalValue(), columns.calculateTotalValue(), 0.001);
+    assertEquals(rows.calculateTotalValue("Milk"), columns.calculateTotalValue("Milk"), 0.001);
+    assertEquals(
+        rows.calculateTotalValueOfExpiredGroceries(),
+        columns.calculateTotalValueOfExpiredGroceries(),
+        0.001);
+    assertEquals(
+        rows.getAvailableQuantity("Milk", false), columns.getAvailableQuantity("Milk", false));
+    assertEquals(rows.getLotCount(), columns.getLotCount());
+    assertEquals(rows.getCategoryCount(), columns.getCategoryCount());
+    assertEquals(3, storedLots.size());
+    assertSame(storedLots.get(1), removedLots.get(0), "removed lot is the stored instance");
+    assertEquals(2, storedLots.get(0).getQuantity(), 0.001, "stored lot is kept up to date");
+  }
+
+  /** Lots read from the fridge are copies, so they are compared by their contents. */
+  private static void assertLots(List<Grocery> expected, List<Grocery> actual) {
+    assertEquals(
+        expected.stream().map(Grocery::toString).toList(),
+        actual.stream().map(Grocery::toString).toList());
+  }
 }
@@ -0,0 +1,106 @@
+package com.inhouse.food.management.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.inhouse.food.management.model.Grocery;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class GroceryCsvImporterTest {
+
+  @Test
+  public void testImport_ClubsRowsAcrossChunks() throws IOException {
+    FridgeService fridgeService = new FridgeService();
+    String csv =
+        "name,quantity,unit,pricePerUnit,expiryDate\n"
+            + "Milk,1,liters,15,2099-01-01\n"
+            + "Milk,2,liters,15,2099-01-01\n"
+            + "\n"
+            + "Milk,1,liters,15,2099-01-01\n"
+            + "Eggs,12,pieces,2,2099-01-05\n";
+
+    GroceryCsvImporter.Result result =
+        new GroceryCsvImporter(fridgeService, 2).importFrom(new StringReader(csv));
+
+    assertEquals(4, result.getImportedRows());
+    assertEquals(0, result.getRejectedRows());
+    List<Grocery> groceries = fridgeService.getAllGroceriesInExpiryOrder();
+    assertEquals(2, groceries.size());
+    assertEquals(4, groceries.get(0).getQuantity());
+    assertEquals(12, groceries.get(1).getQuantity());
+  }
+
+  @Test
+  public void testImport_ReportsRejectedRowsWithoutAborting() throws IOException {
+    FridgeService fridgeService = new FridgeService();
+    String csv =
+        "Milk,1,liters,15,2099-01-01\n"
+            + "Milk,-1,liters,15,2099-01-01\n"
+            + "Eggs,twelve,pieces,2,2099-01-05\n"
+            + "Flour,1,kg,20,tomorrow\n"
+            + "Butter,1,kg\n"
+            + "Eggs,12,pieces,2,2099-01-05\n";
+
+    GroceryCsvImporter.Result result =
+        new GroceryCsvImporter(fridgeService).importFrom(new StringReader(csv));
+
+    assertEquals(2, result.getImportedRows());
+    assertEquals(4, result.getRejectedRows());
+    assertEquals(
+        List.of(2L, 3L, 4L, 5L),
+        result.getRejections().stream().map(GroceryCsvImporter.RejectedRow::lineNumber).toList());
+    assertEquals(2, fridgeService.getAllGroceries().size());
+  }
+
+  @Test
+  public void testImport_FirstRowStartingWithNameIsNotAHeader() throws IOException {
+    FridgeService fridgeService = new FridgeService();
+    String csv =
+        "Nameko,0.5,kg,120,2099-01-01\n"
+            + "Name,quantity,unit,pricePerUnit,expiryDate\n"
+            + "Eggs,12,pieces,2,2099-01-05\n";
+
+    GroceryCsvImporter.Result result =
+        new GroceryCsvImporter(fridgeService).importFrom(new StringReader(csv));
+
+    assertEquals(2, result.getImportedRows());
+    assertEquals(1, result.getRejectedRows());
+    assertEquals(2, result.getRejections().get(0).lineNumber());
+    assertEquals(0.5, fridgeService.getAvailableQuantity("Nameko", false));
+  }
+
+  @Test
+  public void testImport_HeaderMatchedByItsColumnNamesInAnyCase() throws IOException {
+    FridgeService fridgeService = new FridgeService();
+    String csv = " NAME , Quantity,unit,PRICEPERUNIT,expirydate\nEggs,12,pieces,2,2099-01-05\n";
+
+    GroceryCsvImporter.Result result =
+        new GroceryCsvImporter(fridgeService).importFrom(new StringReader(csv));
+
+    assertEquals(1, result.getImportedRows());
+    assertEquals(0, result.getRejectedRows());
+  }
+
+  @Test
+  public void testImport_RejectsNonFiniteAndNonPositiveQuantitiesAndPrices() throws IOException {
+    FridgeService fridgeService = new FridgeService();
+    String csv =
+        "Milk,NaN,liters,15,2099-01-01\n"
+            + "Milk,Infinity,liters,15,2099-01-01\n"
+            + "Milk,0,liters,15,2099-01-01\n"
+            + "Milk,1,liters,NaN,2099-01-01\n"
+            + "Milk,1,liters,-Infinity,2099-01-01\n"
+            + "Milk,1,liters,0,2099-01-01\n"
+            + "Milk,1,liters,15,2099-01-01\n";
+
+    GroceryCsvImporter.Result result =
+        new GroceryCsvImporter(fridgeService).importFrom(new StringReader(csv));
+
+    assertEquals(1, result.getImportedRows());
+    assertEquals(6, result.getRejectedRows());
+    assertEquals(15, fridgeService.calculateTotalValue());
+    assertTrue(fridgeService.removeGrocery("Milk", 1));
+  }
+}
@@ -24,6 +24,16 @@ public class GroceryServiceTest {
     assertFalse(groceryService.isExpired(freshGrocery));
   }
 
+  @Test
+  public void testIsExpired_FixedExpiryClock_ShouldEvaluateAgainstItsDay() {
+    GroceryService groceryService =
+        new GroceryService(ExpiryClock.fixed(LocalDate.of(2023, 12, 31)));
+    Grocery grocery = new Grocery("Rice", 2.0, "kg", 3.0, LocalDate.of(2023, 12, 30));
+
+    assertTrue(groceryService.isExpired(grocery));
+    assertFalse(groceryService.isExpired(grocery, grocery.getExpiryDay()));
+  }
+
   @Test
   public void testCalculateValue() {
     Grocery grocery = new Grocery("Rice", 2.0, "kg", 3.0, LocalDate.of(2023, 12, 31));
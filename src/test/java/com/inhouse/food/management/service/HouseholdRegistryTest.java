@@ -0,0 +1,116 @@
+package com.inhouse.food.management.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.Recipe;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class HouseholdRegistryTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2024, 5, 1);
+
+  private final GroceryService groceryService = new GroceryService(ExpiryClock.fixed(TODAY));
+  private final HouseholdRegistry registry =
+      new HouseholdRegistry(3, groceryService, new RecipeService(groceryService));
+
+  @AfterEach
+  public void closeRegistry() {
+    registry.close();
+  }
+
+  @Test
+  public void testHouseholds_HaveIsolatedFridgesAndShareTheCookbook() {
+    registry.getFridge("smith").addGrocery(new Grocery("Milk", 2, "liters", 15, TODAY));
+    registry
+        .getRecipeService()
+        .addRecipe(new Recipe(1, "Milkshake", null, null, Map.of("Milk", 1.0), 1));
+
+    assertSame(registry.getFridge("smith"), registry.getFridge("smith"));
+    assertEquals(2, registry.getFridge("smith").getAvailableQuantity("Milk", false));
+    assertEquals(0, registry.getFridge("jones").getAvailableQuantity("Milk", false));
+    assertEquals(2, registry.getHouseholdCount());
+    RecipeService recipes = registry.getRecipeService();
+    assertEquals(
+        1, recipes.getPossibleRecipes(registry.getFridge("smith").getAllGroceries(), "n").size());
+    assertEquals(
+        0, recipes.getPossibleRecipes(registry.getFridge("jones").getAllGroceries(), "n").size());
+  }
+
+  @Test
+  public void testSubmit_RunsWorkOfAHouseholdOnOneThreadInOrder() {
+    List<CompletableFuture<String>> threads = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      threads.add(
+          registry.submit(
+              "smith",
+              fridge -> {
+                fridge.addGrocery(new Grocery("Eggs", 1, "pieces", 2, TODAY.plusDays(3)));
+                return Thread.currentThread().getName();
+              }));
+    }
+
+    for (CompletableFuture<String> thread : threads) {
+      assertEquals(threads.get(0).join(), thread.join());
+    }
+    assertTrue(threads.get(0).join().startsWith("household-shard-"));
+    assertEquals(
+        100, registry.submit("smith", fridge -> fridge.getAvailableQuantity("Eggs", false)).join());
+  }
+
+  @Test
+  public void testCalculateTotalValueOfExpiredGroceries_SumsAllHouseholds() {
+    for (int i = 0; i < 50; i++) {
+      FridgeService fridge = registry.getFridge("household-" + i);
+      fridge.addGrocery(new Grocery("Milk", 1, "liters", 10, TODAY.minusDays(1)));
+      fridge.addGrocery(new Grocery("Eggs", 2, "pieces", 3, TODAY.plusDays(1)));
+    }
+
+    assertEquals(500, registry.calculateTotalValueOfExpiredGroceries(), 1e-9);
+    assertEquals(800, registry.calculateTotalValue(), 1e-9);
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            registry.sum(
+                fridge -> {
+                  throw new IllegalStateException("broken");
+                }));
+  }
+
+  @Test
+  public void testSum_FromWorkOfAHouseholdFailsInsteadOfWaitingForItself() {
+    registry.getFridge("smith").addGrocery(new Grocery("Milk", 2, "liters", 15, TODAY));
+
+    CompletableFuture<Double> total =
+        registry.submit("smith", fridge -> registry.calculateTotalValue());
+
+    CompletionException e = assertThrows(CompletionException.class, total::join);
+    assertInstanceOf(IllegalStateException.class, e.getCause());
+    assertEquals(30, registry.calculateTotalValue(), 1e-9);
+  }
+
+  @Test
+  public void testRemoveHousehold_AfterItsSubmittedWork() {
+    registry.submit(
+        "smith",
+        fridge -> {
+          fridge.addGrocery(new Grocery("Milk", 2, "liters", 15, TODAY));
+          return null;
+        });
+    registry.getFridge("jones");
+
+    FridgeService removed = registry.removeHousehold("smith").join();
+
+    assertEquals(2, removed.getAvailableQuantity("Milk", false));
+    assertEquals(1, registry.getHouseholdCount());
+    assertEquals(0, registry.calculateTotalValue());
+    assertNull(registry.removeHousehold("smith").join());
+  }
+}
@@ -1,13 +1,23 @@
 package com.inhouse.food.management.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.inhouse.food.management.model.Grocery;
+import com.inhouse.food.management.model.IngredientDictionary;
 import com.inhouse.food.management.model.Recipe;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
@@ -66,6 +76,169 @@ public class RecipeServiceTest {
     assertEquals(Arrays.asList(recipe1, recipe2), possibleRecipes);
   }
 
+  @Test
+  public void testGetPossibleRecipes_InsufficientOrMissingIngredients() {
+    RecipeService recipeService = new RecipeService();
+
+    Grocery milk = new Grocery("Milk", 1, "Litre", 1.50, LocalDate.now().plusDays(2));
+    Grocery eggs = new Grocery("Eggs", 4, "Pieces", 2.0, LocalDate.now().plusDays(4));
+
+    Recipe omelette = new Recipe(1, "Omelette", "Eggs", "Fry", Map.of("Eggs", 3.0), 1);
+    Recipe pancakes =
+        new Recipe(2, "Pancakes", "Breakfast", "Mix", Map.of("Milk", 1.5, "Eggs", 2.0), 4);
+    Recipe bread = new Recipe(3, "Bread", "Bake", "Knead", Map.of("Flour", 1.0), 4);
+    Recipe custard =
+        new Recipe(4, "Custard", "Dessert", "Whisk", Map.of("Milk", 1.0, "Eggs", 1.0), 2);
+    recipeService.addRecipe(omelette);
+    recipeService.addRecipe(pancakes);
+    recipeService.addRecipe(bread);
+    recipeService.addRecipe(custard);
+
+    List<Recipe> possibleRecipes = recipeService.getPossibleRecipes(List.of(milk, eggs), "y");
+    assertEquals(List.of(omelette, custard), possibleRecipes);
+  }
+
+  @Test
+  public void testGetPossibleRecipes_AfterIngredientsUpdated() {
+    RecipeService recipeService = new RecipeService();
+
+    Grocery milk = new Grocery("Milk", 1, "Litre", 1.50, LocalDate.now().plusDays(2));
+
+    Recipe recipe1 = new Recipe(1, "Bread", "Bake", "Knead", Map.of("Flour", 1.0), 4);
+    Recipe recipe2 = new Recipe(2, "Milkshake", "Drink", "Shake", Map.of("Milk", 1.0), 1);
+    recipeService.addRecipe(recipe1);
+    recipeService.addRecipe(recipe2);
+
+    recipeService.updateIngredients(recipe1, Map.of("Milk", 0.5));
+
+    assertEquals(List.of(recipe1, recipe2), recipeService.getPossibleRecipes(List.of(milk), "y"));
+
+    recipeService.updateIngredients(recipe2, Map.of("Milk", 2.0));
+
+    assertEquals(List.of(recipe1), recipeService.getPossibleRecipes(List.of(milk), "y"));
+  }
+
+  @Test
+  public void testGetCookableRecipes_FollowsFridgeChanges() {
+    RecipeService recipeService = new RecipeService();
+    FridgeService fridgeService = new FridgeService();
+    fridgeService.addGrocery(new Grocery("Milk", 2, "Litre", 1.50, LocalDate.now().plusDays(2)));
+    fridgeService.addGrocery(new Grocery("Eggs", 1, "Pieces", 2.0, LocalDate.now().minusDays(1)));
+
+    Recipe milkshake = new Recipe(1, "Milkshake", "Drink", "Shake", Map.of("Milk", 1.0), 1);
+    Recipe pancakes =
+        new Recipe(2, "Pancakes", "Breakfast", "Mix", Map.of("Milk", 1.5, "Eggs", 2.0), 4);
+    recipeService.addRecipe(milkshake);
+    recipeService.trackInventory(fridgeService);
+    recipeService.addRecipe(pancakes);
+
+    assertEquals(List.of(milkshake), recipeService.getCookableRecipes("y"));
+
+    fridgeService.addGrocery(new Grocery("Eggs", 1, "Pieces", 2.0, LocalDate.now().plusDays(3)));
+
+    assertEquals(List.of(milkshake, pancakes), recipeService.getCookableRecipes("y"));
+    assertEquals(List.of(milkshake), recipeService.getCookableRecipes("n"));
+
+    fridgeService.removeGrocery("Milk", 1);
+
+    assertEquals(List.of(milkshake), recipeService.getCookableRecipes("y"));
+  }
+
+  @Test
+  public void testGetCookableRecipes_GroceryStoredBeforeARecipeUsedIt() {
+    RecipeService recipeService = new RecipeService();
+    FridgeService fridgeService = new FridgeService();
+    recipeService.trackInventory(fridgeService);
+    String ingredient = "Saffron " + System.nanoTime();
+    int knownIngredients = IngredientDictionary.shared().size();
+    fridgeService.addGrocery(new Grocery(ingredient, 1, "g", 9, LocalDate.now().plusDays(30)));
+
+    assertEquals(IngredientDictionary.NO_ID, IngredientDictionary.shared().find(ingredient));
+    assertEquals(knownIngredients, IngredientDictionary.shared().size());
+
+    Recipe paella = new Recipe(1, "Paella", "Rice", "Simmer", null, 4);
+    recipeService.addRecipe(paella);
+    recipeService.updateIngredients(paella, Map.of(ingredient, 0.5));
+
+    assertEquals(List.of(paella), recipeService.getCookableRecipes("n"));
+    Recipe risotto =
+        new Recipe(2, "Risotto", "Rice", "Stir", Map.of(ingredient + " threads", 1.0), 2);
+    fridgeService.addGrocery(
+        new Grocery(ingredient + " threads", 2, "g", 9, LocalDate.now().plusDays(30)));
+    recipeService.addRecipe(risotto);
+
+    assertEquals(List.of(paella, risotto), recipeService.getCookableRecipes("n"));
+  }
+
+  @Test
+  public void testNextRecipeId_AboveSavedIdsAndNeverRepeated() {
+    RecipeService recipeService = new RecipeService();
+    recipeService.addRecipe(new Recipe(7, "Tea", "Drink", "Steep", Map.of("Water", 0.25), 1));
+
+    assertEquals(8, recipeService.nextRecipeId());
+    assertEquals(9, recipeService.nextRecipeId());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> recipeService.addRecipe(new Recipe(7, "Coffee", "Drink", "Brew", null, 1)));
+  }
+
+  @Test
+  public void testFindUpdateAndRemoveById_KeepIndexesConsistent() {
+    RecipeService recipeService = new RecipeService();
+    FridgeService fridgeService = new FridgeService();
+    fridgeService.addGrocery(new Grocery("Milk", 2, "Litre", 1.50, LocalDate.now().plusDays(2)));
+    Recipe milkshake = new Recipe(1, "Milkshake", "Drink", "Shake", Map.of("Milk", 1.0), 1);
+    Recipe omelette = new Recipe(2, "Omelette", "Lunch", "Fry", Map.of("Eggs", 3.0), 1);
+    Recipe porridge = new Recipe(3, "Porridge", "Breakfast", "Boil", Map.of("Milk", 0.5), 1);
+    recipeService.addRecipe(milkshake);
+    recipeService.addRecipe(omelette);
+    recipeService.addRecipe(porridge);
+    recipeService.trackInventory(fridgeService);
+
+    assertSame(omelette, recipeService.findById(2));
+    assertNull(recipeService.findById(4));
+
+    assertTrue(
+        recipeService.updateById(
+            2, new Recipe(2, "Custard", "Dessert", "Stir", Map.of("Milk", 1.5), 2)));
+    assertSame(omelette, recipeService.findById(2));
+    assertEquals("Custard", omelette.getName());
+    assertEquals(Map.of("Milk", 1.5), omelette.getIngredients());
+    assertEquals(List.of(milkshake, omelette, porridge), recipeService.getCookableRecipes("n"));
+    assertFalse(recipeService.updateById(4, omelette));
+
+    assertSame(milkshake, recipeService.removeById(1));
+    assertNull(recipeService.removeById(1));
+    assertNull(recipeService.findById(1));
+    assertEquals(List.of(omelette, porridge), recipeService.getRecipes());
+    assertEquals(List.of(omelette, porridge), recipeService.getCookableRecipes("n"));
+    assertEquals(
+        List.of(omelette, porridge),
+        recipeService.getPossibleRecipes(fridgeService.getAllGroceries(), "n"));
+  }
+
+  @Test
+  public void testRemoveById_KeepsEqualRecipesApartAndTheOrderOfTheRest() {
+    RecipeService recipeService = new RecipeService();
+    FridgeService fridgeService = new FridgeService();
+    fridgeService.addGrocery(new Grocery("Milk", 2, "Litre", 1.50, LocalDate.now().plusDays(2)));
+    Recipe first = new Recipe(1, "Milkshake", "Drink", "Shake", Map.of("Milk", 1.0), 1);
+    Recipe second = new Recipe(null, "Milkshake", "Drink", "Shake", Map.of("Milk", 1.0), 1);
+    Recipe third = new Recipe(null, "Milkshake", "Drink", "Shake", Map.of("Milk", 1.0), 1);
+    recipeService.addRecipe(second);
+    recipeService.addRecipe(first);
+    recipeService.addRecipe(third);
+    assertEquals(second, third);
+
+    assertSame(first, recipeService.removeById(1));
+
+    List<Recipe> possible = recipeService.getPossibleRecipes(fridgeService.getAllGroceries(), "n");
+    assertEquals(2, possible.size());
+    assertSame(second, possible.get(0));
+    assertSame(third, possible.get(1));
+    assertSame(third, recipeService.getRecipes().get(1));
+  }
+
   /*@Test
       public void testGetPossibleRecipes_ExcludeExpiredGrocery_WithExpiredItems() {
           GroceryService mockGroceryService = Mockito.mock(GroceryService.class);
@@ -130,4 +303,205 @@ public class RecipeServiceTest {
       List<Recipe> possibleRecipes = recipeService.getPossibleRecipes(fridgeItems, "n");
       assertEquals(Collections.emptyList(), possibleRecipes);
   }*/
+
+  @Test
+  public void testGetPossibleRecipesInParallel_SameRecipesInCookbookOrder() {
+    LocalDate today = LocalDate.of(2024, 5, 1);
+    RecipeService recipeService = new RecipeService(new GroceryService(ExpiryClock.fixed(today)));
+    int recipeCount = RecipeService.PARALLEL_THRESHOLD + 3 * RecipeService.MIN_CHUNK_SIZE + 7;
+    for (int id = recipeCount; id > 0; id--) {
+      Map<String, Double> ingredients =
+          id % 5 == 0 ? null : Map.of("Milk", (double) (id % 4), "Flour" + id % 3, 1.0);
+      recipeService.addRecipe(new Recipe(id, "Recipe " + id, null, null, ingredients, 1));
+    }
+    List<Grocery> groceries =
+        List.of(
+            new Grocery("Milk", 2, "liters", 15, today.plusDays(1)),
+            new Grocery("Flour1", 1, "kg", 3, today.plusDays(1)),
+            new Grocery("Flour2", 1, "kg", 3, today.minusDays(1)));
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    try {
+      for (String includeExpired : List.of("n", "y")) {
+        List<Recipe> sequential = recipeService.getPossibleRecipes(groceries, includeExpired);
+        List<Recipe> parallel =
+            recipeService.getPossibleRecipesInParallel(groceries, includeExpired, pool);
+
+        assertEquals(sequential, parallel);
+        assertTrue(parallel.size() > RecipeService.MIN_CHUNK_SIZE);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testGetRecipes_CopiedOnlyAfterTheCookbookChanged() {
+    RecipeService recipeService = new RecipeService();
+    Recipe pancakes = new Recipe(1, "Pancakes", null, null, Map.of("Eggs", 1.0), 1);
+    recipeService.addRecipe(pancakes);
+
+    List<Recipe> recipes = recipeService.getRecipes();
+    recipeService.updateIngredients(pancakes, Map.of("Eggs", 2.0));
+
+    assertSame(recipes, recipeService.getRecipes());
+    recipeService.addRecipe(new Recipe(2, "Omelette", null, null, Map.of("Eggs", 3.0), 1));
+    assertEquals(List.of(pancakes), recipes);
+    assertEquals(2, recipeService.getRecipes().size());
+    recipeService.removeById(1);
+    assertEquals(1, recipeService.getRecipes().size());
+  }
+
+  @Test
+  public void testGetPossibleRecipesInParallel_CookbookNotLockedWhileEvaluating() {
+    LocalDate today = LocalDate.of(2024, 5, 1);
+    RecipeService recipeService = new RecipeService(new GroceryService(ExpiryClock.fixed(today)));
+    for (int id = 1; id < RecipeService.PARALLEL_THRESHOLD; id++) {
+      recipeService.addRecipe(new Recipe(id, "Recipe " + id, null, null, Map.of("Milk", 1.0), 1));
+    }
+    // saves a recipe from a worker, which waits forever if the caller holds the cookbook monitor
+    Recipe saving =
+        new Recipe(0, "Saving", null, null, Map.of("Milk", 1.0), 1) {
+          @Override
+          public boolean canBeMadeWith(double[] availableQuantities) {
+            recipeService.addRecipe(new Recipe(null, "Saved meanwhile", null, null, null, 1));
+            return super.canBeMadeWith(availableQuantities);
+          }
+        };
+    recipeService.addRecipe(saving);
+    List<Grocery> groceries = List.of(new Grocery("Milk", 1, "liters", 15, today.plusDays(1)));
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    try {
+      List<Recipe> possibleRecipes =
+          assertTimeoutPreemptively(
+              Duration.ofSeconds(30),
+              () -> recipeService.getPossibleRecipesInParallel(groceries, "n", pool));
+
+      assertEquals(RecipeService.PARALLEL_THRESHOLD, possibleRecipes.size());
+      assertTrue(possibleRecipes.contains(saving));
+      assertEquals(RecipeService.PARALLEL_THRESHOLD + 1, recipeService.getRecipeCount());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testGetRecipesByExpiryPressure_RanksByValueOfSoonExpiringGroceriesUsedUp() {
+    LocalDate today = LocalDate.of(2024, 5, 1);
+    RecipeService recipeService = new RecipeService(new GroceryService(ExpiryClock.fixed(today)));
+    Recipe water = new Recipe(1, "Water", null, null, null, 1);
+    Recipe omelette = new Recipe(2, "Omelette", null, null, Map.of("Eggs", 3.0), 1);
+    Recipe pancakes = new Recipe(3, "Pancakes", null, null, Map.of("Eggs", 1.0, "Milk", 1.0), 1);
+    Recipe cheesecake = new Recipe(4, "Cheesecake", null, null, Map.of("Cheese", 1.0), 1);
+    Recipe tea = new Recipe(5, "Tea", null, null, Map.of("Milk", 0.5), 1);
+    Recipe bread = new Recipe(6, "Bread", null, null, Map.of("Flour", 1.0), 1);
+    List.of(water, omelette, pancakes, cheesecake, tea, bread).forEach(recipeService::addRecipe);
+    List<Grocery> groceries =
+        List.of(
+            new Grocery("Eggs", 2, "pieces", 3, today.plusDays(1)),
+            new Grocery("Eggs", 2, "pieces", 5, today.plusDays(10)),
+            new Grocery("Milk", 1, "liters", 4, today),
+            new Grocery("Cheese", 1, "kg", 30, today.minusDays(1)),
+            new Grocery("Flour", 1, "kg", 2, today.plusDays(30)));
+
+    List<RecipeService.RankedRecipe> ranked =
+        recipeService.getRecipesByExpiryPressure(groceries, 2, 10);
+
+    // the omelette uses both eggs expiring soon and one not, the cheese has expired already
+    assertEquals(
+        List.of(pancakes, omelette, tea, water, bread),
+        ranked.stream().map(RecipeService.RankedRecipe::recipe).collect(Collectors.toList()));
+    assertEquals(
+        List.of(7.0, 6.0, 2.0, 0.0, 0.0),
+        ranked.stream()
+            .map(RecipeService.RankedRecipe::expiryPressure)
+            .collect(Collectors.toList()));
+    assertEquals(
+        List.of(pancakes, omelette),
+        recipeService.getRecipesByExpiryPressure(groceries, 2, 2).stream()
+            .map(RecipeService.RankedRecipe::recipe)
+            .collect(Collectors.toList()));
+    assertEquals(List.of(), recipeService.getRecipesByExpiryPressure(groceries, 2, 0));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> recipeService.getRecipesByExpiryPressure(groceries, -1, 3));
+  }
+
+  @Test
+  public void testGetAlmostPossibleRecipes_ClosestFirstWithShortfall() {
+    RecipeService recipeService = new RecipeService();
+    Recipe omelette = new Recipe(1, "Omelette", null, null, Map.of("Eggs", 3.0, "Butter", 1.0), 1);
+    Recipe pancakes =
+        new Recipe(2, "Pancakes", null, null, Map.of("Eggs", 2.0, "Milk", 1.0, "Flour", 1.0), 1);
+    Recipe crepes = new Recipe(3, "Crepes", null, null, Map.of("Eggs", 2.0, "Flour", 2.0), 1);
+    Recipe scrambled = new Recipe(4, "Scrambled eggs", null, null, Map.of("Eggs", 2.0), 1);
+    Recipe cake =
+        new Recipe(
+            5, "Cake", null, null, Map.of("Eggs", 4.0, "Milk", 1.0, "Flour", 1.0, "Sugar", 1.0), 1);
+    Recipe toast = new Recipe(6, "Toast", null, null, Map.of("Bread", 1.0), 1);
+    List.of(omelette, pancakes, crepes, scrambled, cake, toast).forEach(recipeService::addRecipe);
+    LocalDate expiryDate = LocalDate.now().plusDays(3);
+    List<Grocery> groceries =
+        List.of(
+            new Grocery("Eggs", 2, "pieces", 3, expiryDate),
+            new Grocery("Flour", 1.5, "kg", 2, expiryDate));
+
+    List<RecipeService.NearMatch> nearMatches =
+        recipeService.getAlmostPossibleRecipes(groceries, "n", 1, Double.POSITIVE_INFINITY);
+
+    // crepes lack a quarter of their flour, the omelette all of its butter and a third of its eggs;
+    // toast uses nothing in stock but misses only its bread
+    assertEquals(
+        List.of(crepes, pancakes, toast),
+        nearMatches.stream().map(RecipeService.NearMatch::recipe).collect(Collectors.toList()));
+    assertEquals(Map.of("Flour", 0.5), nearMatches.get(0).shortfall());
+    assertEquals(Map.of("Milk", 1.0), nearMatches.get(1).shortfall());
+    assertEquals(Map.of("Bread", 1.0), nearMatches.get(2).shortfall());
+    List<RecipeService.NearMatch> twoAway =
+        recipeService.getAlmostPossibleRecipes(groceries, "n", 2, Double.POSITIVE_INFINITY);
+    assertEquals(
+        List.of(crepes, pancakes, toast, omelette),
+        twoAway.stream().map(RecipeService.NearMatch::recipe).collect(Collectors.toList()));
+    assertEquals(Map.of("Eggs", 1.0, "Butter", 1.0), twoAway.get(3).shortfall());
+    assertEquals(2, twoAway.get(3).getMissingIngredientCount());
+    assertEquals(
+        List.of(crepes),
+        recipeService.getAlmostPossibleRecipes(groceries, "n", 2, 0.5).stream()
+            .map(RecipeService.NearMatch::recipe)
+            .collect(Collectors.toList()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> recipeService.getAlmostPossibleRecipes(groceries, "n", 1, Double.NaN));
+    assertEquals(List.of(), recipeService.getAlmostPossibleRecipes(groceries, "n", 0, 1.0));
+  }
+
+  @Test
+  public void testGetAlmostPossibleRecipes_AbsentIngredientRequiredInNoQuantity() {
+    RecipeService recipeService = new RecipeService();
+    Recipe crepes = new Recipe(1, "Crepes", null, null, Map.of("Eggs", 2.0, "Flour", 2.0), 1);
+    Recipe salted = new Recipe(2, "Salted eggs", null, null, Map.of("Eggs", 2.0, "Salt", 0.0), 1);
+    Recipe toast = new Recipe(3, "Toast", null, null, Map.of("Bread", 1.0), 1);
+    List.of(crepes, salted, toast).forEach(recipeService::addRecipe);
+    LocalDate expiryDate = LocalDate.now().plusDays(3);
+    List<Grocery> groceries =
+        List.of(
+            new Grocery("Eggs", 2, "pieces", 3, expiryDate),
+            new Grocery("Flour", 1.5, "kg", 2, expiryDate));
+
+    List<RecipeService.NearMatch> nearMatches =
+        recipeService.getAlmostPossibleRecipes(groceries, "n", 1, Double.POSITIVE_INFINITY);
+
+    // salt is not in stock at all, which counts like all of the bread missing
+    assertEquals(
+        List.of(crepes, salted, toast),
+        nearMatches.stream().map(RecipeService.NearMatch::recipe).collect(Collectors.toList()));
+    assertEquals(Map.of("Salt", 0.0), nearMatches.get(1).shortfall());
+    assertEquals(2.0, salted.getShortfallShare(new double[] {})); // neither eggs nor salt
+    assertEquals(
+        List.of(crepes),
+        recipeService.getAlmostPossibleRecipes(groceries, "n", 1, 0.5).stream()
+            .map(RecipeService.NearMatch::recipe)
+            .collect(Collectors.toList()));
+  }
 }